@@ -1,9 +1,7 @@
 package edu.ntnu.iir.bidata;
 
-import static edu.ntnu.iir.bidata.userInterface.UserInterface.init;
-import static edu.ntnu.iir.bidata.userInterface.UserInterface.start;
-
 import edu.ntnu.iir.bidata.services.FridgeService;
+import edu.ntnu.iir.bidata.services.GroceryStore;
 import edu.ntnu.iir.bidata.services.GroceryService;
 import edu.ntnu.iir.bidata.services.RecipeService;
 import edu.ntnu.iir.bidata.userInterface.UserInterface;
@@ -23,7 +21,7 @@ import edu.ntnu.iir.bidata.userInterface.UserInterface;
  */
 public class FoodWasteApp {
 
-  public static final FridgeService fridgeService = new FridgeService();
+  public static final GroceryStore fridgeService = new FridgeService();
   public static final RecipeService recipeService = new RecipeService();
   public static final GroceryService groceryService = new GroceryService();
 
@@ -33,8 +31,8 @@ public class FoodWasteApp {
    * @param args the command-line arguments
    */
   public static void main(String[] args) {
-    UserInterface userInterface = new UserInterface();
-    init(); // Initialize sample data
-    start(); // Start the console menu
+    UserInterface userInterface = new UserInterface(fridgeService, recipeService);
+    userInterface.init(); // Initialize sample data
+    userInterface.start(); // Start the console menu
   }
 }
\ No newline at end of file
@@ -0,0 +1,709 @@
+package edu.ntnu.iir.bidata.model;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.IntPredicate;
+
+/**
+ * A fridge storing its lots as primitive columns instead of {@link Grocery} objects.
+ *
+ * <p>Lot {@code i} is described by {@code nameIds[i]}, {@code unitIds[i]}, {@code quantities[i]},
+ * {@code prices[i]}, {@code expiryDays[i]} and {@code sequences[i]}, the names and units being
+ * {@link SymbolTable} identifiers, the expiry date an epoch day and the sequence the order the lot
+ * was stored in, as in {@link Grocery#getSequence()}. Without an object per lot, a lot takes a
+ * few dozen bytes, and scans such as finding the expired lots walk contiguous arrays. This makes
+ * the class suited for very large inventories; {@link Fridge} is the better fit when lots are
+ * changed one at a time by many threads.</p>
+ *
+ * <p>The lots are kept densely packed: removing a lot moves the last lot into its slot. Lots are
+ * found by their {@link LotKey} fields through an open addressing hash table of lot positions,
+ * and running totals are kept per grocery name, indexed by the name identifier.</p>
+ *
+ * <p>Groceries returned by the query methods are detached copies of the lots; changing them does
+ * not change the fridge. All methods synchronize on the fridge.</p>
+ */
+public class ColumnarFridge {
+  private static final int INITIAL_CAPACITY = 16;
+
+  private int[] nameIds = new int[INITIAL_CAPACITY];
+  private int[] unitIds = new int[INITIAL_CAPACITY];
+  private double[] quantities = new double[INITIAL_CAPACITY];
+  private double[] prices = new double[INITIAL_CAPACITY];
+  private long[] expiryDays = new long[INITIAL_CAPACITY];
+  private long[] sequences = new long[INITIAL_CAPACITY];
+  private int size;
+  private long nextSequence;
+
+  /** Lot positions plus one by hash of the lot key, {@code 0} marking a free slot. */
+  private int[] lotTable = new int[INITIAL_CAPACITY * 2];
+
+  private double totalValue;
+  private int[] lotsPerName = new int[INITIAL_CAPACITY];
+  private double[] quantityPerName = new double[INITIAL_CAPACITY];
+  private double[] valuePerName = new double[INITIAL_CAPACITY];
+
+  /** Sorted index of the names that have at least one lot. */
+  private final NameIndex nameIndex = new NameIndex();
+
+  private final List<QuantityListener> quantityListeners = new CopyOnWriteArrayList<>();
+
+  /**
+   * Adds a grocery to the fridge, merging it into the lot with the same {@link LotKey} if there
+   * is one.
+   *
+   * @param grocery the grocery to add
+   */
+  public synchronized void add(Grocery grocery) {
+    int nameId = grocery.getNameId();
+    int unitId = grocery.getUnitId();
+    double price = grocery.getPricePerUnit() + 0.0;
+    long day = grocery.getExpiryDate().toEpochDay();
+    double quantity = grocery.getQuantity();
+
+    int lot = findLot(nameId, unitId, price, day);
+    if (lot < 0) {
+      lot = appendLot(nameId, unitId, price, day);
+    }
+    quantities[lot] += quantity;
+    addToTotals(nameId, quantity, quantity * price);
+    notifyQuantityListeners(nameId);
+  }
+
+  /**
+   * Adds several groceries to the fridge.
+   *
+   * @param groceries the groceries to add
+   */
+  public synchronized void addAll(Iterable<Grocery> groceries) {
+    for (Grocery grocery : groceries) {
+      add(grocery);
+    }
+  }
+
+  /**
+   * Consumes a quantity of a grocery, using up the lots expiring first.
+   *
+   * <p>Nothing is consumed unless the full quantity is available. The lots of the name are found
+   * with one scan of the name column. Unlike {@link Fridge}, lots expiring on the same day are not
+   * kept in the order they were added, so they are used up in no particular order.</p>
+   *
+   * @param name the (lowercase) name of the grocery
+   * @param quantity the quantity to consume
+   * @return the lots that were consumed from, soonest expiring first, or {@code null} if the
+   *         quantity is not available
+   */
+  public synchronized List<LotConsumption> consume(String name, double quantity) {
+    int nameId = SymbolTable.NAMES.findId(name);
+    if (nameId < 0 || nameId >= lotsPerName.length || lotsPerName[nameId] == 0
+        || quantityPerName[nameId] < quantity) {
+      return null;
+    }
+    int[] lots = sortByExpiry(lotsOfName(nameId));
+
+    List<LotConsumption> consumedLots = new ArrayList<>();
+    double remainingQuantity = quantity;
+    int depletedLots = 0;
+    for (int lot : lots) {
+      if (remainingQuantity <= 0) {
+        break;
+      }
+      double lotQuantity = quantities[lot];
+      if (lotQuantity <= remainingQuantity) {
+        remainingQuantity -= lotQuantity;
+        consumedLots.add(new LotConsumption(toGrocery(lot), lotQuantity, true));
+        depletedLots++;
+      } else {
+        quantities[lot] = lotQuantity - remainingQuantity;
+        addToTotals(nameId, -remainingQuantity, -remainingQuantity * prices[lot]);
+        consumedLots.add(new LotConsumption(toGrocery(lot), remainingQuantity, false));
+        remainingQuantity = 0;
+      }
+    }
+
+    // Remove from the back, so moving the last lot never moves a lot still to be removed
+    int[] depleted = Arrays.copyOf(lots, depletedLots);
+    Arrays.sort(depleted);
+    for (int i = depleted.length - 1; i >= 0; i--) {
+      removeLot(depleted[i]);
+    }
+    notifyQuantityListeners(nameId);
+    return consumedLots;
+  }
+
+  /**
+   * Returns the number of lots in the fridge.
+   *
+   * @return the number of lots
+   */
+  public synchronized int size() {
+    return size;
+  }
+
+  /**
+   * Retrieves all lots, in storage order.
+   *
+   * @return copies of all lots
+   */
+  public synchronized List<Grocery> getGroceries() {
+    List<Grocery> groceries = new ArrayList<>(size);
+    for (int lot = 0; lot < size; lot++) {
+      groceries.add(toGrocery(lot));
+    }
+    return groceries;
+  }
+
+  /**
+   * Retrieves all lots ordered by name, and by expiry date within a name.
+   *
+   * @return copies of all lots in order of name
+   */
+  public synchronized List<Grocery> getGroceriesSortedByName() {
+    return toGroceries(sortByName(sortByExpiry(allLots()), nameIndex.getNames()));
+  }
+
+  /**
+   * Retrieves all lots ordered by expiry date.
+   *
+   * @return copies of all lots in order of expiry date
+   */
+  public synchronized List<Grocery> getGroceriesSortedByExpiryDate() {
+    return toGroceries(sortByExpiry(allLots()));
+  }
+
+  /**
+   * Retrieves up to {@code limit} lots in order of name, after the given position.
+   *
+   * <p>Lots are listed by name, then by expiry date, then by sequence, like
+   * {@link Fridge#getGroceriesByName(String, LocalDate, long, int)}. Only the name of the position
+   * and the {@code limit} names after it can hold the lots, as every indexed name has a lot; they
+   * are picked with one scan of the columns, keeping the first lots found in a heap of at most
+   * {@code limit} entries.</p>
+   *
+   * @param afterName the (lowercase) name of the position
+   * @param afterExpiryDate the expiry date of the position
+   * @param afterSequence the sequence of the position
+   * @param limit the maximum number of lots to return
+   * @return copies of the lots, ordered by name and by expiry date within a name
+   */
+  public synchronized List<Grocery> getGroceriesByName(String afterName, LocalDate afterExpiryDate,
+      long afterSequence, int limit) {
+    List<String> names = new ArrayList<>();
+    names.add(afterName);
+    names.addAll(nameIndex.getNames(afterName, false, limit));
+    int[] rankPerName = rankPerName(names);
+    int afterNameId = SymbolTable.NAMES.findId(afterName);
+    long afterDay = afterExpiryDate.toEpochDay();
+    Comparator<Integer> byName = Comparator.comparingInt(lot -> rankPerName[nameIds[lot]]);
+    return toGroceries(firstLots(lot -> rankPerName[nameIds[lot]] >= 0
+            && (nameIds[lot] != afterNameId || isAfter(lot, afterDay, afterSequence)),
+        byName.thenComparing(byExpiryAndSequence()), limit));
+  }
+
+  /**
+   * Retrieves up to {@code limit} lots in order of expiry date, after the given position.
+   *
+   * <p>Lots expiring on the same day are listed by sequence, like
+   * {@link Fridge#getGroceriesByExpiryDate(LocalDate, long, int)}. They are picked with one scan of
+   * the columns, keeping the first lots found in a heap of at most {@code limit} entries.</p>
+   *
+   * @param afterExpiryDate the expiry date of the position
+   * @param afterSequence the sequence of the position
+   * @param limit the maximum number of lots to return
+   * @return copies of the lots, ordered by expiry date
+   */
+  public synchronized List<Grocery> getGroceriesByExpiryDate(LocalDate afterExpiryDate,
+      long afterSequence, int limit) {
+    long afterDay = afterExpiryDate.toEpochDay();
+    return toGroceries(firstLots(lot -> isAfter(lot, afterDay, afterSequence),
+        byExpiryAndSequence(), limit));
+  }
+
+  /**
+   * Retrieves all lots expiring between the two dates, both inclusive.
+   *
+   * @param from the first date to include
+   * @param to the last date to include
+   * @return copies of the matching lots in order of expiry date
+   */
+  public synchronized List<Grocery> getGroceriesExpiringBetween(LocalDate from, LocalDate to) {
+    long first = from.toEpochDay();
+    long last = to.toEpochDay();
+    int[] matches = new int[size];
+    int count = 0;
+    for (int lot = 0; lot < size; lot++) {
+      long day = expiryDays[lot];
+      if (day >= first && day <= last) {
+        matches[count++] = lot;
+      }
+    }
+    return toGroceries(sortByExpiry(Arrays.copyOf(matches, count)));
+  }
+
+  /**
+   * Retrieves all lots expiring strictly before the given date.
+   *
+   * @param date the first date that is not included
+   * @return copies of the matching lots in order of expiry date
+   */
+  public synchronized List<Grocery> getGroceriesExpiringBefore(LocalDate date) {
+    return getGroceriesExpiringBetween(LocalDate.MIN, date.minusDays(1));
+  }
+
+  /**
+   * Retrieves all lots of the grocery with the given name.
+   *
+   * @param name the (lowercase) name of the grocery
+   * @return copies of the lots in order of expiry date
+   */
+  public synchronized List<Grocery> getGroceries(String name) {
+    int nameId = SymbolTable.NAMES.findId(name);
+    if (nameId < 0 || nameId >= lotsPerName.length || lotsPerName[nameId] == 0) {
+      return new ArrayList<>();
+    }
+    return toGroceries(sortByExpiry(lotsOfName(nameId)));
+  }
+
+  /**
+   * Retrieves all lots of the groceries with the given names, using one scan of the name column.
+   *
+   * @param names the (lowercase) names of the groceries, in the order to return them in
+   * @return copies of the lots in the order of their names, and by expiry date within a name
+   */
+  public synchronized List<Grocery> getGroceries(List<String> names) {
+    boolean[] wanted = new boolean[lotsPerName.length];
+    for (String name : names) {
+      int nameId = SymbolTable.NAMES.findId(name);
+      if (nameId >= 0 && nameId < wanted.length) {
+        wanted[nameId] = true;
+      }
+    }
+    int[] matches = new int[size];
+    int count = 0;
+    for (int lot = 0; lot < size; lot++) {
+      if (wanted[nameIds[lot]]) {
+        matches[count++] = lot;
+      }
+    }
+    return toGroceries(sortByName(sortByExpiry(Arrays.copyOf(matches, count)), names));
+  }
+
+  /**
+   * Returns the names of all stored groceries in alphabetical order.
+   *
+   * @return the grocery names
+   */
+  public List<String> getNames() {
+    return nameIndex.getNames();
+  }
+
+  /**
+   * Returns the names of the stored groceries starting with the given prefix.
+   *
+   * @param prefix the (lowercase) prefix to look for
+   * @return the matching grocery names in alphabetical order
+   */
+  public List<String> getNamesStartingWith(String prefix) {
+    return nameIndex.getNamesStartingWith(prefix);
+  }
+
+  /**
+   * Returns the names of the stored groceries containing the given text.
+   *
+   * @param text the (lowercase) text to look for
+   * @return the matching grocery names in alphabetical order
+   */
+  public List<String> getNamesContaining(String text) {
+    return nameIndex.getNamesContaining(text);
+  }
+
+  /**
+   * Returns the total value of all groceries in the fridge.
+   *
+   * @return the total value in NOK
+   */
+  public synchronized double getTotalValue() {
+    return totalValue;
+  }
+
+  /**
+   * Returns the total value of all lots of the grocery with the given name.
+   *
+   * @param name the (lowercase) name of the grocery
+   * @return the total value in NOK, or {@code 0} if there is no such grocery
+   */
+  public synchronized double getTotalValue(String name) {
+    int nameId = SymbolTable.NAMES.findId(name);
+    return nameId < 0 || nameId >= valuePerName.length ? 0 : valuePerName[nameId];
+  }
+
+  /**
+   * Returns the total quantity of all lots of the grocery with the given name.
+   *
+   * @param name the (lowercase) name of the grocery
+   * @return the total quantity, or {@code 0} if there is no such grocery
+   */
+  public synchronized double getTotalQuantity(String name) {
+    int nameId = SymbolTable.NAMES.findId(name);
+    return nameId < 0 || nameId >= quantityPerName.length ? 0 : quantityPerName[nameId];
+  }
+
+  /**
+   * Returns the total value of all lots expiring strictly before the given date.
+   *
+   * <p>Runs as a single pass over the expiry, quantity and price columns.</p>
+   *
+   * @param date the first date that is not included
+   * @return the total value in NOK
+   */
+  public synchronized double getTotalValueExpiringBefore(LocalDate date) {
+    long day = date.toEpochDay();
+    double value = 0;
+    for (int lot = 0; lot < size; lot++) {
+      if (expiryDays[lot] < day) {
+        value += quantities[lot] * prices[lot];
+      }
+    }
+    return value;
+  }
+
+  /**
+   * Registers a listener to be told whenever the total quantity of a grocery name changes.
+   *
+   * <p>The listener is first told the current total of every stored grocery. It is called while
+   * the fridge is held, so it does not miss or reorder changes made meanwhile.</p>
+   *
+   * @param listener the listener to register
+   */
+  public synchronized void addQuantityListener(QuantityListener listener) {
+    quantityListeners.add(listener);
+    for (String name : nameIndex.getNames()) {
+      listener.quantityChanged(name, quantityPerName[SymbolTable.NAMES.findId(name)]);
+    }
+  }
+
+  private int findLot(int nameId, int unitId, double price, long day) {
+    int mask = lotTable.length - 1;
+    for (int slot = hash(nameId, unitId, price, day) & mask; ; slot = (slot + 1) & mask) {
+      int lot = lotTable[slot] - 1;
+      if (lot < 0) {
+        return -1;
+      }
+      if (nameIds[lot] == nameId && unitIds[lot] == unitId && prices[lot] == price
+          && expiryDays[lot] == day) {
+        return lot;
+      }
+    }
+  }
+
+  private int appendLot(int nameId, int unitId, double price, long day) {
+    if (size == nameIds.length) {
+      int capacity = size * 2;
+      nameIds = Arrays.copyOf(nameIds, capacity);
+      unitIds = Arrays.copyOf(unitIds, capacity);
+      quantities = Arrays.copyOf(quantities, capacity);
+      prices = Arrays.copyOf(prices, capacity);
+      expiryDays = Arrays.copyOf(expiryDays, capacity);
+      sequences = Arrays.copyOf(sequences, capacity);
+    }
+    if ((size + 1) * 2 > lotTable.length) {
+      rehash(lotTable.length * 2);
+    }
+    if (nameId >= lotsPerName.length) {
+      int capacity = Math.max(nameId + 1, lotsPerName.length * 2);
+      lotsPerName = Arrays.copyOf(lotsPerName, capacity);
+      quantityPerName = Arrays.copyOf(quantityPerName, capacity);
+      valuePerName = Arrays.copyOf(valuePerName, capacity);
+    }
+
+    int lot = size++;
+    nameIds[lot] = nameId;
+    unitIds[lot] = unitId;
+    quantities[lot] = 0;
+    prices[lot] = price;
+    expiryDays[lot] = day;
+    sequences[lot] = nextSequence++;
+    lotTable[freeSlot(lot)] = lot + 1;
+    if (lotsPerName[nameId]++ == 0) {
+      nameIndex.add(SymbolTable.NAMES.symbolOf(nameId));
+    }
+    return lot;
+  }
+
+  private void removeLot(int lot) {
+    int nameId = nameIds[lot];
+    addToTotals(nameId, -quantities[lot], -quantities[lot] * prices[lot]);
+    if (--lotsPerName[nameId] == 0) {
+      // Drop totals that no longer cover any lot, so rounding errors do not linger
+      quantityPerName[nameId] = 0;
+      valuePerName[nameId] = 0;
+      nameIndex.remove(SymbolTable.NAMES.symbolOf(nameId));
+    }
+    clearSlot(slotOf(lot));
+
+    int last = --size;
+    if (lot != last) {
+      lotTable[slotOf(last)] = lot + 1;
+      nameIds[lot] = nameIds[last];
+      unitIds[lot] = unitIds[last];
+      quantities[lot] = quantities[last];
+      prices[lot] = prices[last];
+      expiryDays[lot] = expiryDays[last];
+      sequences[lot] = sequences[last];
+    }
+    if (size == 0) {
+      totalValue = 0;
+    }
+  }
+
+  private void addToTotals(int nameId, double quantity, double value) {
+    quantityPerName[nameId] += quantity;
+    valuePerName[nameId] += value;
+    totalValue += value;
+  }
+
+  private void notifyQuantityListeners(int nameId) {
+    String name = SymbolTable.NAMES.symbolOf(nameId);
+    for (QuantityListener listener : quantityListeners) {
+      listener.quantityChanged(name, quantityPerName[nameId]);
+    }
+  }
+
+  private int slotOf(int lot) {
+    int mask = lotTable.length - 1;
+    int slot = hash(nameIds[lot], unitIds[lot], prices[lot], expiryDays[lot]) & mask;
+    while (lotTable[slot] != lot + 1) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private int freeSlot(int lot) {
+    int mask = lotTable.length - 1;
+    int slot = hash(nameIds[lot], unitIds[lot], prices[lot], expiryDays[lot]) & mask;
+    while (lotTable[slot] != 0) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  /**
+   * Frees a slot of the lot table, moving later lots of the same probe sequence back so that
+   * lookups never stop at a hole too early.
+   */
+  private void clearSlot(int slot) {
+    int mask = lotTable.length - 1;
+    int hole = slot;
+    for (int next = (hole + 1) & mask; lotTable[next] != 0; next = (next + 1) & mask) {
+      int lot = lotTable[next] - 1;
+      int home = hash(nameIds[lot], unitIds[lot], prices[lot], expiryDays[lot]) & mask;
+      // Move the entry unless its home slot lies cyclically after the hole
+      if (((next - home) & mask) >= ((next - hole) & mask)) {
+        lotTable[hole] = lotTable[next];
+        hole = next;
+      }
+    }
+    lotTable[hole] = 0;
+  }
+
+  private void rehash(int capacity) {
+    lotTable = new int[capacity];
+    for (int lot = 0; lot < size; lot++) {
+      lotTable[freeSlot(lot)] = lot + 1;
+    }
+  }
+
+  private static int hash(int nameId, int unitId, double price, long day) {
+    long bits = Double.doubleToLongBits(price);
+    int hash = nameId * 31 + unitId;
+    hash = hash * 31 + (int) (bits ^ (bits >>> 32));
+    hash = hash * 31 + Long.hashCode(day);
+    return hash ^ (hash >>> 16);
+  }
+
+  private int[] allLots() {
+    int[] lots = new int[size];
+    for (int lot = 0; lot < size; lot++) {
+      lots[lot] = lot;
+    }
+    return lots;
+  }
+
+  private int[] lotsOfName(int nameId) {
+    int[] lots = new int[lotsPerName[nameId]];
+    int count = 0;
+    for (int lot = 0; lot < size; lot++) {
+      if (nameIds[lot] == nameId) {
+        lots[count++] = lot;
+      }
+    }
+    return lots;
+  }
+
+  /**
+   * Sorts lot positions by expiry date, keeping the given order for lots expiring the same day.
+   *
+   * <p>Expiry dates usually span a few months at most, so the lots are counting sorted by day
+   * when the span is small compared to the number of lots. Otherwise each lot is packed into a
+   * {@code long} holding the first position of its expiry day among the sorted days in the high
+   * and its rank in the input in the low 32 bits, so a primitive sort is enough for any date.</p>
+   */
+  private int[] sortByExpiry(int[] lots) {
+    if (lots.length < 2) {
+      return lots;
+    }
+    long firstDay = Long.MAX_VALUE;
+    long lastDay = Long.MIN_VALUE;
+    for (int lot : lots) {
+      firstDay = Math.min(firstDay, expiryDays[lot]);
+      lastDay = Math.max(lastDay, expiryDays[lot]);
+    }
+    int[] sorted = new int[lots.length];
+    long span = lastDay - firstDay + 1;
+    if (span <= lots.length) {
+      int[] lotsBeforeDay = new int[(int) span + 1];
+      for (int lot : lots) {
+        lotsBeforeDay[(int) (expiryDays[lot] - firstDay) + 1]++;
+      }
+      for (int day = 1; day < lotsBeforeDay.length; day++) {
+        lotsBeforeDay[day] += lotsBeforeDay[day - 1];
+      }
+      for (int lot : lots) {
+        sorted[lotsBeforeDay[(int) (expiryDays[lot] - firstDay)]++] = lot;
+      }
+      return sorted;
+    }
+
+    long[] days = new long[lots.length];
+    for (int i = 0; i < lots.length; i++) {
+      days[i] = expiryDays[lots[i]];
+    }
+    Arrays.sort(days);
+    long[] keys = new long[lots.length];
+    for (int i = 0; i < lots.length; i++) {
+      long dayRank = firstPosition(days, expiryDays[lots[i]]);
+      keys[i] = dayRank << 32 | i;
+    }
+    Arrays.sort(keys);
+    for (int i = 0; i < keys.length; i++) {
+      sorted[i] = lots[(int) keys[i]];
+    }
+    return sorted;
+  }
+
+  /** Returns the position of the first occurrence of a value in a sorted array holding it. */
+  private static int firstPosition(long[] sorted, long value) {
+    int low = 0;
+    int high = sorted.length - 1;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (sorted[middle] < value) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Orders lot positions by the rank of their name in the given list with a stable counting sort,
+   * so no strings are compared per lot. Lots whose name is not in the list are dropped.
+   */
+  private int[] sortByName(int[] lots, List<String> names) {
+    int[] rankPerName = rankPerName(names);
+    int[] lotsBeforeRank = new int[names.size() + 1];
+    for (int lot : lots) {
+      lotsBeforeRank[rankPerName[nameIds[lot]] + 1]++;
+    }
+    // Lots without a rank were counted before the first rank, and are dropped from there
+    int dropped = lotsBeforeRank[0];
+    lotsBeforeRank[0] = 0;
+    for (int rank = 0; rank < names.size(); rank++) {
+      lotsBeforeRank[rank + 1] += lotsBeforeRank[rank];
+    }
+    int[] sorted = new int[lots.length - dropped];
+    for (int lot : lots) {
+      int rank = rankPerName[nameIds[lot]];
+      if (rank >= 0) {
+        sorted[lotsBeforeRank[rank]++] = lot;
+      }
+    }
+    return sorted;
+  }
+
+  /** Returns the rank of each name identifier in the given list, or {@code -1} if not listed. */
+  private int[] rankPerName(List<String> names) {
+    int[] rankPerName = new int[lotsPerName.length];
+    Arrays.fill(rankPerName, -1);
+    for (int rank = 0; rank < names.size(); rank++) {
+      int nameId = SymbolTable.NAMES.findId(names.get(rank));
+      if (nameId >= 0 && nameId < rankPerName.length) {
+        rankPerName[nameId] = rank;
+      }
+    }
+    return rankPerName;
+  }
+
+  /** Checks whether a lot lies after the position of an expiry day and a sequence. */
+  private boolean isAfter(int lot, long afterDay, long afterSequence) {
+    return expiryDays[lot] > afterDay
+        || expiryDays[lot] == afterDay && sequences[lot] > afterSequence;
+  }
+
+  private Comparator<Integer> byExpiryAndSequence() {
+    return Comparator.<Integer>comparingLong(lot -> expiryDays[lot])
+        .thenComparingLong(lot -> sequences[lot]);
+  }
+
+  /**
+   * Selects the first lots in the given order among those included, with one scan of the
+   * columns. The head of the heap is the last of the lots kept so far, so a later lot only
+   * replaces it when it comes before it.
+   */
+  private int[] firstLots(IntPredicate included, Comparator<Integer> order, int limit) {
+    if (limit <= 0) {
+      return new int[0];
+    }
+    PriorityQueue<Integer> first = new PriorityQueue<>(Math.min(limit, size) + 1,
+        order.reversed());
+    for (int lot = 0; lot < size; lot++) {
+      if (!included.test(lot)) {
+        continue;
+      }
+      if (first.size() < limit) {
+        first.add(lot);
+      } else if (order.compare(lot, first.peek()) < 0) {
+        first.poll();
+        first.add(lot);
+      }
+    }
+    Integer[] lots = first.toArray(new Integer[0]);
+    Arrays.sort(lots, order);
+    int[] sorted = new int[lots.length];
+    for (int i = 0; i < lots.length; i++) {
+      sorted[i] = lots[i];
+    }
+    return sorted;
+  }
+
+  private List<Grocery> toGroceries(int[] lots) {
+    List<Grocery> groceries = new ArrayList<>(lots.length);
+    for (int lot : lots) {
+      groceries.add(toGrocery(lot));
+    }
+    return groceries;
+  }
+
+  private Grocery toGrocery(int lot) {
+    Grocery grocery = new Grocery(SymbolTable.NAMES.symbolOf(nameIds[lot]), quantities[lot],
+        SymbolTable.UNITS.symbolOf(unitIds[lot]), prices[lot],
+        LocalDate.ofEpochDay(expiryDays[lot]));
+    grocery.setSequence(sequences[lot]);
+    return grocery;
+  }
+}
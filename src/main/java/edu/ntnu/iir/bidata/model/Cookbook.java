@@ -2,23 +2,824 @@ package edu.ntnu.iir.bidata.model;
 
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import lombok.Data;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * The {@code Cookbook} class represents a collection of recipes. It provides methods to manage the
  * list of recipes.
  *
+ * <p>Recipes are keyed by their name, ignoring case, in an insertion-ordered hash map, so finding,
+ * removing and replacing a recipe by name take constant time and the recipes keep the order they
+ * were added in. Adding a recipe with the name of one already in the cookbook replaces it in
+ * place.</p>
+ *
+ * <p>Besides the recipes, the cookbook keeps an inverted index from each ingredient to the
+ * recipes using it and the quantity they need. Finding the recipes that can be made therefore only
+ * looks at recipes using an available ingredient, instead of checking every ingredient of every
+ * recipe. Ingredients are numbered by a {@link SymbolTable} of the cookbook's own, see
+ * {@link #ingredientIdOf(String)}, so the index and the quantity arrays it is queried with are
+ * sized by the ingredients of this cookbook rather than every name in the application.</p>
+ *
+ * <p>The cookbook can also keep track of the recipes that can be made right now. It is told the
+ * stored quantity of each ingredient whenever it changes, through
+ * {@link #setAvailableQuantity(String, double)}, and only updates the recipes whose requirement
+ * lies between the old and the new quantity. Each list in the index is kept ordered by the required
+ * quantity to find those recipes quickly.</p>
+ *
+ * <p>The recipes are also listed per {@linkplain Recipe#getTags() tag}, so the recipes with a tag,
+ * and those of them that can be made right now, are found without looking at every recipe.</p>
+ *
+ * <p>The words of the name, description and procedure of each recipe are kept in a
+ * {@link RecipeTextIndex}, so recipes can be searched by text and ranked with BM25 without reading
+ * every recipe.</p>
+ *
+ * <p>The indexes are built from the ingredients, tags and text a recipe has when it is added;
+ * changing them afterwards does not change how the cookbook matches, lists or finds it. A recipe
+ * can also be listed under tags it does not have itself, see
+ * {@link #addRecipe(Recipe, Collection)}.</p>
+ *
  * <p>Example usage:
  *
  * <pre>
  * Cookbook cookbook = new Cookbook();
- * cookbook.getRecipes().add(new Recipe("Spaghetti Bolognese"));
+ * cookbook.addRecipe(new Recipe("Omelette", "Quick breakfast", "Whisk and fry.",
+ *     Map.of("Eggs", 3.0), 1));
  * </pre>
  */
-@Data
 public class Cookbook {
 
-  /** A list of recipes contained in the cookbook. */
-  private List<Recipe> recipes = new ArrayList<>();
-}
\ No newline at end of file
+  /** The index entry of each recipe, keyed by the lowercase recipe name, in insertion order. */
+  private final Map<String, Entry> entriesByName = new LinkedHashMap<>();
+
+  /** The recipes and their entries as arrays, built when first needed after a change. */
+  private Snapshot snapshot = Snapshot.EMPTY;
+
+  /**
+   * The names of the ingredients of the recipes, and of the quantities set, numbered for this
+   * cookbook only.
+   */
+  private final SymbolTable ingredientNames = new SymbolTable(String::toLowerCase);
+
+  /** The recipes using each ingredient, indexed by the ingredient identifier. */
+  private final List<PostingList> postingsPerIngredient = new ArrayList<>();
+
+  /**
+   * The recipes by the number of ingredients they need. Recipes needing none can always be made,
+   * and recipes needing few may be near misses without using any available ingredient.
+   */
+  private final List<Set<Entry>> entriesPerNeededIngredients = new ArrayList<>();
+
+  /** The stored quantity of each ingredient, indexed by the ingredient identifier. */
+  private double[] stock = new double[0];
+
+  /** The recipes that can be made with the stored quantities, keyed by their sequence. */
+  private final NavigableMap<Long, Recipe> cookable = new TreeMap<>();
+
+  /** The recipes with each lowercase tag, keyed by their sequence. */
+  private final Map<String, NavigableMap<Long, Recipe>> recipesPerTag = new HashMap<>();
+
+  /** The words of every recipe. */
+  private final RecipeTextIndex textIndex = new RecipeTextIndex();
+
+  private long nextSequence;
+  private long matchRound;
+
+  /**
+   * Adds a recipe to the cookbook, replacing the recipe with the same name, ignoring case.
+   *
+   * <p>A replaced recipe keeps its place in the order of the recipes.</p>
+   *
+   * @param recipe the recipe to add
+   * @return the recipe that was replaced, or {@code null} if there was none with the same name
+   * @throws IllegalArgumentException if {@code recipe} or its name is null
+   */
+  public synchronized Recipe addRecipe(Recipe recipe) {
+    return addRecipe(recipe, List.of());
+  }
+
+  /**
+   * Adds a recipe to the cookbook, listing it under some tags besides its own.
+   *
+   * <p>The extra tags are only known to the cookbook: the recipe itself is not changed, and
+   * {@link Recipe#getTags()} does not return them. Otherwise this is the same as
+   * {@link #addRecipe(Recipe)}.</p>
+   *
+   * @param recipe the recipe to add
+   * @param extraTags the tags to list the recipe under as well, in any case
+   * @return the recipe that was replaced, or {@code null} if there was none with the same name
+   * @throws IllegalArgumentException if {@code recipe}, its name, {@code extraTags} or one of the
+   *                                  extra tags is null
+   */
+  public synchronized Recipe addRecipe(Recipe recipe, Collection<String> extraTags) {
+    if (recipe == null || recipe.getName() == null) {
+      throw new IllegalArgumentException("Recipe and its name cannot be null");
+    }
+    if (extraTags == null) {
+      throw new IllegalArgumentException("Extra tags cannot be null");
+    }
+    Set<String> tags = new HashSet<>(recipe.getTags());
+    for (String tag : extraTags) {
+      if (tag == null) {
+        throw new IllegalArgumentException("Tag cannot be null");
+      }
+      tags.add(tag.toLowerCase());
+    }
+    String key = recipe.getName().toLowerCase();
+    Entry replaced = entriesByName.get(key);
+    if (replaced != null) {
+      unindex(replaced);
+    }
+    int[] ingredientIds = new int[recipe.getIngredientCount()];
+    double[] requiredQuantities = new double[ingredientIds.length];
+    for (int i = 0; i < ingredientIds.length; i++) {
+      String ingredient = SymbolTable.NAMES.symbolOf(recipe.getIngredientId(i));
+      ingredientIds[i] = ingredientNames.idOf(ingredient);
+      requiredQuantities[i] = recipe.getRequiredQuantity(i);
+    }
+    Entry entry = new Entry(recipe, replaced == null ? nextSequence++ : replaced.sequence,
+        ingredientIds, requiredQuantities,
+        IngredientSignature.ofRequired(ingredientIds, requiredQuantities), tags);
+    for (String tag : entry.tags) {
+      recipesPerTag.computeIfAbsent(tag, t -> new TreeMap<>()).put(entry.sequence, recipe);
+    }
+    entry.textDocument = textIndex.add(recipe, entry.sequence);
+    for (int i = 0; i < ingredientIds.length; i++) {
+      // An ingredient needed in no quantity is always available, so it is not indexed
+      if (requiredQuantities[i] > 0) {
+        postingsOf(ingredientIds[i]).add(new Posting(entry, requiredQuantities[i]));
+        entry.neededIngredients++;
+        if (availableQuantity(ingredientIds[i]) >= requiredQuantities[i]) {
+          entry.stockedIngredients++;
+        }
+      }
+    }
+    entriesNeeding(entry.neededIngredients).add(entry);
+    if (entry.stockedIngredients == entry.neededIngredients) {
+      cookable.put(entry.sequence, recipe);
+    }
+    // Replacing the value of a key keeps its place in the map
+    entriesByName.put(key, entry);
+    snapshot = null;
+    return replaced == null ? null : replaced.recipe;
+  }
+
+  /**
+   * Finds a recipe by its name.
+   *
+   * @param name the name of the recipe, ignoring case
+   * @return the recipe, or an empty optional if there is none with the name
+   */
+  public synchronized Optional<Recipe> findRecipe(String name) {
+    Entry entry = name == null ? null : entriesByName.get(name.toLowerCase());
+    return entry == null ? Optional.empty() : Optional.of(entry.recipe);
+  }
+
+  /**
+   * Removes a recipe from the cookbook.
+   *
+   * @param recipe the recipe to remove, compared by identity
+   * @return {@code true} if the recipe was in the cookbook
+   */
+  public synchronized boolean removeRecipe(Recipe recipe) {
+    if (recipe == null || recipe.getName() == null) {
+      return false;
+    }
+    String key = recipe.getName().toLowerCase();
+    Entry entry = entriesByName.get(key);
+    if (entry == null || entry.recipe != recipe) {
+      return false;
+    }
+    remove(key, entry);
+    return true;
+  }
+
+  /**
+   * Removes the recipe with the given name from the cookbook.
+   *
+   * @param name the name of the recipe, ignoring case
+   * @return the removed recipe, or an empty optional if there was none with the name
+   */
+  public synchronized Optional<Recipe> removeRecipeNamed(String name) {
+    if (name == null) {
+      return Optional.empty();
+    }
+    String key = name.toLowerCase();
+    Entry entry = entriesByName.get(key);
+    if (entry == null) {
+      return Optional.empty();
+    }
+    remove(key, entry);
+    return Optional.of(entry.recipe);
+  }
+
+  /**
+   * Returns the recipes in the cookbook, in the order they were added.
+   *
+   * @return an unmodifiable list of the recipes
+   */
+  public synchronized List<Recipe> getRecipes() {
+    return snapshot().recipes;
+  }
+
+  private void remove(String key, Entry entry) {
+    entriesByName.remove(key);
+    unindex(entry);
+    snapshot = null;
+  }
+
+  /**
+   * Takes an entry out of the index. Its postings are only marked as removed, and dropped once
+   * they make up half of a posting list, so removing a recipe never shifts a long list.
+   */
+  private void unindex(Entry entry) {
+    entry.removed = true;
+    for (int i = 0; i < entry.ingredientIds.length; i++) {
+      if (entry.requiredQuantities[i] > 0) {
+        postingsOf(entry.ingredientIds[i]).markRemoved();
+      }
+    }
+    entriesNeeding(entry.neededIngredients).remove(entry);
+    cookable.remove(entry.sequence);
+    for (String tag : entry.tags) {
+      NavigableMap<Long, Recipe> tagged = recipesPerTag.get(tag);
+      tagged.remove(entry.sequence);
+      if (tagged.isEmpty()) {
+        recipesPerTag.remove(tag);
+      }
+    }
+    textIndex.remove(entry.textDocument);
+  }
+
+  private Snapshot snapshot() {
+    if (snapshot == null) {
+      snapshot = Snapshot.of(entriesByName.values());
+    }
+    return snapshot;
+  }
+
+  /**
+   * Finds the recipes that can be made with the available quantities of each ingredient.
+   *
+   * <p>For every ingredient that is available, the recipes using it are looked up in the index
+   * and counted when enough of it is available. A recipe can be made once all of its ingredients
+   * have been counted, so recipes that use none of the available ingredients are never
+   * visited. Recipes whose {@link IngredientSignature} shows a missing ingredient are skipped
+   * without being counted.</p>
+   *
+   * @param availableQuantities the available quantity of each ingredient, indexed by
+   *                            {@link #ingredientIdOf(String)}
+   * @return the recipes that can be made, in the order they were added
+   */
+  public synchronized List<Recipe> findRecipesMakeableWith(double[] availableQuantities) {
+    long round = ++matchRound;
+    long availableSignature = IngredientSignature.ofAvailable(availableQuantities);
+    List<Entry> makeable = new ArrayList<>(entriesNeeding(0));
+    int ingredients = Math.min(availableQuantities.length, postingsPerIngredient.size());
+    for (int ingredientId = 0; ingredientId < ingredients; ingredientId++) {
+      double available = availableQuantities[ingredientId];
+      if (available <= 0) {
+        continue;
+      }
+      for (Posting posting : postingsPerIngredient.get(ingredientId).postings) {
+        if (posting.requiredQuantity > available) {
+          // The postings are ordered by required quantity, so no later recipe is satisfied
+          break;
+        }
+        Entry entry = posting.entry;
+        if (entry.removed
+            || !IngredientSignature.covers(availableSignature, entry.signature)) {
+          // Another ingredient of the recipe is missing entirely
+          continue;
+        }
+        if (entry.round != round) {
+          entry.round = round;
+          entry.satisfiedIngredients = 0;
+        }
+        if (++entry.satisfiedIngredients == entry.neededIngredients) {
+          makeable.add(entry);
+        }
+      }
+    }
+    makeable.sort(Comparator.comparingLong(entry -> entry.sequence));
+
+    List<Recipe> makeableRecipes = new ArrayList<>(makeable.size());
+    for (Entry entry : makeable) {
+      makeableRecipes.add(entry.recipe);
+    }
+    return makeableRecipes;
+  }
+
+  /**
+   * Finds the recipes that miss only a few ingredients, with the quantity missing of each.
+   *
+   * <p>The satisfied ingredients are counted through the index, like
+   * {@link #findRecipesMakeableWith(double[])}. Only the recipes with at most
+   * {@code maxMissingIngredients} uncounted ingredients are then looked at in full to find the
+   * missing quantities; recipes using none of the available ingredients are found by their number
+   * of ingredients instead of by scanning the cookbook.</p>
+   *
+   * @param availableQuantities the available quantity of each ingredient, indexed by
+   *                            {@link #ingredientIdOf(String)}
+   * @param maxMissingIngredients the largest number of ingredients that may be missing or short
+   * @param maxShortfall the largest sum of missing quantities, or
+   *                     {@link Double#POSITIVE_INFINITY} for no limit
+   * @return the near-miss recipes, in the order they were added, including the recipes that can
+   *         be made already
+   * @throws IllegalArgumentException if {@code maxMissingIngredients} or {@code maxShortfall} is
+   *                                  negative
+   */
+  public synchronized List<NearMissRecipe> findRecipesMissingAtMost(double[] availableQuantities,
+      int maxMissingIngredients, double maxShortfall) {
+    if (maxMissingIngredients < 0 || !(maxShortfall >= 0)) {
+      throw new IllegalArgumentException("Limits cannot be negative");
+    }
+    long round = ++matchRound;
+    List<Entry> candidates = new ArrayList<>();
+    int ingredients = Math.min(availableQuantities.length, postingsPerIngredient.size());
+    for (int ingredientId = 0; ingredientId < ingredients; ingredientId++) {
+      double available = availableQuantities[ingredientId];
+      if (available <= 0) {
+        continue;
+      }
+      for (Posting posting : postingsPerIngredient.get(ingredientId).postings) {
+        if (posting.requiredQuantity > available) {
+          break;
+        }
+        Entry entry = posting.entry;
+        if (entry.removed || entry.neededIngredients <= maxMissingIngredients) {
+          // Taken from the recipes by number of ingredients below
+          continue;
+        }
+        if (entry.round != round) {
+          entry.round = round;
+          entry.satisfiedIngredients = 0;
+        }
+        if (entry.neededIngredients - ++entry.satisfiedIngredients == maxMissingIngredients) {
+          candidates.add(entry);
+        }
+      }
+    }
+    // Recipes with so few ingredients that they qualify even with none available
+    int fewest = Math.min(maxMissingIngredients, entriesPerNeededIngredients.size() - 1);
+    for (int needed = 0; needed <= fewest; needed++) {
+      candidates.addAll(entriesPerNeededIngredients.get(needed));
+    }
+    candidates.sort(Comparator.comparingLong(entry -> entry.sequence));
+
+    List<NearMissRecipe> nearMisses = new ArrayList<>();
+    for (Entry entry : candidates) {
+      List<MissingIngredient> missing = new ArrayList<>();
+      double shortfall = 0;
+      for (int i = 0; i < entry.ingredientIds.length; i++) {
+        int ingredientId = entry.ingredientIds[i];
+        double available = ingredientId < availableQuantities.length
+            ? Math.max(availableQuantities[ingredientId], 0) : 0;
+        if (available < entry.requiredQuantities[i]) {
+          double quantity = entry.requiredQuantities[i] - available;
+          missing.add(new MissingIngredient(ingredientNames.symbolOf(ingredientId), quantity));
+          shortfall += quantity;
+        }
+      }
+      if (shortfall <= maxShortfall) {
+        nearMisses.add(new NearMissRecipe(entry.recipe, List.copyOf(missing)));
+      }
+    }
+    return nearMisses;
+  }
+
+  /**
+   * Works out how many times every recipe can be made with the available quantities.
+   *
+   * <p>A recipe can be made as many times as its scarcest ingredient allows, that is the
+   * smallest available quantity divided by required quantity over its ingredients.</p>
+   *
+   * @param availableQuantities the available quantity of each ingredient, indexed by
+   *                            {@link #ingredientIdOf(String)}
+   * @return the servings of every recipe, most servings first; recipes added earlier come first
+   *         among equal servings
+   */
+  public synchronized List<RecipeServings> computeServings(double[] availableQuantities) {
+    Entry[] entries = snapshot().entries;
+    double[] batchesPerEntry = new double[entries.length];
+    double[] servingsPerEntry = new double[entries.length];
+    for (int position = 0; position < entries.length; position++) {
+      Entry entry = entries[position];
+      double batches = Double.POSITIVE_INFINITY;
+      for (int i = 0; i < entry.ingredientIds.length && batches > 0; i++) {
+        double required = entry.requiredQuantities[i];
+        if (required > 0) {
+          int ingredientId = entry.ingredientIds[i];
+          double available = ingredientId < availableQuantities.length
+              ? Math.max(availableQuantities[ingredientId], 0) : 0;
+          batches = Math.min(batches, available / required);
+        }
+      }
+      int serves = entry.recipe.getServes();
+      batchesPerEntry[position] = batches;
+      servingsPerEntry[position] = serves > 0 ? batches * serves : 0;
+    }
+
+    List<RecipeServings> servings = new ArrayList<>(batchesPerEntry.length);
+    for (int position : orderByDescendingServings(servingsPerEntry)) {
+      servings.add(new RecipeServings(entries[position].recipe, batchesPerEntry[position],
+          servingsPerEntry[position]));
+    }
+    return servings;
+  }
+
+  /**
+   * Orders positions by descending servings. {@link Arrays#sort(Object[], Comparator)} is stable,
+   * so positions with equal servings keep their order.
+   */
+  private static Integer[] orderByDescendingServings(double[] servings) {
+    Integer[] order = new Integer[servings.length];
+    for (int position = 0; position < order.length; position++) {
+      order[position] = position;
+    }
+    Arrays.sort(order,
+        Comparator.<Integer>comparingDouble(position -> servings[position]).reversed());
+    return order;
+  }
+
+  /**
+   * Finds the recipes that can be made with the available quantities of each ingredient, checking
+   * every recipe in parallel.
+   *
+   * <p>The recipes are read from an array snapshot of the cookbook, and the quantities are
+   * copied; the snapshot is split into chunks that are checked on the given fork/join pool
+   * without holding the cookbook. The chunks are joined
+   * in order, so the result is the same as {@link #findRecipesMakeableWith(double[])}. This pays
+   * off for large cookbooks where many recipes use the available ingredients, and scales with
+   * the parallelism of the pool.</p>
+   *
+   * @param availableQuantities the available quantity of each ingredient, indexed by
+   *                            {@link #ingredientIdOf(String)}
+   * @param pool the pool to check the recipes on
+   * @return the recipes that can be made, in the order they were added
+   * @throws IllegalArgumentException if {@code availableQuantities} or {@code pool} is null
+   */
+  public List<Recipe> findRecipesMakeableInParallel(double[] availableQuantities,
+      ForkJoinPool pool) {
+    if (availableQuantities == null || pool == null) {
+      throw new IllegalArgumentException("Available quantities and pool cannot be null");
+    }
+    Snapshot recipes;
+    synchronized (this) {
+      recipes = snapshot();
+    }
+    double[] available = availableQuantities.clone();
+    return pool.invoke(new MatchTask(recipes.entries, recipes.signatures, 0,
+        recipes.entries.length, available, IngredientSignature.ofAvailable(available)));
+  }
+
+  /**
+   * Sets the stored quantity of an ingredient, and updates the recipes that can be made.
+   *
+   * <p>Only the recipes needing more than the lower and at most the higher of the old and new
+   * quantity change state, so a change costs O(log n + c) time for the c recipes it affects.</p>
+   *
+   * @param ingredient the name of the ingredient, ignoring case
+   * @param quantity the quantity of the ingredient now stored
+   * @throws IllegalArgumentException if {@code ingredient} is null
+   */
+  public synchronized void setAvailableQuantity(String ingredient, double quantity) {
+    if (ingredient == null) {
+      throw new IllegalArgumentException("Ingredient cannot be null");
+    }
+    int ingredientId = ingredientNames.idOf(ingredient);
+    if (ingredientId >= stock.length) {
+      stock = Arrays.copyOf(stock, Math.max(ingredientId + 1, stock.length * 2));
+    }
+    double previous = stock[ingredientId];
+    stock[ingredientId] = quantity;
+    if (ingredientId >= postingsPerIngredient.size() || quantity == previous) {
+      return;
+    }
+    PostingList postings = postingsPerIngredient.get(ingredientId);
+    int from = postings.endOfRequirement(Math.min(previous, quantity));
+    int to = postings.endOfRequirement(Math.max(previous, quantity));
+    boolean increased = quantity > previous;
+    for (int i = from; i < to; i++) {
+      Entry entry = postings.postings.get(i).entry;
+      if (entry.removed) {
+        continue;
+      }
+      if (increased) {
+        if (++entry.stockedIngredients == entry.neededIngredients) {
+          cookable.put(entry.sequence, entry.recipe);
+        }
+      } else {
+        if (entry.stockedIngredients-- == entry.neededIngredients) {
+          cookable.remove(entry.sequence);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the recipes that can be made with the quantities given to
+   * {@link #setAvailableQuantity(String, double)}, in the order they were added.
+   *
+   * <p>The set is kept up to date as the quantities change, so this takes time proportional to
+   * the number of recipes returned.</p>
+   *
+   * @return the recipes that can be made right now
+   */
+  public synchronized List<Recipe> getCookableRecipes() {
+    return new ArrayList<>(cookable.values());
+  }
+
+  /**
+   * Returns the recipes with a tag, in the order they were added.
+   *
+   * @param tag the tag, ignoring case
+   * @return the recipes with the tag
+   */
+  public synchronized List<Recipe> getRecipesTagged(String tag) {
+    NavigableMap<Long, Recipe> tagged = tag == null ? null : recipesPerTag.get(tag.toLowerCase());
+    return tagged == null ? new ArrayList<>() : new ArrayList<>(tagged.values());
+  }
+
+  /**
+   * Returns the recipes without a tag, in the order they were added.
+   *
+   * @param tag the tag, ignoring case
+   * @return the recipes that are not listed under the tag
+   */
+  public synchronized List<Recipe> getRecipesNotTagged(String tag) {
+    String key = tag == null ? null : tag.toLowerCase();
+    List<Recipe> recipes = new ArrayList<>();
+    for (Entry entry : entriesByName.values()) {
+      if (!entry.tags.contains(key)) {
+        recipes.add(entry.recipe);
+      }
+    }
+    return recipes;
+  }
+
+  /**
+   * Returns the recipes with a tag that can be made with the quantities given to
+   * {@link #setAvailableQuantity(String, double)}, in the order they were added.
+   *
+   * <p>The smaller of the tagged and the cookable recipes is walked in order and each recipe is
+   * looked up in the other, so this takes time proportional to the smaller of the two.</p>
+   *
+   * @param tag the tag, ignoring case
+   * @return the recipes with the tag that can be made right now
+   */
+  public synchronized List<Recipe> getCookableRecipesTagged(String tag) {
+    NavigableMap<Long, Recipe> tagged = tag == null ? null : recipesPerTag.get(tag.toLowerCase());
+    List<Recipe> recipes = new ArrayList<>();
+    if (tagged == null) {
+      return recipes;
+    }
+    NavigableMap<Long, Recipe> smaller = tagged.size() <= cookable.size() ? tagged : cookable;
+    NavigableMap<Long, Recipe> larger = smaller == tagged ? cookable : tagged;
+    for (Map.Entry<Long, Recipe> recipe : smaller.entrySet()) {
+      if (larger.containsKey(recipe.getKey())) {
+        recipes.add(recipe.getValue());
+      }
+    }
+    return recipes;
+  }
+
+  /**
+   * Searches the name, description and procedure of the recipes for the words of a query.
+   *
+   * <p>Each recipe containing a word of the query is scored with BM25: words found in few
+   * recipes, found often in the recipe, or found in a short recipe count for more. Words are
+   * compared in lowercase, and only the recipes containing a query word are looked at.</p>
+   *
+   * @param query the words to search for, separated by spaces or punctuation
+   * @param count the maximum number of recipes to return
+   * @return the best matching recipes, highest score first; recipes added earlier win ties
+   * @throws IllegalArgumentException if {@code query} is null or {@code count} is not positive
+   */
+  public synchronized List<RecipeSearchResult> searchRecipes(String query, int count) {
+    if (query == null) {
+      throw new IllegalArgumentException("Query cannot be null");
+    }
+    if (count <= 0) {
+      throw new IllegalArgumentException("Count must be positive");
+    }
+    return textIndex.search(query, count);
+  }
+
+  /**
+   * Returns the tags of the recipes in the cookbook.
+   *
+   * @return the lowercase tags, in no particular order
+   */
+  public synchronized Set<String> getTags() {
+    return new HashSet<>(recipesPerTag.keySet());
+  }
+
+  /**
+   * Returns the identifier of an ingredient in this cookbook, which indexes the quantity arrays
+   * given to the matching methods.
+   *
+   * <p>Identifiers are dense and start at 0; every ingredient of a recipe in the cookbook has
+   * one, and so has every ingredient given to {@link #setAvailableQuantity(String, double)}.</p>
+   *
+   * @param ingredient the name of the ingredient, ignoring case
+   * @return the identifier of the ingredient, or {@code -1} if the cookbook does not know it
+   */
+  public int ingredientIdOf(String ingredient) {
+    return ingredient == null ? -1 : ingredientNames.findId(ingredient);
+  }
+
+  /**
+   * Returns the number of ingredients known to the cookbook, which is one more than the highest
+   * identifier returned by {@link #ingredientIdOf(String)}.
+   *
+   * @return the number of ingredients
+   */
+  public int getIngredientCount() {
+    return ingredientNames.size();
+  }
+
+  private double availableQuantity(int ingredientId) {
+    return ingredientId < stock.length ? stock[ingredientId] : 0;
+  }
+
+  private Set<Entry> entriesNeeding(int neededIngredients) {
+    while (entriesPerNeededIngredients.size() <= neededIngredients) {
+      entriesPerNeededIngredients.add(new HashSet<>());
+    }
+    return entriesPerNeededIngredients.get(neededIngredients);
+  }
+
+  private PostingList postingsOf(int ingredientId) {
+    while (postingsPerIngredient.size() <= ingredientId) {
+      postingsPerIngredient.add(new PostingList());
+    }
+    return postingsPerIngredient.get(ingredientId);
+  }
+
+  /**
+   * The recipes of the cookbook in order, as arrays that are never changed once built.
+   *
+   * @param recipes the recipes
+   * @param entries the entry of each recipe
+   * @param signatures the {@link IngredientSignature} of each entry, kept side by side so a scan
+   *                   over all recipes reads them without touching the entries
+   */
+  private record Snapshot(List<Recipe> recipes, Entry[] entries, long[] signatures) {
+    private static final Snapshot EMPTY = new Snapshot(List.of(), new Entry[0], new long[0]);
+
+    private static Snapshot of(Collection<Entry> entries) {
+      Entry[] array = entries.toArray(new Entry[0]);
+      Recipe[] recipes = new Recipe[array.length];
+      long[] signatures = new long[array.length];
+      for (int i = 0; i < array.length; i++) {
+        recipes[i] = array[i].recipe;
+        signatures[i] = array[i].signature;
+      }
+      return new Snapshot(List.of(recipes), array, signatures);
+    }
+  }
+
+  /** The postings of one ingredient, ordered by required quantity. */
+  private static final class PostingList {
+    private final List<Posting> postings = new ArrayList<>();
+    private int removed;
+
+    private void add(Posting posting) {
+      postings.add(endOfRequirement(posting.requiredQuantity), posting);
+    }
+
+    private void markRemoved() {
+      if (++removed > postings.size() / 2) {
+        postings.removeIf(posting -> posting.entry.removed);
+        removed = 0;
+      }
+    }
+
+    /** Returns the position of the first posting needing more than the given quantity. */
+    private int endOfRequirement(double quantity) {
+      int low = 0;
+      int high = postings.size();
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if (postings.get(middle).requiredQuantity <= quantity) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      return low;
+    }
+  }
+
+  /**
+   * A recipe in the index, with the number of its ingredients in stock and the scratch counters
+   * used while matching.
+   */
+  private static final class Entry {
+    private final Recipe recipe;
+    private final long sequence;
+    private final int[] ingredientIds;
+    private final double[] requiredQuantities;
+    private final long signature;
+    private final Set<String> tags;
+    private RecipeTextIndex.Document textDocument;
+    private boolean removed;
+    private int neededIngredients;
+    private int stockedIngredients;
+    private int satisfiedIngredients;
+    private long round;
+
+    private Entry(Recipe recipe, long sequence, int[] ingredientIds,
+        double[] requiredQuantities, long signature, Set<String> tags) {
+      this.recipe = recipe;
+      this.sequence = sequence;
+      this.ingredientIds = ingredientIds;
+      this.requiredQuantities = requiredQuantities;
+      this.signature = signature;
+      this.tags = tags;
+    }
+  }
+
+  /** Checks a range of recipes against the available quantities, splitting large ranges. */
+  private static final class MatchTask extends RecursiveTask<List<Recipe>> {
+    private static final long serialVersionUID = 1L;
+
+    /** Number of recipes checked in one task, large enough to outweigh the cost of a task. */
+    private static final int CHUNK_SIZE = 8_192;
+
+    private final Entry[] entries;
+    private final long[] signatures;
+    private final int from;
+    private final int to;
+    private final double[] availableQuantities;
+    private final long availableSignature;
+
+    private MatchTask(Entry[] entries, long[] signatures, int from, int to,
+        double[] availableQuantities, long availableSignature) {
+      this.entries = entries;
+      this.signatures = signatures;
+      this.from = from;
+      this.to = to;
+      this.availableQuantities = availableQuantities;
+      this.availableSignature = availableSignature;
+    }
+
+    @Override
+    protected List<Recipe> compute() {
+      if (to - from <= CHUNK_SIZE) {
+        List<Recipe> makeable = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+          // Most recipes miss an ingredient, and are rejected without loading their entry
+          if (IngredientSignature.covers(availableSignature, signatures[i])
+              && isMakeable(entries[i])) {
+            makeable.add(entries[i].recipe);
+          }
+        }
+        return makeable;
+      }
+      int middle = (from + to) >>> 1;
+      MatchTask first = new MatchTask(entries, signatures, from, middle, availableQuantities,
+          availableSignature);
+      first.fork();
+      List<Recipe> second = new MatchTask(entries, signatures, middle, to, availableQuantities,
+          availableSignature).compute();
+      List<Recipe> makeable = first.join();
+      makeable.addAll(second);
+      return makeable;
+    }
+
+    private boolean isMakeable(Entry entry) {
+      for (int i = 0; i < entry.ingredientIds.length; i++) {
+        double required = entry.requiredQuantities[i];
+        int ingredientId = entry.ingredientIds[i];
+        if (required > 0 && (ingredientId >= availableQuantities.length
+            || availableQuantities[ingredientId] < required)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  /**
+   * A recipe using an ingredient.
+   *
+   * @param entry the recipe
+   * @param requiredQuantity the quantity of the ingredient the recipe needs
+   */
+  private record Posting(Entry entry, double requiredQuantity) {
+  }
+}
@@ -0,0 +1,103 @@
+package edu.ntnu.iir.bidata.model;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * Iterates over several lists of lots, each ordered by expiry date, in overall expiry order.
+ *
+ * <p>This is a k-way merge: a heap holds the next lot of every list, so each step takes
+ * O(log k) time for k lists, and only as many lots are visited as are asked for. Every list is
+ * entered at its first lot expiring on or after the start date, found by binary search.</p>
+ *
+ * <p>Each list is copied into an array once, when the iteration starts, and both the binary search
+ * and the iteration run on that copy, so lists changed meanwhile cannot make lots be skipped or
+ * repeated. For copy-on-write lists the copy is a snapshot of the list.</p>
+ */
+class ExpiryMergeIterator implements Iterator<Grocery> {
+  private final PriorityQueue<Cursor> cursors;
+
+  /**
+   * Constructs a new {@code ExpiryMergeIterator}.
+   *
+   * @param lists the lists of lots, each ordered by expiry date
+   * @param from the first expiry date to include
+   */
+  ExpiryMergeIterator(Collection<List<Grocery>> lists, LocalDate from) {
+    List<Cursor> startCursors = new ArrayList<>(lists.size());
+    for (List<Grocery> lots : lists) {
+      Grocery[] snapshot = lots.toArray(new Grocery[0]);
+      int start = startingAt(snapshot, from);
+      if (start < snapshot.length) {
+        startCursors.add(new Cursor(snapshot, start));
+      }
+    }
+    // Building the heap from a collection takes linear time
+    cursors = new PriorityQueue<>(startCursors);
+  }
+
+  @Override
+  public boolean hasNext() {
+    return !cursors.isEmpty();
+  }
+
+  @Override
+  public Grocery next() {
+    Cursor cursor = cursors.poll();
+    if (cursor == null) {
+      throw new NoSuchElementException();
+    }
+    Grocery grocery = cursor.head;
+    if (cursor.advance()) {
+      cursors.add(cursor);
+    }
+    return grocery;
+  }
+
+  /** Returns the position of the first lot expiring on or after the given date. */
+  private static int startingAt(Grocery[] lots, LocalDate from) {
+    int low = 0;
+    int high = lots.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (lots[middle].getExpiryDate().isBefore(from)) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /** The position in the snapshot of one list, with the lot at that position. */
+  private static final class Cursor implements Comparable<Cursor> {
+    private static final Comparator<Grocery> BY_EXPIRY_DATE =
+        Comparator.comparing(Grocery::getExpiryDate);
+
+    private final Grocery[] lots;
+    private int position;
+    private Grocery head;
+
+    private Cursor(Grocery[] lots, int position) {
+      this.lots = lots;
+      this.position = position;
+      this.head = lots[position];
+    }
+
+    private boolean advance() {
+      head = ++position < lots.length ? lots[position] : null;
+      return head != null;
+    }
+
+    @Override
+    public int compareTo(Cursor other) {
+      return BY_EXPIRY_DATE.compare(head, other.head);
+    }
+  }
+}
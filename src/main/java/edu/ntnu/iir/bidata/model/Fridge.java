@@ -1,8 +1,23 @@
 package edu.ntnu.iir.bidata.model;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
 import lombok.Getter;
 
 /**
@@ -10,16 +25,636 @@ import lombok.Getter;
  *
  * <p>Food items are organized in a map where the key is the name of the grocery item,
  * and the value is a list of {@code Grocery} objects grouped by their expiry dates.</p>
+ *
+ * <p>In addition to the map, the fridge keeps a secondary index of the same lots keyed by their
+ * expiry date (as an epoch day). The index is kept in sync by {@link #indexGrocery(Grocery)} and
+ * {@link #unindexGrocery(Grocery)}, which makes expiry based queries range lookups instead of
+ * full scans.</p>
+ *
+ * <p>Lots are also indexed by their {@link LotKey}, so a newly added grocery can be matched with
+ * the lot it should be merged into in constant time.</p>
+ *
+ * <p>The names of the stored groceries are kept in a {@link NameIndex}, which supports listing
+ * them alphabetically and looking them up by prefix or substring.</p>
+ *
+ * <p>The fridge also keeps running value totals (overall, per grocery name and per expiry day)
+ * and the total quantity per grocery name.
+ * They are updated in constant time whenever a lot is indexed, unindexed or has its quantity
+ * changed through {@link Grocery#setQuantity(double)}.</p>
+ *
+ * <p>Changes of the total quantity per grocery name are reported to the registered
+ * {@link QuantityListener}s, for example to keep track of the recipes that can be made. The
+ * changes are queued while the name is held and reported by
+ * {@link #deliverQuantityChanges()} once it is released, so slow listeners do not hold up
+ * writers.</p>
+ *
+ * <p>Every time a lot is indexed or unindexed the version of the fridge is incremented. The
+ * lists of all lots sorted by name and by expiry date are cached together with the version they
+ * were built at, so asking for them again is free until the lots change.</p>
+ *
+ * <p>The fridge can be shared between threads. Changes to the groceries of one name are made
+ * atomically by running them inside {@code groceriesPerCategory.compute(name, ...)}, which locks
+ * only that name, so writes to different groceries proceed in parallel. The lists stored in the
+ * map are copy-on-write, so readers always iterate over a consistent snapshot of a name.</p>
  */
-@Getter
 public class Fridge {
   /**
    * A map that holds the groceries.
    *
    * <p>The key is a string representing the type or name of the grocery item, and the value is
    * a list of {@link Grocery} objects corresponding to that type, grouped by their expiry dates.
-   * </p>
+   * Each list is kept ordered by expiry date, soonest first.</p>
    */
-  private final Map<String, List<Grocery>> groceriesPerCategory = new HashMap<>();
-}
+  @Getter
+  private final Map<String, List<Grocery>> groceriesPerCategory = new ConcurrentHashMap<>();
+
+  /** The same lots as {@link #groceriesPerCategory}, grouped by expiry date as an epoch day. */
+  private final NavigableMap<Long, ExpiryDay> expiryDays = new ConcurrentSkipListMap<>();
+
+  /** The same lots as {@link #groceriesPerCategory}, keyed by the lot they belong to. */
+  private final Map<LotKey, Grocery> groceriesPerLot = new ConcurrentHashMap<>();
+
+  /** Total value (in NOK) of all indexed lots. */
+  private final DoubleAdder totalValue = new DoubleAdder();
+
+  /** Running totals of the indexed lots per grocery name. */
+  private final Map<String, NameTotals> totalsPerName = new ConcurrentHashMap<>();
+
+  /** Sorted index of the names that have at least one indexed lot. */
+  private final NameIndex nameIndex = new NameIndex();
+
+  /** The {@linkplain Grocery#getSequence() sequence} of the next lot to be indexed. */
+  private final AtomicLong nextSequence = new AtomicLong();
+
+  /** Incremented after every lot that is indexed or unindexed. */
+  private final AtomicLong version = new AtomicLong();
+
+  /** Listeners told about every change of the total quantity of a grocery name. */
+  private final List<QuantityListener> quantityListeners = new CopyOnWriteArrayList<>();
+
+  /** Changes of the total quantity per name not yet told to the listeners, oldest first. */
+  private final Queue<QuantityChange> pendingQuantityChanges = new ConcurrentLinkedQueue<>();
+
+  /** Set while a thread is telling the listeners about the pending changes. */
+  private final AtomicBoolean deliveringQuantityChanges = new AtomicBoolean();
+
+  private volatile SortedView groceriesByName = SortedView.NONE;
+  private volatile SortedView groceriesByExpiryDate = SortedView.NONE;
 
+  /**
+   * Adds a newly stored lot to the expiry and lot indexes.
+   *
+   * <p>Must be called while holding the name of the lot, that is from inside
+   * {@code groceriesPerCategory.compute(name, ...)}.</p>
+   *
+   * @param grocery the lot that was added to {@link #groceriesPerCategory}
+   */
+  public void indexGrocery(Grocery grocery) {
+    indexGroceries(List.of(grocery));
+  }
+
+  /**
+   * Adds several newly stored lots of the same grocery to the expiry and lot indexes.
+   *
+   * <p>The running totals of the grocery name and of the whole fridge are updated once for all
+   * the lots. Must be called while holding the name of the lots, that is from inside
+   * {@code groceriesPerCategory.compute(name, ...)}.</p>
+   *
+   * @param groceries the lots, all with the same name, that were added to
+   *                  {@link #groceriesPerCategory}
+   */
+  public void indexGroceries(List<Grocery> groceries) {
+    if (groceries.isEmpty()) {
+      return;
+    }
+    NameTotals nameTotals = totalsPerName.computeIfAbsent(groceries.get(0).getName(), name -> {
+      nameIndex.add(name);
+      return new NameTotals();
+    });
+    double quantity = 0;
+    double value = 0;
+    for (Grocery grocery : groceries) {
+      groceriesPerLot.put(LotKey.of(grocery), grocery);
+      synchronized (grocery) {
+        double lotQuantity = grocery.getQuantity();
+        double lotValue = lotQuantity * grocery.getPricePerUnit();
+        grocery.setSequence(nextSequence.getAndIncrement());
+        addToExpiryDay(grocery, lotValue);
+        grocery.setStoredIn(this);
+        quantity += lotQuantity;
+        value += lotValue;
+      }
+    }
+    nameTotals.lots += groceries.size();
+    addToNameTotals(groceries.get(0), nameTotals, quantity, value);
+    totalValue.add(value);
+    version.incrementAndGet();
+  }
+
+  private void addToExpiryDay(Grocery grocery, double value) {
+    long day = grocery.getExpiryDate().toEpochDay();
+    while (true) {
+      ExpiryDay expiryDay = expiryDays.computeIfAbsent(day, d -> new ExpiryDay());
+      synchronized (expiryDay) {
+        if (!expiryDay.retired) {
+          expiryDay.lots.put(grocery.getSequence(), grocery);
+          expiryDay.value += value;
+          return;
+        }
+        // Emptied and removed by another thread, so try again with a new one
+      }
+    }
+  }
+
+  /**
+   * Removes a lot from the expiry and lot indexes.
+   *
+   * <p>Must be called while holding the name of the lot, that is from inside
+   * {@code groceriesPerCategory.compute(name, ...)}.</p>
+   *
+   * @param grocery the lot that was removed from {@link #groceriesPerCategory}
+   */
+  public void unindexGrocery(Grocery grocery) {
+    long day = grocery.getExpiryDate().toEpochDay();
+    ExpiryDay expiryDay = expiryDays.get(day);
+    if (expiryDay == null) {
+      return;
+    }
+    synchronized (grocery) {
+      synchronized (expiryDay) {
+        if (!expiryDay.lots.remove(grocery.getSequence(), grocery)) {
+          return;
+        }
+        groceriesPerLot.remove(LotKey.of(grocery), grocery);
+        NameTotals nameTotals = totalsPerName.get(grocery.getName());
+        addQuantity(grocery, nameTotals, expiryDay, -grocery.getQuantity());
+        grocery.setStoredIn(null);
+
+        // Drop totals that no longer cover any lot, so rounding errors do not linger
+        if (expiryDay.lots.isEmpty()) {
+          expiryDay.retired = true;
+          expiryDays.remove(day, expiryDay);
+        }
+        if (--nameTotals.lots == 0) {
+          totalsPerName.remove(grocery.getName());
+          nameIndex.remove(grocery.getName());
+          queueQuantityChange(grocery.getName(), 0, null);
+        }
+        version.incrementAndGet();
+      }
+    }
+  }
+
+  /**
+   * Finds the stored lot that the given grocery can be merged into.
+   *
+   * @param grocery the grocery item to match
+   * @return the stored lot with the same {@link LotKey}, or {@code null} if there is none
+   */
+  public Grocery findLot(Grocery grocery) {
+    return findLot(LotKey.of(grocery));
+  }
+
+  /**
+   * Finds the stored lot with the given lot key.
+   *
+   * @param lotKey the key of the lot
+   * @return the stored lot with the key, or {@code null} if there is none
+   */
+  public Grocery findLot(LotKey lotKey) {
+    return groceriesPerLot.get(lotKey);
+  }
+
+  /**
+   * Returns the names of all stored groceries in alphabetical order.
+   *
+   * @return the grocery names
+   */
+  public List<String> getNames() {
+    return nameIndex.getNames();
+  }
+
+  /**
+   * Returns the names of the stored groceries starting with the given prefix.
+   *
+   * @param prefix the (lowercase) prefix to look for
+   * @return the matching grocery names in alphabetical order
+   */
+  public List<String> getNamesStartingWith(String prefix) {
+    return nameIndex.getNamesStartingWith(prefix);
+  }
+
+  /**
+   * Returns the names of the stored groceries containing the given text.
+   *
+   * @param text the (lowercase) text to look for
+   * @return the matching grocery names in alphabetical order
+   */
+  public List<String> getNamesContaining(String text) {
+    return nameIndex.getNamesContaining(text);
+  }
+
+  /**
+   * Updates the running totals after the quantity of an indexed lot has changed.
+   *
+   * <p>Called by the lot while holding its own lock.</p>
+   *
+   * @param grocery the lot whose quantity changed
+   * @param previousQuantity the quantity before the change
+   */
+  void quantityChanged(Grocery grocery, double previousQuantity) {
+    ExpiryDay expiryDay = expiryDays.get(grocery.getExpiryDate().toEpochDay());
+    synchronized (expiryDay) {
+      addQuantity(grocery, totalsPerName.get(grocery.getName()), expiryDay,
+          grocery.getQuantity() - previousQuantity);
+    }
+  }
+
+  /**
+   * Registers a listener to be told whenever the total quantity of a grocery name changes.
+   *
+   * <p>The listener is first told the current total of every stored grocery. These totals are
+   * queued while each grocery is held, behind the changes made before and ahead of those made
+   * after, so the listener does not miss or reorder changes made meanwhile.</p>
+   *
+   * @param listener the listener to register
+   */
+  public void addQuantityListener(QuantityListener listener) {
+    quantityListeners.add(listener);
+    for (String name : nameIndex.getNames()) {
+      groceriesPerCategory.computeIfPresent(name, (key, lots) -> {
+        NameTotals nameTotals = totalsPerName.get(name);
+        if (nameTotals != null && !lots.isEmpty()) {
+          synchronized (nameTotals) {
+            queueQuantityChange(name, nameTotals.quantity, listener);
+          }
+        }
+        return lots;
+      });
+    }
+    deliverQuantityChanges();
+  }
+
+  /**
+   * Tells the listeners about the changes of the total quantities queued so far.
+   *
+   * <p>Changes are queued while their grocery is held and only told here, so this must be
+   * called after releasing the name, that is after {@code groceriesPerCategory.compute(name,
+   * ...)} has returned. Quantities changed directly through {@link Grocery#setQuantity(double)}
+   * are told by the next call. The changes are told one at a time, in the order they were made,
+   * by whichever thread gets here first; a thread finding another one busy telling returns at
+   * once and leaves its changes to that thread.</p>
+   */
+  public void deliverQuantityChanges() {
+    // Checked again after letting go, for changes queued while the flag was still set
+    while (!pendingQuantityChanges.isEmpty()
+        && deliveringQuantityChanges.compareAndSet(false, true)) {
+      try {
+        for (QuantityChange change; (change = pendingQuantityChanges.poll()) != null; ) {
+          if (change.listener() != null) {
+            change.listener().quantityChanged(change.name(), change.totalQuantity());
+            continue;
+          }
+          for (QuantityListener listener : quantityListeners) {
+            listener.quantityChanged(change.name(), change.totalQuantity());
+          }
+        }
+      } finally {
+        deliveringQuantityChanges.set(false);
+      }
+    }
+  }
+
+  /**
+   * Returns the total value of all groceries in the fridge.
+   *
+   * @return the total value in NOK
+   */
+  public double getTotalValue() {
+    return totalValue.sum();
+  }
+
+  /**
+   * Returns the total value of all lots of the grocery with the given name.
+   *
+   * @param name the (lowercase) name of the grocery
+   * @return the total value in NOK, or {@code 0} if there is no such grocery
+   */
+  public double getTotalValue(String name) {
+    NameTotals nameTotals = totalsPerName.get(name);
+    return nameTotals == null ? 0 : nameTotals.value;
+  }
+
+  /**
+   * Returns the total quantity of all lots of the grocery with the given name.
+   *
+   * @param name the (lowercase) name of the grocery
+   * @return the total quantity, or {@code 0} if there is no such grocery
+   */
+  public double getTotalQuantity(String name) {
+    NameTotals nameTotals = totalsPerName.get(name);
+    return nameTotals == null ? 0 : nameTotals.quantity;
+  }
+
+  /**
+   * Returns the total value of all lots expiring on the given date.
+   *
+   * @param expiryDate the expiry date
+   * @return the total value in NOK, or {@code 0} if nothing expires on that date
+   */
+  public double getTotalValue(LocalDate expiryDate) {
+    ExpiryDay expiryDay = expiryDays.get(expiryDate.toEpochDay());
+    return expiryDay == null ? 0 : expiryDay.value;
+  }
+
+  /**
+   * Returns the total value of all lots expiring strictly before the given date.
+   *
+   * <p>The sum runs over one running total per expiry day, not over the lots themselves.</p>
+   *
+   * @param date the first date that is not included
+   * @return the total value in NOK
+   */
+  public double getTotalValueExpiringBefore(LocalDate date) {
+    double value = 0;
+    for (ExpiryDay expiryDay : expiryDays.headMap(date.toEpochDay(), false).values()) {
+      value += expiryDay.value;
+    }
+    return value;
+  }
+
+  /**
+   * Retrieves all lots expiring strictly before the given date.
+   *
+   * @param date the first date that is not included
+   * @return the matching lots in order of expiry date
+   */
+  public List<Grocery> getGroceriesExpiringBefore(LocalDate date) {
+    return flatten(expiryDays.headMap(date.toEpochDay(), false).values());
+  }
+
+  /**
+   * Retrieves all lots expiring between the two dates, both inclusive.
+   *
+   * @param from the first date to include
+   * @param to the last date to include
+   * @return the matching lots in order of expiry date, or an empty list if {@code to} is before
+   *         {@code from}
+   */
+  public List<Grocery> getGroceriesExpiringBetween(LocalDate from, LocalDate to) {
+    if (to.isBefore(from)) {
+      return new ArrayList<>();
+    }
+    return flatten(expiryDays.subMap(from.toEpochDay(), true, to.toEpochDay(), true).values());
+  }
+
+  /**
+   * Returns the version of the fridge, which changes whenever a lot is added or removed.
+   *
+   * <p>Changing the quantity of a stored lot does not change the version.</p>
+   *
+   * @return the current version
+   */
+  public long getVersion() {
+    return version.get();
+  }
+
+  /**
+   * Retrieves all lots sorted by name, and by expiry date within a name.
+   *
+   * <p>The list is built from the expiry index and the name index, which are already ordered, so
+   * no sorting is needed. It is cached until the next lot is added or removed.</p>
+   *
+   * @return an unmodifiable list of all lots in order of name
+   */
+  public List<Grocery> getGroceriesSortedByName() {
+    SortedView view = groceriesByName;
+    long currentVersion = version.get();
+    if (view.version() != currentVersion) {
+      Map<String, List<Grocery>> lotsPerName = new HashMap<>();
+      List<Grocery> byExpiryDate = getGroceriesSortedByExpiryDate();
+      for (Grocery grocery : byExpiryDate) {
+        lotsPerName.computeIfAbsent(grocery.getName(), name -> new ArrayList<>()).add(grocery);
+      }
+      List<Grocery> groceries = new ArrayList<>(byExpiryDate.size());
+      for (String name : nameIndex.getNames()) {
+        List<Grocery> lots = lotsPerName.get(name);
+        if (lots != null) {
+          groceries.addAll(lots);
+        }
+      }
+      view = new SortedView(currentVersion, Collections.unmodifiableList(groceries));
+      groceriesByName = view;
+    }
+    return view.groceries();
+  }
+
+  /**
+   * Retrieves all lots sorted by expiry date.
+   *
+   * <p>The list is read from the expiry index in order and cached until the next lot is added or
+   * removed.</p>
+   *
+   * @return an unmodifiable list of all lots in order of expiry date
+   */
+  public List<Grocery> getGroceriesSortedByExpiryDate() {
+    SortedView view = groceriesByExpiryDate;
+    long currentVersion = version.get();
+    if (view.version() != currentVersion) {
+      // Built after reading the version, so changes made meanwhile cause another rebuild
+      view = new SortedView(currentVersion,
+          Collections.unmodifiableList(flatten(expiryDays.values())));
+      groceriesByExpiryDate = view;
+    }
+    return view.groceries();
+  }
+
+  /**
+   * Retrieves up to {@code limit} lots in order of name, after the given position.
+   *
+   * <p>Lots are listed by name, then by expiry date, then by the order they were stored in, so a
+   * position is a name, an expiry date and a {@linkplain Grocery#getSequence() sequence}. The
+   * listing resumes strictly after the position, also when the lot at the position, or lots
+   * before it, have been removed since. The lots of the first name are entered by a binary search
+   * and only the names needed are read from the name index, so the cost depends on the page size
+   * and not on the number of lots stored.</p>
+   *
+   * @param afterName the (lowercase) name of the position
+   * @param afterExpiryDate the expiry date of the position
+   * @param afterSequence the sequence of the position
+   * @param limit the maximum number of lots to return
+   * @return the lots, ordered by name and by expiry date within a name
+   */
+  public List<Grocery> getGroceriesByName(String afterName, LocalDate afterExpiryDate,
+      long afterSequence, int limit) {
+    List<Grocery> groceries = new ArrayList<>(limit);
+    // Held while searching, so the list does not shift under the binary search
+    groceriesPerCategory.computeIfPresent(afterName, (name, lots) -> {
+      int first = positionAfter(lots, afterExpiryDate, afterSequence);
+      groceries.addAll(lots.subList(first, Math.min(lots.size(), first + limit)));
+      return lots;
+    });
+    String from = afterName;
+    while (groceries.size() < limit) {
+      // Every indexed name has at least one lot, so this is usually a single round
+      List<String> names = nameIndex.getNames(from, false, limit - groceries.size() + 1);
+      if (names.isEmpty()) {
+        break;
+      }
+      for (String name : names) {
+        for (Grocery grocery : groceriesPerCategory.getOrDefault(name, List.of())) {
+          if (groceries.size() == limit) {
+            return groceries;
+          }
+          groceries.add(grocery);
+        }
+      }
+      from = names.get(names.size() - 1);
+    }
+    return groceries;
+  }
+
+  /**
+   * Retrieves up to {@code limit} lots in order of expiry date, after the given position.
+   *
+   * <p>Lots expiring on the same day are listed in the order they were stored in, so a position
+   * is an expiry date and a {@linkplain Grocery#getSequence() sequence}. The listing resumes
+   * strictly after the position, also when lots have been removed since. The lots of each day are
+   * kept by sequence, so the cost depends on the page size and not on the number of lots
+   * stored.</p>
+   *
+   * @param afterExpiryDate the expiry date of the position
+   * @param afterSequence the sequence of the position
+   * @param limit the maximum number of lots to return
+   * @return the lots, ordered by expiry date
+   */
+  public List<Grocery> getGroceriesByExpiryDate(LocalDate afterExpiryDate, long afterSequence,
+      int limit) {
+    List<Grocery> groceries = new ArrayList<>(limit);
+    long afterDay = afterExpiryDate.toEpochDay();
+    for (Map.Entry<Long, ExpiryDay> entry : expiryDays.tailMap(afterDay, true).entrySet()) {
+      ExpiryDay expiryDay = entry.getValue();
+      synchronized (expiryDay) {
+        Collection<Grocery> lots = entry.getKey() == afterDay
+            ? expiryDay.lots.tailMap(afterSequence, false).values() : expiryDay.lots.values();
+        for (Grocery grocery : lots) {
+          if (groceries.size() == limit) {
+            return groceries;
+          }
+          groceries.add(grocery);
+        }
+      }
+    }
+    return groceries;
+  }
+
+  /**
+   * Returns the position of the first lot after the given expiry date and sequence, in a list
+   * ordered by expiry date and by sequence within a day.
+   */
+  private static int positionAfter(List<Grocery> lots, LocalDate expiryDate, long sequence) {
+    int low = 0;
+    int high = lots.size();
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      Grocery lot = lots.get(middle);
+      int order = lot.getExpiryDate().compareTo(expiryDate);
+      if (order > 0 || (order == 0 && lot.getSequence() > sequence)) {
+        high = middle;
+      } else {
+        low = middle + 1;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Iterates lazily over the lots expiring on or after the given date, soonest first.
+   *
+   * <p>The per-name lists in {@link #groceriesPerCategory} are already ordered by expiry date,
+   * so they are merged with a heap instead of being sorted: taking the next lot costs
+   * O(log k) for k grocery names, and lots that are never asked for are never visited.</p>
+   *
+   * @param from the first expiry date to include
+   * @return an iterator over the lots in order of expiry date
+   */
+  public Iterator<Grocery> iterateByExpiryDate(LocalDate from) {
+    return new ExpiryMergeIterator(groceriesPerCategory.values(), from);
+  }
+
+  private void addQuantity(Grocery grocery, NameTotals nameTotals, ExpiryDay expiryDay,
+      double quantity) {
+    double value = quantity * grocery.getPricePerUnit();
+    addToNameTotals(grocery, nameTotals, quantity, value);
+    expiryDay.value += value;
+    totalValue.add(value);
+  }
+
+  private void addToNameTotals(Grocery grocery, NameTotals nameTotals, double quantity,
+      double value) {
+    // Queued under the lock of the totals, so listeners see the totals in order
+    synchronized (nameTotals) {
+      nameTotals.add(quantity, value);
+      queueQuantityChange(grocery.getName(), nameTotals.quantity, null);
+    }
+  }
+
+  private void queueQuantityChange(String name, double totalQuantity,
+      QuantityListener listener) {
+    if (listener != null || !quantityListeners.isEmpty()) {
+      pendingQuantityChanges.add(new QuantityChange(name, totalQuantity, listener));
+    }
+  }
+
+  private static List<Grocery> flatten(Collection<ExpiryDay> days) {
+    List<Grocery> groceries = new ArrayList<>();
+    for (ExpiryDay expiryDay : days) {
+      synchronized (expiryDay) {
+        groceries.addAll(expiryDay.lots.values());
+      }
+    }
+    return groceries;
+  }
+
+  /**
+   * A sorted list of all lots, built at the given version of the fridge.
+   *
+   * @param version the version the list was built at
+   * @param groceries the sorted lots
+   */
+  private record SortedView(long version, List<Grocery> groceries) {
+    private static final SortedView NONE = new SortedView(-1, List.of());
+  }
+
+  /**
+   * A change of the total quantity of a grocery name, waiting to be told to the listeners.
+   *
+   * @param name the grocery name
+   * @param totalQuantity the new total quantity
+   * @param listener the only listener to tell, or {@code null} to tell all of them
+   */
+  private record QuantityChange(String name, double totalQuantity, QuantityListener listener) {
+  }
+
+  /**
+   * The lots expiring on one day, keyed by their sequence, and their total value, guarded by the
+   * instance lock.
+   */
+  private static final class ExpiryDay {
+    private final NavigableMap<Long, Grocery> lots = new TreeMap<>();
+    private volatile double value;
+    private boolean retired;
+  }
+
+  /** Running totals for all lots sharing a grocery name. */
+  private static final class NameTotals {
+    private int lots;
+    private volatile double quantity;
+    private volatile double value;
+
+    private synchronized void add(double quantity, double value) {
+      this.quantity += quantity;
+      this.value += value;
+    }
+  }
+}
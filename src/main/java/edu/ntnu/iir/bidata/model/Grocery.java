@@ -1,24 +1,40 @@
 package edu.ntnu.iir.bidata.model;
 
 import java.time.LocalDate;
+import lombok.AccessLevel;
 import lombok.Getter;
 
 /**
  * Represents a grocery item in the inventory, including its name, quantity, unit of measurement,
  * price per unit, and expiry date.
+ *
+ * <p>The name and unit are interned through the shared {@link SymbolTable}s, so all groceries
+ * with the same name share one string and can be compared by their integer identifiers.</p>
  */
 @Getter
 public class Grocery {
   /** Name of the grocery item. */
   private final String name;
+  /** Identifier of the name in {@link SymbolTable#NAMES}. */
+  private final int nameId;
   /** Quantity of the grocery item (e.g., in liters or kilograms). */
-  private double quantity;
+  private volatile double quantity;
   /** Unit of measurement for the quantity (e.g., "liters", "kg", "pieces"). */
   private final String unit;
+  /** Identifier of the unit in {@link SymbolTable#UNITS}. */
+  private final int unitId;
   /** Price per unit of the grocery item (in NOK). */
   private final double pricePerUnit;
   /** Expiry date of the grocery item. */
   private final LocalDate expiryDate; // so its easier to calculate price of different quantities
+  /**
+   * The position of the lot in the order lots were stored in its fridge, or {@code -1} if it was
+   * never stored. Listings page through lots of the same name and expiry date by it.
+   */
+  private volatile long sequence = -1;
+  /** The fridge this item is stored in, notified when the quantity changes. */
+  @Getter(AccessLevel.NONE)
+  private Fridge storedIn;
 
   // creating a constructor for this
 
@@ -53,9 +69,11 @@ public class Grocery {
     if (expiryDate == null) {
       throw new IllegalArgumentException("Expiry date cannot be null");
     }
-    this.name = name.toLowerCase();
+    this.nameId = SymbolTable.NAMES.idOf(name);
+    this.name = SymbolTable.NAMES.symbolOf(nameId);
     this.quantity = quantity;
-    this.unit = unit;
+    this.unitId = SymbolTable.UNITS.idOf(unit);
+    this.unit = SymbolTable.UNITS.symbolOf(unitId);
     this.pricePerUnit = pricePerUnit;
     this.expiryDate = expiryDate;
   }
@@ -66,14 +84,40 @@ public class Grocery {
    * <p>For example, if additional units are added separately, this method updates
    * the total quantity.</p>
    *
+   * <p>If the item is stored in a {@link Fridge}, the fridge is notified so that its running
+   * totals stay up to date. The update is made while holding the lock of this item, so
+   * concurrent updates are applied one at a time.</p>
+   *
    * @param quantity the new quantity to set
    * @throws IllegalArgumentException if {@code quantity} is negative
    */
-  public void setQuantity(double quantity) {
+  public synchronized void setQuantity(double quantity) {
     if (quantity < 0) {
       throw new IllegalArgumentException("Quantity cannot be negative");
     }
+    double previousQuantity = this.quantity;
     this.quantity = quantity;
+    if (storedIn != null) {
+      storedIn.quantityChanged(this, previousQuantity);
+    }
+  }
+
+  /**
+   * Sets the fridge this item is stored in.
+   *
+   * @param fridge the fridge holding this item, or {@code null} once it has been removed
+   */
+  void setStoredIn(Fridge fridge) {
+    this.storedIn = fridge;
+  }
+
+  /**
+   * Sets the position of the lot in the order lots were stored in its fridge.
+   *
+   * @param sequence the position, larger than that of every lot stored before
+   */
+  void setSequence(long sequence) {
+    this.sequence = sequence;
   }
 
   /**
@@ -0,0 +1,22 @@
+package edu.ntnu.iir.bidata.model;
+
+import java.util.List;
+
+/**
+ * One page of a grocery listing.
+ *
+ * @param groceries the groceries on this page
+ * @param nextPageToken the token to pass to get the following page, or {@code null} if this is
+ *                      the last page
+ */
+public record GroceryPage(List<Grocery> groceries, String nextPageToken) {
+
+  /**
+   * Returns whether there is a page after this one.
+   *
+   * @return {@code true} if {@link #nextPageToken()} can be used to get another page
+   */
+  public boolean hasNextPage() {
+    return nextPageToken != null;
+  }
+}
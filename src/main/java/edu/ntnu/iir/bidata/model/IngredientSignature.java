@@ -0,0 +1,72 @@
+package edu.ntnu.iir.bidata.model;
+
+/**
+ * Compact signatures of the ingredients a recipe needs or a fridge holds.
+ *
+ * <p>A signature is a 64-bit mask with one bit set per ingredient, chosen by hashing the
+ * {@link SymbolTable#NAMES} identifier of the ingredient. Like a Bloom filter with a single hash
+ * function, two ingredients may share a bit, so a covered signature does not prove that every
+ * ingredient is present. An uncovered signature does prove that one is missing, which rejects
+ * most recipes with a single AND before any quantity is compared.</p>
+ */
+public final class IngredientSignature {
+
+  private IngredientSignature() {
+  }
+
+  /**
+   * Returns the bit of an ingredient.
+   *
+   * @param ingredientId the ingredient name identifier
+   * @return a mask with the one bit of the ingredient set
+   */
+  public static long bitOf(int ingredientId) {
+    // Fibonacci hashing spreads consecutive identifiers over all 64 bits
+    return 1L << ((ingredientId * 0x9E3779B9) >>> 26);
+  }
+
+  /**
+   * Returns the signature of the ingredients a recipe needs a positive quantity of.
+   *
+   * @param ingredientIds the ingredient name identifiers
+   * @param requiredQuantities the required quantity of each ingredient
+   * @return the signature of the needed ingredients
+   */
+  public static long ofRequired(int[] ingredientIds, double[] requiredQuantities) {
+    long signature = 0;
+    for (int i = 0; i < ingredientIds.length; i++) {
+      if (requiredQuantities[i] > 0) {
+        signature |= bitOf(ingredientIds[i]);
+      }
+    }
+    return signature;
+  }
+
+  /**
+   * Returns the signature of the ingredients available in a positive quantity.
+   *
+   * @param availableQuantities the available quantity of each ingredient, indexed by the
+   *                            ingredient name identifier
+   * @return the signature of the available ingredients
+   */
+  public static long ofAvailable(double[] availableQuantities) {
+    long signature = 0;
+    for (int ingredientId = 0; ingredientId < availableQuantities.length; ingredientId++) {
+      if (availableQuantities[ingredientId] > 0) {
+        signature |= bitOf(ingredientId);
+      }
+    }
+    return signature;
+  }
+
+  /**
+   * Returns whether every bit of the needed signature is set in the available signature.
+   *
+   * @param available the signature of the available ingredients
+   * @param needed the signature of the needed ingredients
+   * @return {@code false} if an ingredient is certainly missing
+   */
+  public static boolean covers(long available, long needed) {
+    return (needed & ~available) == 0;
+  }
+}
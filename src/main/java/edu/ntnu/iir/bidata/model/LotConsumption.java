@@ -0,0 +1,11 @@
+package edu.ntnu.iir.bidata.model;
+
+/**
+ * Describes how much was taken from a single lot when consuming a grocery.
+ *
+ * @param lot the lot that was consumed from
+ * @param quantity the quantity taken from the lot
+ * @param depleted whether the lot was used up and removed from the fridge
+ */
+public record LotConsumption(Grocery lot, double quantity, boolean depleted) {
+}
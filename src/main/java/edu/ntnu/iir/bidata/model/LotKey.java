@@ -0,0 +1,32 @@
+package edu.ntnu.iir.bidata.model;
+
+/**
+ * Identifies a lot of groceries that can be merged into a single {@link Grocery} entry.
+ *
+ * <p>Two groceries share a lot key when they have the same name, unit, price per unit and expiry
+ * date, which is the same rule as
+ * {@link edu.ntnu.iir.bidata.services.GroceryService#areGroceriesClubbable(Grocery, Grocery)}.
+ * </p>
+ *
+ * <p>The name and unit are held as their {@link SymbolTable} identifiers, so comparing and
+ * hashing keys does not touch any strings.</p>
+ *
+ * @param nameId the identifier of the grocery name
+ * @param unitId the identifier of the unit of measurement
+ * @param pricePerUnit the price per unit (in NOK)
+ * @param expiryEpochDay the expiry date as an epoch day
+ */
+public record LotKey(int nameId, int unitId, double pricePerUnit, long expiryEpochDay) {
+
+  /**
+   * Creates the lot key of the given grocery.
+   *
+   * @param grocery the grocery item
+   * @return the lot key of the grocery
+   */
+  public static LotKey of(Grocery grocery) {
+    // Adding 0.0 turns -0.0 into 0.0, which compare equal with == but not in a record
+    return new LotKey(grocery.getNameId(), grocery.getUnitId(), grocery.getPricePerUnit() + 0.0,
+        grocery.getExpiryDate().toEpochDay());
+  }
+}
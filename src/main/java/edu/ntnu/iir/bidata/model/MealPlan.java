@@ -0,0 +1,25 @@
+package edu.ntnu.iir.bidata.model;
+
+import java.util.List;
+
+/**
+ * A plan of meals over the coming days, with the value of the groceries it leaves to expire.
+ *
+ * @param meals the planned meals, ordered by day and then by the order to cook them in
+ * @param expiredValue the value of the groceries that expire unused during the planned days when
+ *                     the plan is followed
+ * @param expiredValueWithoutPlan the value of the groceries that expire during the planned days
+ *                                when nothing is cooked
+ */
+public record MealPlan(List<PlannedMeal> meals, double expiredValue,
+    double expiredValueWithoutPlan) {
+
+  /**
+   * Returns the value of the groceries the plan saves from expiring.
+   *
+   * @return the value saved by following the plan
+   */
+  public double savedValue() {
+    return expiredValueWithoutPlan - expiredValue;
+  }
+}
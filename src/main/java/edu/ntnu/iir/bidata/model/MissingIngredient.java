@@ -0,0 +1,10 @@
+package edu.ntnu.iir.bidata.model;
+
+/**
+ * An ingredient that is not available in the quantity a recipe needs.
+ *
+ * @param name the name of the ingredient, in lowercase like grocery names
+ * @param quantity the quantity that has to be bought to make the recipe
+ */
+public record MissingIngredient(String name, double quantity) {
+}
@@ -0,0 +1,110 @@
+package edu.ntnu.iir.bidata.model;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * A sorted index of grocery names supporting prefix and substring lookups.
+ *
+ * <p>The names are kept in a sorted set, so a prefix lookup is a range of that set. For substring
+ * lookups every suffix of every name is kept in a sorted map as well: a name contains a text
+ * exactly when one of its suffixes starts with the text, so a substring lookup is a range of the
+ * suffix map.</p>
+ *
+ * <p>Names are added and removed rarely compared to how often they are looked up, so all
+ * methods simply synchronize on the index.</p>
+ */
+class NameIndex {
+  private final NavigableSet<String> names = new TreeSet<>();
+  private final NavigableMap<String, Set<String>> namesPerSuffix = new TreeMap<>();
+
+  /**
+   * Adds a name to the index.
+   *
+   * @param name the name to add
+   */
+  synchronized void add(String name) {
+    if (!names.add(name)) {
+      return;
+    }
+    for (int i = 0; i < name.length(); i++) {
+      namesPerSuffix.computeIfAbsent(name.substring(i), suffix -> new HashSet<>()).add(name);
+    }
+  }
+
+  /**
+   * Removes a name from the index.
+   *
+   * @param name the name to remove
+   */
+  synchronized void remove(String name) {
+    if (!names.remove(name)) {
+      return;
+    }
+    for (int i = 0; i < name.length(); i++) {
+      String suffix = name.substring(i);
+      Set<String> suffixNames = namesPerSuffix.get(suffix);
+      suffixNames.remove(name);
+      if (suffixNames.isEmpty()) {
+        namesPerSuffix.remove(suffix);
+      }
+    }
+  }
+
+  /**
+   * Returns all names in alphabetical order.
+   *
+   * @return the names
+   */
+  synchronized List<String> getNames() {
+    return new ArrayList<>(names);
+  }
+
+  /**
+   * Returns up to {@code limit} names in alphabetical order, starting at the given name.
+   *
+   * @param from the name to start at
+   * @param inclusive whether {@code from} itself may be returned
+   * @param limit the maximum number of names to return
+   * @return the names
+   */
+  synchronized List<String> getNames(String from, boolean inclusive, int limit) {
+    List<String> page = new ArrayList<>(Math.min(limit, names.size()));
+    for (String name : names.tailSet(from, inclusive)) {
+      if (page.size() == limit) {
+        break;
+      }
+      page.add(name);
+    }
+    return page;
+  }
+
+  /**
+   * Returns the names starting with the given prefix, in alphabetical order.
+   *
+   * @param prefix the prefix to look for
+   * @return the matching names
+   */
+  synchronized List<String> getNamesStartingWith(String prefix) {
+    return new ArrayList<>(names.subSet(prefix, true, prefix + Character.MAX_VALUE, false));
+  }
+
+  /**
+   * Returns the names containing the given text, in alphabetical order.
+   *
+   * @param text the text to look for
+   * @return the matching names
+   */
+  synchronized List<String> getNamesContaining(String text) {
+    NavigableSet<String> matches = new TreeSet<>();
+    namesPerSuffix.subMap(text, true, text + Character.MAX_VALUE, false).values()
+        .forEach(matches::addAll);
+    return new ArrayList<>(matches);
+  }
+}
@@ -0,0 +1,26 @@
+package edu.ntnu.iir.bidata.model;
+
+import java.util.List;
+
+/**
+ * A recipe that can be made after buying a few missing ingredients.
+ *
+ * @param recipe the recipe
+ * @param missingIngredients the ingredients to buy, with the missing quantity of each, in the
+ *                           order of the recipe; empty if the recipe can be made already
+ */
+public record NearMissRecipe(Recipe recipe, List<MissingIngredient> missingIngredients) {
+
+  /**
+   * Returns the sum of the missing quantities.
+   *
+   * @return the total quantity to buy
+   */
+  public double totalShortfall() {
+    double shortfall = 0;
+    for (MissingIngredient missingIngredient : missingIngredients) {
+      shortfall += missingIngredient.quantity();
+    }
+    return shortfall;
+  }
+}
@@ -0,0 +1,12 @@
+package edu.ntnu.iir.bidata.model;
+
+import java.time.LocalDate;
+
+/**
+ * A recipe planned to be cooked on a given day.
+ *
+ * @param date the day to cook the recipe
+ * @param recipe the recipe to cook
+ */
+public record PlannedMeal(LocalDate date, Recipe recipe) {
+}
@@ -0,0 +1,22 @@
+package edu.ntnu.iir.bidata.model;
+
+/**
+ * Listens to changes of the total quantity of a grocery stored in a {@link Fridge} or a
+ * {@link ColumnarFridge}.
+ *
+ * <p>A {@link Fridge} calls the listener after releasing the grocery, one change at a time and in
+ * the order the changes were made, so a slow listener only delays later notifications. A
+ * {@link ColumnarFridge} calls it while the fridge is held, so there it must be quick. In both
+ * cases it must not change the fridge itself.</p>
+ */
+@FunctionalInterface
+public interface QuantityListener {
+
+  /**
+   * Called after the total quantity of all lots with a grocery name has changed.
+   *
+   * @param name the grocery name, in lowercase
+   * @param totalQuantity the new total quantity, {@code 0} once the last lot has been removed
+   */
+  void quantityChanged(String name, double totalQuantity);
+}
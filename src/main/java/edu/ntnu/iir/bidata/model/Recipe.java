@@ -1,15 +1,29 @@
 package edu.ntnu.iir.bidata.model;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
-import lombok.AllArgsConstructor;
+import java.util.Set;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
 
 /**
  * Represents a recipe with its details like name, description, procedure, ingredients, and the
  * number it serves.
+ *
+ * <p>Besides the ingredient map, the recipe keeps a compiled form of its ingredients: the
+ * {@link SymbolTable#NAMES} identifier of each ingredient and the quantity required of it. The
+ * compiled form is rebuilt whenever the ingredients are replaced, so matching recipes against the
+ * fridge compares integers instead of lowercasing names. An {@link IngredientSignature} of the
+ * needed ingredients lets recipes missing an ingredient be rejected with a single AND. The
+ * compiled form is read one ingredient at a time, so it cannot be changed from outside.</p>
  */
 @Data
-@AllArgsConstructor
 public class Recipe {
 
   /** Name of the recipe. */
@@ -27,11 +41,168 @@ public class Recipe {
    * <p>Maps ingredient names to their required quantities.</p>
    * Example: {@code {"Flour": 500.0, "Sugar": 200.0}}
    */
+  @Setter(AccessLevel.NONE)
   private Map<String, Double> ingredients; // Ingredient name -> Required quantity
 
   /** The number of people the recipe serves. */
   private int serves;
 
+  /**
+   * The tags of the recipe, such as {@code "smoothie"}, in lowercase.
+   *
+   * <p>The cookbook keeps a list of recipes per tag, so recipes can be listed by tag without
+   * looking at their names.</p>
+   */
+  @Setter(AccessLevel.NONE)
+  private Set<String> tags;
+
+  /** Identifiers of the distinct ingredient names, in the order of {@link #ingredients}. */
+  @Getter(AccessLevel.NONE)
+  @Setter(AccessLevel.NONE)
+  @EqualsAndHashCode.Exclude
+  private int[] ingredientIds;
+
+  /** Required quantity of each ingredient in {@link #ingredientIds}. */
+  @Getter(AccessLevel.NONE)
+  @Setter(AccessLevel.NONE)
+  @EqualsAndHashCode.Exclude
+  private double[] requiredQuantities;
+
+  /** The {@link IngredientSignature} of the ingredients needed in a positive quantity. */
+  @Setter(AccessLevel.NONE)
+  @EqualsAndHashCode.Exclude
+  private long ingredientSignature;
+
+  /**
+   * Constructs a new {@code Recipe}.
+   *
+   * @param name the name of the recipe
+   * @param description a brief description of the recipe
+   * @param procedure the procedure to prepare the recipe
+   * @param ingredients the required quantity per ingredient name
+   * @param serves the number of people the recipe serves
+   */
+  public Recipe(String name, String description, String procedure,
+      Map<String, Double> ingredients, int serves) {
+    this(name, description, procedure, ingredients, serves, Set.of());
+  }
+
+  /**
+   * Constructs a new {@code Recipe} with tags.
+   *
+   * @param name the name of the recipe
+   * @param description a brief description of the recipe
+   * @param procedure the procedure to prepare the recipe
+   * @param ingredients the required quantity per ingredient name
+   * @param serves the number of people the recipe serves
+   * @param tags the tags of the recipe, in any case
+   */
+  public Recipe(String name, String description, String procedure,
+      Map<String, Double> ingredients, int serves, Collection<String> tags) {
+    this.name = name;
+    this.description = description;
+    this.procedure = procedure;
+    this.serves = serves;
+    setIngredients(ingredients);
+    setTags(tags);
+  }
+
+  /**
+   * Replaces the ingredients of the recipe.
+   *
+   * <p>The recipe keeps its own unmodifiable copy of the map. Ingredient names that only differ
+   * in case refer to the same grocery, so their quantities are added up in the compiled form.</p>
+   *
+   * @param ingredients the required quantity per ingredient name
+   */
+  public void setIngredients(Map<String, Double> ingredients) {
+    if (ingredients == null) {
+      this.ingredients = null;
+      this.ingredientIds = new int[0];
+      this.requiredQuantities = new double[0];
+      this.ingredientSignature = 0;
+      return;
+    }
+    Map<Integer, Double> quantitiesPerId = new LinkedHashMap<>();
+    ingredients.forEach((ingredient, quantity) ->
+        quantitiesPerId.merge(SymbolTable.NAMES.idOf(ingredient), quantity, Double::sum));
+
+    int[] ids = new int[quantitiesPerId.size()];
+    double[] quantities = new double[ids.length];
+    int i = 0;
+    for (Map.Entry<Integer, Double> entry : quantitiesPerId.entrySet()) {
+      ids[i] = entry.getKey();
+      quantities[i++] = entry.getValue();
+    }
+    this.ingredients = Collections.unmodifiableMap(new LinkedHashMap<>(ingredients));
+    this.ingredientIds = ids;
+    this.requiredQuantities = quantities;
+    this.ingredientSignature = IngredientSignature.ofRequired(ids, quantities);
+  }
+
+  /**
+   * Returns the number of distinct ingredient names, counting names that only differ in case
+   * once.
+   *
+   * @return the number of compiled ingredients
+   */
+  public int getIngredientCount() {
+    return ingredientIds.length;
+  }
+
+  /**
+   * Returns the name identifier of a compiled ingredient.
+   *
+   * @param index the position of the ingredient, below {@link #getIngredientCount()}
+   * @return the identifier of the ingredient name in {@link SymbolTable#NAMES}
+   */
+  public int getIngredientId(int index) {
+    return ingredientIds[index];
+  }
+
+  /**
+   * Returns the required quantity of a compiled ingredient.
+   *
+   * @param index the position of the ingredient, below {@link #getIngredientCount()}
+   * @return the quantity required, summed over the spellings of the ingredient name
+   */
+  public double getRequiredQuantity(int index) {
+    return requiredQuantities[index];
+  }
+
+  /**
+   * Replaces the tags of the recipe.
+   *
+   * <p>The tags are stored in lowercase, in an unmodifiable set. Like the ingredients, the tags a
+   * cookbook lists the recipe under are the ones it had when it was added.</p>
+   *
+   * @param tags the tags of the recipe, in any case
+   * @throws IllegalArgumentException if {@code tags} or one of the tags is null
+   */
+  public void setTags(Collection<String> tags) {
+    if (tags == null) {
+      throw new IllegalArgumentException("Tags cannot be null");
+    }
+    Set<String> lowercaseTags = new LinkedHashSet<>();
+    for (String tag : tags) {
+      if (tag == null) {
+        throw new IllegalArgumentException("Tags cannot be null");
+      }
+      lowercaseTags.add(tag.toLowerCase());
+    }
+    this.tags = Collections.unmodifiableSet(lowercaseTags);
+  }
+
+  /**
+   * Returns whether the recipe has a tag.
+   *
+   * @param tag the tag, in any case
+   * @return {@code true} if the recipe has the tag
+   */
+  public boolean hasTag(String tag) {
+    return tag != null && tags.contains(tag.toLowerCase());
+  }
+
   /**
    * Returns a string representation of the recipe.
    *
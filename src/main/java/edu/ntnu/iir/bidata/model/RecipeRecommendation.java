@@ -0,0 +1,11 @@
+package edu.ntnu.iir.bidata.model;
+
+/**
+ * A recipe recommended for using up groceries that expire soon.
+ *
+ * @param recipe the recommended recipe
+ * @param wasteScore the value of the lots the recipe would use, each weighted by how soon it
+ *                   expires; higher means more value saved from going to waste
+ */
+public record RecipeRecommendation(Recipe recipe, double wasteScore) {
+}
@@ -0,0 +1,10 @@
+package edu.ntnu.iir.bidata.model;
+
+/**
+ * A recipe found by a text search, with how well it matches the query.
+ *
+ * @param recipe the recipe found
+ * @param score the BM25 score of the recipe for the query; higher means a better match
+ */
+public record RecipeSearchResult(Recipe recipe, double score) {
+}
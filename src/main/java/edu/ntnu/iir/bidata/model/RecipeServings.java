@@ -0,0 +1,13 @@
+package edu.ntnu.iir.bidata.model;
+
+/**
+ * How much of a recipe can be made from the available groceries.
+ *
+ * @param recipe the recipe
+ * @param batches how many times the recipe can be made, possibly a fraction when it can be
+ *                scaled; {@link Double#POSITIVE_INFINITY} if it needs no ingredients
+ * @param servings how many people the recipe can serve, that is {@code batches} times
+ *                 {@link Recipe#getServes()}
+ */
+public record RecipeServings(Recipe recipe, double batches, double servings) {
+}
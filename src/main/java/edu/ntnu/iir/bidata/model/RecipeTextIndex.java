@@ -0,0 +1,309 @@
+package edu.ntnu.iir.bidata.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * An inverted index of the words in the name, description and procedure of recipes, ranking
+ * matches with BM25.
+ *
+ * <p>Text is split into words at every character that is not a letter or digit, and the words
+ * are folded to lowercase. Each word maps to a posting list of the documents containing it and
+ * how often, so a query only visits the documents sharing a word with it. Words of the name count
+ * twice, which ranks recipes named after a word above those that only mention it.</p>
+ *
+ * <p>Removing a document only marks it as removed. Like deleted documents in a search engine, it
+ * still counts towards the document frequencies and average length until the index is compacted,
+ * which happens once half of the documents are removed; the scores of the remaining documents are
+ * therefore unaffected by a removal until then.</p>
+ *
+ * <p>The index is not thread-safe; the {@link Cookbook} owning it only uses it while holding its
+ * own lock.</p>
+ */
+final class RecipeTextIndex {
+  /** How quickly repeating a word stops raising the score. */
+  private static final double K1 = 1.2;
+
+  /** How much the score is normalized by the length of the document. */
+  private static final double B = 0.75;
+
+  private final Map<String, Postings> postingsPerWord = new HashMap<>();
+
+  /** The document with each identifier, or {@code null} once it is removed. */
+  private Document[] documents = new Document[16];
+
+  /** The length of each document in words, or {@code -1} once it is removed. */
+  private int[] lengths = new int[16];
+
+  /** The score of each document during a query; zero for documents not matched yet. */
+  private double[] scores = new double[16];
+
+  /** The documents matched during a query, so their scores can be cleared afterwards. */
+  private int[] matched = new int[16];
+
+  private int documentCount;
+  private int removedDocuments;
+  private long totalLength;
+
+  /**
+   * Indexes the words of a recipe.
+   *
+   * @param recipe the recipe
+   * @param sequence the position of the recipe in the cookbook, used to break ties
+   * @return the document of the recipe, to remove it by
+   */
+  Document add(Recipe recipe, long sequence) {
+    Map<String, Integer> frequencies = new HashMap<>();
+    int length = countWords(recipe.getName(), 2, frequencies)
+        + countWords(recipe.getDescription(), 1, frequencies)
+        + countWords(recipe.getProcedure(), 1, frequencies);
+    if (documentCount == documents.length) {
+      int capacity = documents.length * 2;
+      documents = Arrays.copyOf(documents, capacity);
+      lengths = Arrays.copyOf(lengths, capacity);
+      scores = Arrays.copyOf(scores, capacity);
+      matched = Arrays.copyOf(matched, capacity);
+    }
+    Document document = new Document(recipe, sequence, documentCount++);
+    documents[document.id] = document;
+    lengths[document.id] = length;
+    totalLength += length;
+    for (Map.Entry<String, Integer> frequency : frequencies.entrySet()) {
+      postingsPerWord.computeIfAbsent(frequency.getKey(), word -> new Postings())
+          .add(document.id, frequency.getValue());
+    }
+    return document;
+  }
+
+  /**
+   * Removes a document from the results of later queries.
+   *
+   * @param document the document returned by {@link #add(Recipe, long)}
+   */
+  void remove(Document document) {
+    documents[document.id] = null;
+    lengths[document.id] = -1;
+    if (++removedDocuments > documentCount / 2) {
+      compact();
+    }
+  }
+
+  /**
+   * Finds the recipes best matching the words of a query.
+   *
+   * <p>The posting list of each distinct query word is walked once, adding the BM25 score of the
+   * word to every document containing it. The best documents are then kept in a heap of at most
+   * {@code count} entries.</p>
+   *
+   * @param query the words to search for
+   * @param count the maximum number of recipes to return
+   * @return the best matching recipes, highest score first; recipes added to the cookbook earlier
+   *         win ties
+   */
+  List<RecipeSearchResult> search(String query, int count) {
+    Set<String> words = new LinkedHashSet<>();
+    for (Iterator<String> it = new WordIterator(query); it.hasNext(); ) {
+      words.add(it.next());
+    }
+    double averageLength = documentCount == 0 ? 0 : (double) totalLength / documentCount;
+    double lengthWeight = averageLength == 0 ? 0 : K1 * B / averageLength;
+    double baseNorm = K1 * (1 - B);
+
+    int matchedCount = 0;
+    for (String word : words) {
+      Postings postings = postingsPerWord.get(word);
+      if (postings == null) {
+        continue;
+      }
+      double idf = Math.log(1 + (documentCount - postings.size + 0.5) / (postings.size + 0.5));
+      for (int i = 0; i < postings.size; i++) {
+        int id = postings.documents[i];
+        int length = lengths[id];
+        if (length < 0) {
+          continue;
+        }
+        int frequency = postings.frequencies[i];
+        double score = idf * frequency * (K1 + 1)
+            / (frequency + baseNorm + lengthWeight * length);
+        if (scores[id] == 0) {
+          matched[matchedCount++] = id;
+        }
+        scores[id] += score;
+      }
+    }
+
+    // The head of the heap is the weakest of the best documents found so far
+    Comparator<Document> weakestFirst = Comparator.<Document>comparingDouble(
+        document -> scores[document.id]).thenComparing(
+        Comparator.<Document>comparingLong(document -> document.sequence).reversed());
+    PriorityQueue<Document> best = new PriorityQueue<>(Math.min(count, matchedCount) + 1,
+        weakestFirst);
+    double threshold = Double.NEGATIVE_INFINITY;
+    for (int i = 0; i < matchedCount; i++) {
+      int id = matched[i];
+      if (scores[id] < threshold) {
+        // Most documents are rejected here, without loading them
+        continue;
+      }
+      Document document = documents[id];
+      if (best.size() < count) {
+        best.add(document);
+      } else if (weakestFirst.compare(document, best.peek()) > 0) {
+        best.poll();
+        best.add(document);
+      } else {
+        continue;
+      }
+      if (best.size() == count) {
+        threshold = scores[best.peek().id];
+      }
+    }
+    Document[] ranked = best.toArray(new Document[0]);
+    Arrays.sort(ranked, weakestFirst.reversed());
+    List<RecipeSearchResult> results = new ArrayList<>(ranked.length);
+    for (Document document : ranked) {
+      results.add(new RecipeSearchResult(document.recipe, scores[document.id]));
+    }
+
+    for (int i = 0; i < matchedCount; i++) {
+      scores[matched[i]] = 0;
+    }
+    return results;
+  }
+
+  /**
+   * Drops the removed documents and numbers the remaining ones from zero, keeping their order.
+   */
+  private void compact() {
+    int[] newIds = new int[documentCount];
+    int liveCount = 0;
+    totalLength = 0;
+    for (int id = 0; id < documentCount; id++) {
+      Document document = documents[id];
+      if (document == null) {
+        newIds[id] = -1;
+        continue;
+      }
+      newIds[id] = liveCount;
+      document.id = liveCount;
+      documents[liveCount] = document;
+      lengths[liveCount] = lengths[id];
+      totalLength += lengths[id];
+      liveCount++;
+    }
+    Arrays.fill(documents, liveCount, documentCount, null);
+    documentCount = liveCount;
+    removedDocuments = 0;
+    postingsPerWord.values().removeIf(postings -> postings.renumber(newIds) == 0);
+  }
+
+  /** Adds the words of a text to their frequencies, and returns the number of words counted. */
+  private static int countWords(String text, int weight, Map<String, Integer> frequencies) {
+    int words = 0;
+    for (Iterator<String> it = new WordIterator(text); it.hasNext(); ) {
+      frequencies.merge(it.next(), weight, Integer::sum);
+      words += weight;
+    }
+    return words;
+  }
+
+  /**
+   * The words of a text in lowercase, split at every character that is not a letter or digit.
+   */
+  private static final class WordIterator implements Iterator<String> {
+    private final String text;
+    private int position;
+
+    private WordIterator(String text) {
+      this.text = text == null ? "" : text;
+      skipSeparators();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return position < text.length();
+    }
+
+    @Override
+    public String next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      StringBuilder word = new StringBuilder();
+      while (position < text.length()) {
+        int codePoint = text.codePointAt(position);
+        if (!Character.isLetterOrDigit(codePoint)) {
+          break;
+        }
+        word.appendCodePoint(Character.toLowerCase(codePoint));
+        position += Character.charCount(codePoint);
+      }
+      skipSeparators();
+      return word.toString();
+    }
+
+    private void skipSeparators() {
+      while (position < text.length()) {
+        int codePoint = text.codePointAt(position);
+        if (Character.isLetterOrDigit(codePoint)) {
+          return;
+        }
+        position += Character.charCount(codePoint);
+      }
+    }
+  }
+
+  /** An indexed recipe. Its identifier changes when the index is compacted. */
+  static final class Document {
+    private final Recipe recipe;
+    private final long sequence;
+    private int id;
+
+    private Document(Recipe recipe, long sequence, int id) {
+      this.recipe = recipe;
+      this.sequence = sequence;
+      this.id = id;
+    }
+  }
+
+  /** The documents containing a word, in the order they were added, with the word frequency. */
+  private static final class Postings {
+    private int[] documents = new int[2];
+    private int[] frequencies = new int[2];
+    private int size;
+
+    private void add(int id, int frequency) {
+      if (size == documents.length) {
+        documents = Arrays.copyOf(documents, size * 2);
+        frequencies = Arrays.copyOf(frequencies, size * 2);
+      }
+      documents[size] = id;
+      frequencies[size] = frequency;
+      size++;
+    }
+
+    /** Drops the removed documents and renumbers the rest, returning the new size. */
+    private int renumber(int[] newIds) {
+      int kept = 0;
+      for (int i = 0; i < size; i++) {
+        int id = newIds[documents[i]];
+        if (id >= 0) {
+          documents[kept] = id;
+          frequencies[kept] = frequencies[i];
+          kept++;
+        }
+      }
+      size = kept;
+      return size;
+    }
+  }
+}
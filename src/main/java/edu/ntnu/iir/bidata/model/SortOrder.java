@@ -0,0 +1,11 @@
+package edu.ntnu.iir.bidata.model;
+
+/**
+ * The orders in which groceries can be listed.
+ */
+public enum SortOrder {
+  /** Alphabetically by name, and by expiry date within a name. */
+  NAME,
+  /** By expiry date, soonest first. */
+  EXPIRY_DATE
+}
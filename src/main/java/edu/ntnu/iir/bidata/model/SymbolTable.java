@@ -0,0 +1,113 @@
+package edu.ntnu.iir.bidata.model;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * A dictionary mapping normalized strings, such as ingredient names and units, to dense integer
+ * identifiers.
+ *
+ * <p>Each distinct normalized string is stored once and gets the next free identifier, starting
+ * at 0. Looking up a normalized string is a single hash lookup; any other spelling is normalized
+ * (for example lowercased) first. Only normalized strings are kept, so the table grows with the
+ * distinct symbols and not with the spellings they are looked up by. Identifiers are never
+ * reused, which makes them suitable as indexes into arrays.</p>
+ *
+ * <p>{@link #NAMES} and {@link #UNITS} are shared by all fridges and cookbooks in the
+ * application, so they hold the names of every household. Arrays that only concern one household
+ * are indexed by a table of its own instead, like the ingredients of a {@link Cookbook}, so their
+ * size follows the names the household uses. The tables are safe to use from several
+ * threads.</p>
+ */
+public class SymbolTable {
+  /** Grocery and ingredient names, normalized to lowercase. */
+  public static final SymbolTable NAMES = new SymbolTable(String::toLowerCase);
+  /** Units of measurement, kept as written. */
+  public static final SymbolTable UNITS = new SymbolTable(UnaryOperator.identity());
+
+  private final UnaryOperator<String> normalizer;
+  /** Identifiers per normalized string. */
+  private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+  private volatile String[] symbols = new String[64];
+  private volatile int size;
+
+  /**
+   * Constructs a new, empty {@code SymbolTable}.
+   *
+   * @param normalizer the function turning a spelling into its normalized form
+   */
+  public SymbolTable(UnaryOperator<String> normalizer) {
+    this.normalizer = normalizer;
+  }
+
+  /**
+   * Returns the identifier of a string, registering it if it has not been seen before.
+   *
+   * @param text the string to look up
+   * @return the identifier of the normalized string
+   */
+  public int idOf(String text) {
+    int id = findId(text);
+    return id >= 0 ? id : register(text);
+  }
+
+  /**
+   * Returns the identifier of a string without registering it.
+   *
+   * @param text the string to look up
+   * @return the identifier of the normalized string, or {@code -1} if it is unknown
+   */
+  public int findId(String text) {
+    // Most strings are looked up already normalized, which needs no normalization
+    Integer id = ids.get(text);
+    if (id == null) {
+      id = ids.get(normalizer.apply(text));
+    }
+    return id != null ? id : -1;
+  }
+
+  /**
+   * Returns the normalized string with the given identifier.
+   *
+   * @param id the identifier
+   * @return the normalized string
+   * @throws IllegalArgumentException if the identifier is unknown
+   */
+  public String symbolOf(int id) {
+    String[] current = symbols;
+    if (id < 0 || id >= current.length || current[id] == null) {
+      throw new IllegalArgumentException("Unknown symbol id: " + id);
+    }
+    return current[id];
+  }
+
+  /**
+   * Returns the number of distinct normalized strings, which is one more than the highest
+   * identifier handed out.
+   *
+   * @return the number of symbols
+   */
+  public int size() {
+    return size;
+  }
+
+  private synchronized int register(String text) {
+    String normalized = normalizer.apply(text);
+    Integer id = ids.get(normalized);
+    if (id == null) {
+      id = size;
+      String[] current = symbols;
+      if (id == current.length) {
+        current = Arrays.copyOf(current, current.length * 2);
+      }
+      current[id] = normalized;
+      // Publish the symbol before the identifier can be seen through size() or the map
+      symbols = current;
+      size = id + 1;
+      ids.put(normalized, id);
+    }
+    return id;
+  }
+}
@@ -0,0 +1,311 @@
+package edu.ntnu.iir.bidata.services;
+
+import edu.ntnu.iir.bidata.model.ColumnarFridge;
+import edu.ntnu.iir.bidata.model.Grocery;
+import edu.ntnu.iir.bidata.model.GroceryPage;
+import edu.ntnu.iir.bidata.model.LotConsumption;
+import edu.ntnu.iir.bidata.model.QuantityListener;
+import edu.ntnu.iir.bidata.model.SortOrder;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Service class for managing very large inventories stored in a {@link ColumnarFridge}.
+ *
+ * <p>Offers the same {@link GroceryStore} operations as {@link FridgeService}, with the same
+ * merging and first-expiry-first-out rules and the same page tokens. The groceries returned are
+ * copies of the stored lots, so changing their quantity does not change the fridge; use
+ * {@link #addGrocery(Grocery)} and {@link #removeGrocery(String, double)} instead.</p>
+ */
+public class ColumnarFridgeService implements GroceryStore {
+  private final ColumnarFridge fridge;
+
+  /**
+   * Constructs a new {@code ColumnarFridgeService} with the specified fridge.
+   *
+   * @param fridge the fridge to be used
+   */
+  public ColumnarFridgeService(ColumnarFridge fridge) {
+    this.fridge = fridge;
+  }
+
+  /**
+   * Constructs a new {@code ColumnarFridgeService} with a new, empty fridge.
+   */
+  public ColumnarFridgeService() {
+    this(new ColumnarFridge());
+  }
+
+  /**
+   * Adds a grocery item to the food storage.
+   *
+   * <p>The quantities are combined with an existing lot if the name, unit, price per unit and
+   * expiry date match. Otherwise, the grocery is stored as a new lot.</p>
+   *
+   * @param grocery the grocery item to be added
+   */
+  @Override
+  public void addGrocery(Grocery grocery) {
+    fridge.add(grocery);
+  }
+
+  /**
+   * Adds several grocery items to the food storage at once, for example all lines of a receipt.
+   *
+   * @param groceries the grocery items to be added
+   * @throws IllegalArgumentException if {@code groceries} is null
+   */
+  @Override
+  public void addGroceries(Collection<Grocery> groceries) {
+    if (groceries == null) {
+      throw new IllegalArgumentException("The groceries parameter cannot be null");
+    }
+    fridge.addAll(groceries);
+  }
+
+  /**
+   * Removes a specified quantity of a grocery item from the food storage.
+   *
+   * <p>The lots expiring first are used up first (first-expiry-first-out).</p>
+   *
+   * @param name the name of the grocery item to be removed
+   * @param quantity the quantity to be removed
+   * @return {@code true} if the specified quantity was removed successfully,{@code false}otherwise
+   */
+  @Override
+  public boolean removeGrocery(String name, double quantity) {
+    return fridge.consume(name, quantity) != null;
+  }
+
+  /**
+   * Consumes a specified quantity of a grocery item, using up the lots expiring first.
+   *
+   * <p>Nothing is consumed unless the full quantity is available.</p>
+   *
+   * @param name the name of the grocery item to consume
+   * @param quantity the quantity to consume
+   * @return the lots that were consumed from, soonest expiring first, or an empty list if the
+   *         grocery is not stored or the quantity is not available
+   */
+  @Override
+  public List<LotConsumption> consumeGrocery(String name, double quantity) {
+    List<LotConsumption> consumedLots = fridge.consume(name, quantity);
+    return consumedLots == null ? List.of() : consumedLots;
+  }
+
+  /**
+   * Retrieves all groceries stored in the fridge, including expired ones.
+   *
+   * @return a list of all grocery items in the fridge
+   */
+  @Override
+  public List<Grocery> getAllGroceries() {
+    return fridge.getGroceries();
+  }
+
+  /**
+   * Retrieves all groceries sorted by name, and by expiry date within a name.
+   *
+   * @return a list of groceries sorted by name
+   */
+  @Override
+  public List<Grocery> getGroceriesSortedByName() {
+    return fridge.getGroceriesSortedByName();
+  }
+
+  /**
+   * Retrieves all groceries sorted by expiry date.
+   *
+   * @return a list of groceries sorted by expiry date
+   */
+  @Override
+  public List<Grocery> getGroceriesSortedByExpiryDate() {
+    return fridge.getGroceriesSortedByExpiryDate();
+  }
+
+  /**
+   * Retrieves one page of all groceries in the given order.
+   *
+   * <p>Start with a {@code null} token and pass the {@link GroceryPage#nextPageToken()} of each
+   * page to get the next one. The token holds the position of the last grocery shown, and the
+   * next page starts strictly after it, so groceries consumed or removed between pages never
+   * make other groceries be skipped or repeated. Each page takes one scan of the columns.</p>
+   *
+   * @param order the order to list the groceries in
+   * @param pageSize the maximum number of groceries per page
+   * @param pageToken the token of the page to get, or {@code null} for the first page
+   * @return the page of groceries
+   * @throws IllegalArgumentException if {@code order} is null, {@code pageSize} is not positive
+   *                                  or {@code pageToken} was not created for {@code order}
+   */
+  @Override
+  public GroceryPage getGroceryPage(SortOrder order, int pageSize, String pageToken) {
+    if (order == null) {
+      throw new IllegalArgumentException("The order parameter cannot be null");
+    }
+    if (pageSize <= 0) {
+      throw new IllegalArgumentException("Page size must be positive");
+    }
+    PagePosition after = PagePosition.parse(order, pageToken);
+
+    // One grocery more than asked for tells whether there is another page
+    List<Grocery> groceries = order == SortOrder.NAME
+        ? fridge.getGroceriesByName(after.name(), after.expiryDate(), after.sequence(),
+            pageSize + 1)
+        : fridge.getGroceriesByExpiryDate(after.expiryDate(), after.sequence(), pageSize + 1);
+    return PagePosition.pageOf(order, groceries, pageSize);
+  }
+
+  /**
+   * Retrieves all expired groceries from the fridge.
+   *
+   * @return a list of expired grocery items, ordered by expiry date
+   */
+  @Override
+  public List<Grocery> getExpiredGroceries() {
+    return fridge.getGroceriesExpiringBefore(LocalDate.now());
+  }
+
+  /**
+   * Retrieves all groceries that expire today or within the given number of days.
+   *
+   * @param days the number of days ahead to look
+   * @return a list of grocery items expiring within the period, ordered by expiry date
+   * @throws IllegalArgumentException if {@code days} is negative
+   */
+  @Override
+  public List<Grocery> getGroceriesExpiringWithin(int days) {
+    if (days < 0) {
+      throw new IllegalArgumentException("Number of days cannot be negative");
+    }
+    LocalDate today = LocalDate.now();
+    return fridge.getGroceriesExpiringBetween(today, today.plusDays(days));
+  }
+
+  /**
+   * Retrieves all groceries expiring between two dates, both inclusive.
+   *
+   * @param from the first expiry date to include
+   * @param to the last expiry date to include
+   * @return a list of grocery items expiring within the period, ordered by expiry date
+   * @throws IllegalArgumentException if {@code from} or {@code to} is null
+   */
+  @Override
+  public List<Grocery> getGroceriesExpiringBetween(LocalDate from, LocalDate to) {
+    if (from == null || to == null) {
+      throw new IllegalArgumentException("Dates cannot be null");
+    }
+    return fridge.getGroceriesExpiringBetween(from, to);
+  }
+
+  /**
+   * Retrieves the groceries that expire next, starting today.
+   *
+   * @param count the maximum number of groceries to retrieve
+   * @return up to {@code count} non-expired grocery items, ordered by expiry date
+   * @throws IllegalArgumentException if {@code count} is negative
+   */
+  @Override
+  public List<Grocery> getGroceriesExpiringNext(int count) {
+    if (count < 0) {
+      throw new IllegalArgumentException("Count cannot be negative");
+    }
+    // Every lot expiring today or later lies after the last position of yesterday
+    return fridge.getGroceriesByExpiryDate(LocalDate.now().minusDays(1), Long.MAX_VALUE, count);
+  }
+
+  /**
+   * Registers a listener to be told whenever the total quantity of a grocery changes.
+   *
+   * @param listener the listener to register, first told the current total of every grocery
+   * @throws IllegalArgumentException if {@code listener} is null
+   */
+  @Override
+  public void addQuantityListener(QuantityListener listener) {
+    if (listener == null) {
+      throw new IllegalArgumentException("Listener cannot be null");
+    }
+    fridge.addQuantityListener(listener);
+  }
+
+  /**
+   * Calculates the total value of all groceries stored in the fridge.
+   *
+   * @return the total value of all grocery items
+   */
+  @Override
+  public double calculateTotalValue() {
+    return fridge.getTotalValue();
+  }
+
+  /**
+   * Calculates the total value of all groceries with the given name.
+   *
+   * @param name the name of the grocery items
+   * @return the total value of all lots with the given name
+   * @throws IllegalArgumentException if the {@code name} parameter is null
+   */
+  @Override
+  public double calculateTotalValue(String name) {
+    if (name == null) {
+      throw new IllegalArgumentException("The name parameter cannot be null");
+    }
+    return fridge.getTotalValue(name.toLowerCase());
+  }
+
+  /**
+   * Calculates the total value of all expired groceries stored in the fridge.
+   *
+   * @return the total value of all expired grocery items
+   */
+  @Override
+  public double calculateTotalValueOfExpiredGroceries() {
+    return fridge.getTotalValueExpiringBefore(LocalDate.now());
+  }
+
+  /**
+   * Retrieves all groceries with the specified name, matched case-insensitively.
+   *
+   * @param name the name of the grocery items to retrieve
+   * @return a list of grocery items with the specified name, ordered by expiry date
+   * @throws IllegalArgumentException if the {@code name} parameter is null
+   */
+  @Override
+  public List<Grocery> findGroceriesByName(String name) {
+    if (name == null) {
+      throw new IllegalArgumentException("The name parameter cannot be null");
+    }
+    return fridge.getGroceries(name.toLowerCase());
+  }
+
+  /**
+   * Retrieves all groceries whose name starts with the specified prefix.
+   *
+   * @param prefix the prefix to look for, case-insensitive
+   * @return a list of matching grocery items, ordered by name
+   * @throws IllegalArgumentException if the {@code prefix} parameter is null
+   */
+  @Override
+  public List<Grocery> findGroceriesByNamePrefix(String prefix) {
+    if (prefix == null) {
+      throw new IllegalArgumentException("The prefix parameter cannot be null");
+    }
+    return fridge.getGroceries(fridge.getNamesStartingWith(prefix.toLowerCase()));
+  }
+
+  /**
+   * Retrieves all groceries whose name contains the specified text.
+   *
+   * @param text the text to look for, case-insensitive
+   * @return a list of matching grocery items, ordered by name
+   * @throws IllegalArgumentException if the {@code text} parameter is null
+   */
+  @Override
+  public List<Grocery> findGroceriesByNameContaining(String text) {
+    if (text == null) {
+      throw new IllegalArgumentException("The text parameter cannot be null");
+    }
+    return fridge.getGroceries(fridge.getNamesContaining(text.toLowerCase()));
+  }
+}
@@ -0,0 +1,180 @@
+package edu.ntnu.iir.bidata.services;
+
+import edu.ntnu.iir.bidata.model.Grocery;
+import edu.ntnu.iir.bidata.model.SymbolTable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Lots laid out per grocery name, with the lots of each name next to each other and ordered by
+ * expiry date, soonest first.
+ *
+ * <p>The lots are ordered once by expiry day, as packed primitive keys, and then placed by name
+ * in that order, so every name ends up ordered without a comparator sort per name. Lots of a name
+ * expiring on the same day keep the order they were given in, which is the order
+ * {@link FridgeService#consumeGrocery(String, double)} uses them in.</p>
+ *
+ * <p>Each distinct name among the lots has a slot, numbered from 0 in the order of the name
+ * identifiers, so arrays per slot are sized by the names of the household and not by every name
+ * in {@link SymbolTable#NAMES}. The lots of a slot are the positions from {@link #start(int)} up
+ * to {@link #end(int)}. Both {@link WasteProfile} and {@link MealPlanner} read the lots this
+ * way.</p>
+ */
+final class ExpiryLayout {
+  /** The name identifier of each slot, in ascending order. */
+  private final int[] slotNames;
+  /** The first lot of each slot, and one past the last in the next slot. */
+  private final int[] start;
+  private final Grocery[] lots;
+  private final long[] expiryDays;
+
+  private ExpiryLayout(int[] slotNames, int[] start, Grocery[] lots, long[] expiryDays) {
+    this.slotNames = slotNames;
+    this.start = start;
+    this.lots = lots;
+    this.expiryDays = expiryDays;
+  }
+
+  /**
+   * Lays out the lots that expire on or after the given day.
+   *
+   * @param groceries the lots, in any order
+   * @param firstDay the first expiry day to include, as an epoch day
+   * @return the layout of the included lots
+   */
+  static ExpiryLayout of(List<Grocery> groceries, long firstDay) {
+    // Days after the first day in the high half, position in the low half, so sorting orders by
+    // expiry day and keeps the given order within a day
+    long[] keys = new long[groceries.size()];
+    int[] names = new int[groceries.size()];
+    int included = 0;
+    for (int position = 0; position < keys.length; position++) {
+      Grocery grocery = groceries.get(position);
+      long daysLeft = grocery.getExpiryDate().toEpochDay() - firstDay;
+      if (daysLeft >= 0) {
+        keys[included] = daysLeft << 32 | position;
+        names[included++] = grocery.getNameId();
+      }
+    }
+    Arrays.sort(keys, 0, included);
+
+    // The distinct names become the slots
+    Arrays.sort(names, 0, included);
+    int slots = 0;
+    for (int i = 0; i < included; i++) {
+      if (slots == 0 || names[slots - 1] != names[i]) {
+        names[slots++] = names[i];
+      }
+    }
+    int[] slotNames = Arrays.copyOf(names, slots);
+    int[] slotPerLot = new int[included];
+    int[] start = new int[slots + 1];
+    for (int i = 0; i < included; i++) {
+      slotPerLot[i] = Arrays.binarySearch(slotNames,
+          groceries.get((int) keys[i]).getNameId());
+      start[slotPerLot[i] + 1]++;
+    }
+    for (int slot = 0; slot < slots; slot++) {
+      start[slot + 1] += start[slot];
+    }
+
+    // Place the lots of each slot next to each other, keeping the expiry order
+    Grocery[] lots = new Grocery[included];
+    long[] expiryDays = new long[included];
+    int[] next = Arrays.copyOf(start, slots);
+    for (int i = 0; i < included; i++) {
+      int lot = next[slotPerLot[i]]++;
+      lots[lot] = groceries.get((int) keys[i]);
+      expiryDays[lot] = firstDay + (keys[i] >>> 32);
+    }
+    return new ExpiryLayout(slotNames, start, lots, expiryDays);
+  }
+
+  /**
+   * Returns the slot of a grocery name.
+   *
+   * @param nameId the name identifier in {@link SymbolTable#NAMES}
+   * @return the slot of the name, or {@code -1} if the name has no lots in the layout
+   */
+  int slotOf(int nameId) {
+    return Math.max(Arrays.binarySearch(slotNames, nameId), -1);
+  }
+
+  /**
+   * Returns the number of slots; every slot is below this number.
+   *
+   * @return the number of distinct names among the lots
+   */
+  int slotCount() {
+    return slotNames.length;
+  }
+
+  /**
+   * Returns the name identifier of a slot.
+   *
+   * @param slot the slot
+   * @return the name identifier in {@link SymbolTable#NAMES}
+   */
+  int nameIdOf(int slot) {
+    return slotNames[slot];
+  }
+
+  /**
+   * Returns the position of the first lot of a slot.
+   *
+   * @param slot the slot
+   * @return the position of the soonest expiring lot of the slot
+   */
+  int start(int slot) {
+    return start[slot];
+  }
+
+  /**
+   * Returns one past the position of the last lot of a slot.
+   *
+   * @param slot the slot
+   * @return the position after the latest expiring lot of the slot
+   */
+  int end(int slot) {
+    return start[slot + 1];
+  }
+
+  /**
+   * Returns the number of lots in the layout.
+   *
+   * @return the number of lots
+   */
+  int size() {
+    return lots.length;
+  }
+
+  /**
+   * Returns the lots in the layout.
+   *
+   * @return an unmodifiable list of the lots, by slot and then by expiry date
+   */
+  List<Grocery> lots() {
+    return Collections.unmodifiableList(Arrays.asList(lots));
+  }
+
+  /**
+   * Returns the lot at a position.
+   *
+   * @param lot the position of the lot
+   * @return the lot
+   */
+  Grocery lot(int lot) {
+    return lots[lot];
+  }
+
+  /**
+   * Returns the expiry day of the lot at a position.
+   *
+   * @param lot the position of the lot
+   * @return the expiry date of the lot as an epoch day
+   */
+  long expiryDay(int lot) {
+    return expiryDays[lot];
+  }
+}
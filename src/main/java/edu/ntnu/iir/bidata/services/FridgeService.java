@@ -2,110 +2,274 @@ package edu.ntnu.iir.bidata.services;
 
 import edu.ntnu.iir.bidata.model.Fridge;
 import edu.ntnu.iir.bidata.model.Grocery;
+import edu.ntnu.iir.bidata.model.GroceryPage;
+import edu.ntnu.iir.bidata.model.LotKey;
+import edu.ntnu.iir.bidata.model.LotConsumption;
+import edu.ntnu.iir.bidata.model.QuantityListener;
+import edu.ntnu.iir.bidata.model.SortOrder;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
-/** Service class for managing groceries and food storage in a fridge. */
-public class FridgeService {
-  private static Fridge fridge;
-
-  private static GroceryService groceryService;
+/**
+ * Service class for managing groceries and food storage in a fridge.
+ *
+ * <p>All changes to the groceries of one name are made inside a single
+ * {@code compute} call on the fridge map, so the service can be used from several threads at
+ * once.</p>
+ *
+ * <p>Each instance manages its own fridge, so several households can be served side by side
+ * (see {@link HouseholdRegistry}).</p>
+ */
+public class FridgeService implements GroceryStore {
+  private final Fridge fridge;
 
   /**
-   * Constructs a new {@code FridgeService} with the specified fridge and grocery service.
+   * Constructs a new {@code FridgeService} with the specified fridge.
    *
    * @param mockFridge the fridge to be used
-   * @param mockGroceryService the grocery service to be used
    */
-  public FridgeService(Fridge mockFridge, GroceryService mockGroceryService) {
+  public FridgeService(Fridge mockFridge) {
     this.fridge = mockFridge;
-    this.groceryService = mockGroceryService;
   }
 
   /**
-   * Constructs a new {@code FridgeService} with a new fridge and grocery service.
+   * Constructs a new {@code FridgeService} with a new fridge.
    */
   public FridgeService() {
-    fridge = new Fridge();
-    groceryService = new GroceryService();
+    this(new Fridge());
   }
 
   /**
    * Adds a grocery item to the food storage.
    *
    * <p>If the same grocery item is added multiple times, it is merged with an existing entry
-   * based on the expiry date. Their quantities are combined if the expiry dates match.
-   * Otherwise, they are treated as separate entries.</p>
+   * based on the expiry date. Their quantities are combined if the name, unit, price per unit and
+   * expiry date match. Otherwise, they are treated as separate entries.</p>
+   *
+   * <p>The matching entry is looked up through the lot index of the fridge in constant time, so
+   * merging into an existing entry does not depend on how many lots share the name. New entries
+   * are inserted so that the lots of each grocery stay ordered by expiry date. The lots of a name
+   * are kept in a copy-on-write list, which lets readers iterate a snapshot without locking, so
+   * inserting a new entry copies the list and takes time proportional to the number of lots
+   * sharing the name. {@code FridgeServiceBenchmark} measures this for receipts spread over many
+   * lots per name.</p>
    *
    * @param grocery the grocery item to be added
    */
-  public static void addGrocery(Grocery grocery) {
-    ArrayList<Grocery> groceryToBeAdded = new ArrayList<>();
-    groceryToBeAdded.add(grocery);
+  @Override
+  public void addGrocery(Grocery grocery) {
     fridge
         .getGroceriesPerCategory()
-        .merge(
-            grocery.getName(),
-            groceryToBeAdded,
-            (existing, newGrocery) -> {
-              Optional<Grocery> existingGrocery =
-                  existing.stream()
-                      .filter(g -> groceryService.areGroceriesClubbable(g, grocery))
-                      .findFirst();
-
-              if (existingGrocery.isPresent()) {
-                existingGrocery
-                    .get()
-                    .setQuantity(existingGrocery.get().getQuantity() + grocery.getQuantity());
-              } else {
-                existing.addAll(newGrocery);
-              }
-              return existing;
-            });
+        .compute(grocery.getName(), (name, lots) -> {
+          Grocery existingGrocery = fridge.findLot(grocery);
+          if (existingGrocery != null) {
+            existingGrocery.setQuantity(existingGrocery.getQuantity() + grocery.getQuantity());
+            return lots;
+          }
+          List<Grocery> groceries = lots != null ? lots : new CopyOnWriteArrayList<>();
+          groceries.add(insertionPoint(groceries, grocery.getExpiryDate()), grocery);
+          fridge.indexGrocery(grocery);
+          return groceries;
+        });
+    fridge.deliverQuantityChanges();
   }
 
   /**
-   * Removes a specified quantity of a grocery item from the food storage.
+   * Adds several grocery items to the food storage at once, for example all lines of a receipt.
    *
-   * @param name the name of the grocery item to be removed
-   * @param quantity the quantity to be removed
-   * @return {@code true} if the specified quantity was removed successfully,{@code false}otherwise
+   * <p>The result is the same as calling {@link #addGrocery(Grocery)} for each item, but the
+   * items are first grouped by name and lot in a single pass. The lots of each name are then
+   * merged in one step: the list of the name is rebuilt once and the new lots are indexed by the
+   * fridge together, so a name costs one copy of its lots per call instead of one per new lot.</p>
+   *
+   * @param groceries the grocery items to be added
+   * @throws IllegalArgumentException if {@code groceries} is null
    */
-  public static boolean removeGrocery(String name, double quantity) {
-    List<Grocery> groceries = fridge.getGroceriesPerCategory().get(name);
+  @Override
+  public void addGroceries(Collection<Grocery> groceries) {
     if (groceries == null) {
-      return false;
+      throw new IllegalArgumentException("The groceries parameter cannot be null");
     }
-
-    // Calculate total quantity of the groceries
-    double totalQuantity = groceries.stream().map(Grocery::getQuantity).reduce(0.0, Double::sum);
-    if (totalQuantity < quantity) {
-      return false;
+    // Insertion ordered, so lots expiring on the same day keep the order they were given in
+    Map<String, Map<LotKey, Grocery>> lotsPerName = new LinkedHashMap<>();
+    for (Grocery grocery : groceries) {
+      lotsPerName
+          .computeIfAbsent(grocery.getName(), name -> new LinkedHashMap<>())
+          .merge(LotKey.of(grocery), grocery, (first, next) -> {
+            first.setQuantity(first.getQuantity() + next.getQuantity());
+            return first;
+          });
     }
 
-    // Remove the specified quantity
-    double remainingQuantity = quantity;
-    Iterator<Grocery> iterator = groceries.iterator();
-    while (iterator.hasNext() && remainingQuantity > 0) {
-      Grocery grocery = iterator.next();
-      double groceryQuantity = grocery.getQuantity();
-      if (groceryQuantity <= remainingQuantity) {
-        remainingQuantity -= groceryQuantity;
-        iterator.remove();
+    lotsPerName.forEach((name, lots) -> fridge
+        .getGroceriesPerCategory()
+        .compute(name, (key, storedLots) -> {
+          List<Grocery> newLots = new ArrayList<>();
+          for (Map.Entry<LotKey, Grocery> lot : lots.entrySet()) {
+            Grocery grocery = lot.getValue();
+            Grocery existingGrocery = fridge.findLot(lot.getKey());
+            if (existingGrocery != null) {
+              existingGrocery.setQuantity(existingGrocery.getQuantity() + grocery.getQuantity());
+            } else {
+              newLots.add(grocery);
+            }
+          }
+          if (newLots.isEmpty()) {
+            return storedLots;
+          }
+          newLots.sort(Comparator.comparing(Grocery::getExpiryDate));
+          fridge.indexGroceries(newLots);
+          if (storedLots != null && newLots.size() == 1) {
+            // A single insert copies the list once, just like a rebuild would
+            Grocery newLot = newLots.get(0);
+            storedLots.add(insertionPoint(storedLots, newLot.getExpiryDate()), newLot);
+            return storedLots;
+          }
+          return new CopyOnWriteArrayList<>(mergeByExpiry(storedLots, newLots));
+        }));
+    fridge.deliverQuantityChanges();
+  }
+
+  /**
+   * Merges two lists of lots ordered by expiry date into one ordered list.
+   *
+   * @param storedLots the lots already stored, or {@code null} if there are none
+   * @param newLots the lots being added
+   * @return a new list with all lots, ordered by expiry date
+   */
+  private static List<Grocery> mergeByExpiry(List<Grocery> storedLots, List<Grocery> newLots) {
+    if (storedLots == null || storedLots.isEmpty()) {
+      return newLots;
+    }
+    List<Grocery> merged = new ArrayList<>(storedLots.size() + newLots.size());
+    int stored = 0;
+    int added = 0;
+    while (stored < storedLots.size() && added < newLots.size()) {
+      Grocery storedLot = storedLots.get(stored);
+      Grocery newLot = newLots.get(added);
+      if (newLot.getExpiryDate().isBefore(storedLot.getExpiryDate())) {
+        merged.add(newLot);
+        added++;
       } else {
-        grocery.setQuantity(groceryQuantity - remainingQuantity);
-        remainingQuantity = 0;
+        merged.add(storedLot);
+        stored++;
       }
     }
+    merged.addAll(storedLots.subList(stored, storedLots.size()));
+    merged.addAll(newLots.subList(added, newLots.size()));
+    return merged;
+  }
 
-    if (groceries.isEmpty()) {
-      fridge.getGroceriesPerCategory().remove(name);
+  /**
+   * Finds the position where a lot with the given expiry date belongs in a list ordered by
+   * expiry date, after any lots expiring on the same day.
+   *
+   * @param lots the lots ordered by expiry date
+   * @param expiryDate the expiry date of the lot to insert
+   * @return the index to insert the lot at
+   */
+  private static int insertionPoint(List<Grocery> lots, LocalDate expiryDate) {
+    int low = 0;
+    int high = lots.size();
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (lots.get(middle).getExpiryDate().isAfter(expiryDate)) {
+        high = middle;
+      } else {
+        low = middle + 1;
+      }
     }
-    return true;
+    return low;
+  }
+
+  /**
+   * Removes a specified quantity of a grocery item from the food storage.
+   *
+   * <p>The lots expiring first are used up first (first-expiry-first-out).</p>
+   *
+   * @param name the name of the grocery item to be removed
+   * @param quantity the quantity to be removed
+   * @return {@code true} if the specified quantity was removed successfully,{@code false}otherwise
+   */
+  @Override
+  public boolean removeGrocery(String name, double quantity) {
+    return consume(name, quantity) != null;
+  }
+
+  /**
+   * Consumes a specified quantity of a grocery item, using up the lots expiring first.
+   *
+   * <p>Nothing is consumed unless the full quantity is available.</p>
+   *
+   * @param name the name of the grocery item to consume
+   * @param quantity the quantity to consume
+   * @return the lots that were consumed from, soonest expiring first, or an empty list if the
+   *         grocery is not stored or the quantity is not available
+   */
+  @Override
+  public List<LotConsumption> consumeGrocery(String name, double quantity) {
+    List<LotConsumption> consumedLots = consume(name, quantity);
+    return consumedLots == null ? List.of() : consumedLots;
+  }
+
+  /**
+   * Consumes from the lots of a grocery in a single pass over its expiry ordered list.
+   *
+   * <p>The whole operation runs while holding the name in the fridge, so concurrent
+   * consumers and suppliers of the same grocery are applied one at a time. Whether enough is
+   * available is decided from the lots themselves, summed in the order they are used up, and not
+   * from the running total of the fridge, which may differ from them by rounding.</p>
+   *
+   * @param name the name of the grocery item to consume
+   * @param quantity the quantity to consume
+   * @return the lots that were consumed from, or {@code null} if the quantity is not available
+   */
+  private List<LotConsumption> consume(String name, double quantity) {
+    List<LotConsumption> consumedLots = new ArrayList<>();
+    boolean[] available = new boolean[1];
+    fridge.getGroceriesPerCategory().computeIfPresent(name, (key, groceries) -> {
+      double storedQuantity = 0;
+      for (Grocery grocery : groceries) {
+        storedQuantity += grocery.getQuantity();
+      }
+      if (storedQuantity < quantity) {
+        return groceries;
+      }
+      available[0] = true;
+
+      double remainingQuantity = quantity;
+      int depletedLots = 0;
+      for (Grocery grocery : groceries) {
+        if (remainingQuantity <= 0) {
+          break;
+        }
+        double groceryQuantity = grocery.getQuantity();
+        if (groceryQuantity <= remainingQuantity) {
+          remainingQuantity -= groceryQuantity;
+          consumedLots.add(new LotConsumption(grocery, groceryQuantity, true));
+          depletedLots++;
+        } else {
+          grocery.setQuantity(groceryQuantity - remainingQuantity);
+          consumedLots.add(new LotConsumption(grocery, remainingQuantity, false));
+          remainingQuantity = 0;
+        }
+      }
+
+      // The depleted lots are the first ones in the list, so they are removed in one go
+      List<Grocery> depleted = groceries.subList(0, depletedLots);
+      depleted.forEach(fridge::unindexGrocery);
+      depleted.clear();
+      return groceries.isEmpty() ? null : groceries;
+    });
+    fridge.deliverQuantityChanges();
+    return available[0] ? consumedLots : null;
   }
 
   /**
@@ -116,7 +280,8 @@ public class FridgeService {
    *
    * @return a list of all grocery items in the fridge
    */
-  public static List<Grocery> getAllGroceries() {
+  @Override
+  public List<Grocery> getAllGroceries() {
     return new ArrayList<>(
         fridge.getGroceriesPerCategory().values().stream()
             .flatMap(Collection::stream)
@@ -124,86 +289,251 @@ public class FridgeService {
   }
 
   /**
-   * Retrieves all groceries stored in the storage. Expired groceries are not included.
+   * Retrieves all groceries stored in the storage, sorted by name.
+   *
+   * <p>The sorted list is cached by the fridge, so calling this again without adding or removing
+   * groceries does not cost anything.</p>
    *
-   * @return a list of all non-expired grocery items in the food storage
+   * @return an unmodifiable list of all grocery items, sorted by name
    */
-  public static List<Grocery> getGroceriesSortedByName() {
-    return fridge.getGroceriesPerCategory()
-        .values()
-        .stream()
-        .flatMap(Collection::stream)
-        .sorted(Comparator.comparing(Grocery::getName))
-        .toList();
+  @Override
+  public List<Grocery> getGroceriesSortedByName() {
+    return fridge.getGroceriesSortedByName();
   }
 
   /**
    * Retrieves all groceries sorted by expiry date.
    *
-   * @return a list of groceries sorted by expiry date
+   * <p>The sorted list is cached by the fridge, so calling this again without adding or removing
+   * groceries does not cost anything.</p>
+   *
+   * @return an unmodifiable list of groceries sorted by expiry date
    */
-  public static List<Grocery> getGroceriesSortedByExpiryDate() {
-    return fridge.getGroceriesPerCategory()
-        .values()
-        .stream()
-        .flatMap(Collection::stream)
-        .sorted(Comparator.comparing(Grocery::getExpiryDate))
-        .toList();
+  @Override
+  public List<Grocery> getGroceriesSortedByExpiryDate() {
+    return fridge.getGroceriesSortedByExpiryDate();
+  }
+
+  /**
+   * Retrieves one page of all groceries in the given order.
+   *
+   * <p>Start with a {@code null} token and pass the {@link GroceryPage#nextPageToken()} of each
+   * page to get the next one. The token holds the position of the last grocery shown: its name
+   * (when listing by name), its expiry date and its {@linkplain Grocery#getSequence() sequence},
+   * which orders lots of the same name and date. The next page starts strictly after that
+   * position and is looked up directly in the indexes of the fridge, so the time to get a page
+   * does not depend on how many groceries are stored. Groceries consumed or removed between pages
+   * never make other groceries be skipped or repeated; groceries added meanwhile are shown if they
+   * fall after the position.</p>
+   *
+   * @param order the order to list the groceries in
+   * @param pageSize the maximum number of groceries per page
+   * @param pageToken the token of the page to get, or {@code null} for the first page
+   * @return the page of groceries
+   * @throws IllegalArgumentException if {@code order} is null, {@code pageSize} is not positive
+   *                                  or {@code pageToken} was not created for {@code order}
+   */
+  @Override
+  public GroceryPage getGroceryPage(SortOrder order, int pageSize, String pageToken) {
+    if (order == null) {
+      throw new IllegalArgumentException("The order parameter cannot be null");
+    }
+    if (pageSize <= 0) {
+      throw new IllegalArgumentException("Page size must be positive");
+    }
+    PagePosition after = PagePosition.parse(order, pageToken);
+
+    // One grocery more than asked for tells whether there is another page
+    List<Grocery> groceries = order == SortOrder.NAME
+        ? fridge.getGroceriesByName(after.name(), after.expiryDate(), after.sequence(),
+            pageSize + 1)
+        : fridge.getGroceriesByExpiryDate(after.expiryDate(), after.sequence(), pageSize + 1);
+    return PagePosition.pageOf(order, groceries, pageSize);
   }
 
   /**
    * Retrieves all expired groceries from the fridge.
    *
-   * @return a list of expired grocery items
+   * <p>Only the lots whose expiry date lies before today are visited, using the expiry index
+   * of the fridge.</p>
+   *
+   * @return a list of expired grocery items, ordered by expiry date
+   */
+  @Override
+  public List<Grocery> getExpiredGroceries() {
+    return fridge.getGroceriesExpiringBefore(LocalDate.now());
+  }
+
+  /**
+   * Retrieves all groceries that expire today or within the given number of days.
+   *
+   * @param days the number of days ahead to look
+   * @return a list of grocery items expiring within the period, ordered by expiry date
+   * @throws IllegalArgumentException if {@code days} is negative
+   */
+  @Override
+  public List<Grocery> getGroceriesExpiringWithin(int days) {
+    if (days < 0) {
+      throw new IllegalArgumentException("Number of days cannot be negative");
+    }
+    LocalDate today = LocalDate.now();
+    return fridge.getGroceriesExpiringBetween(today, today.plusDays(days));
+  }
+
+  /**
+   * Retrieves all groceries expiring between two dates, both inclusive.
+   *
+   * @param from the first expiry date to include
+   * @param to the last expiry date to include
+   * @return a list of grocery items expiring within the period, ordered by expiry date
+   * @throws IllegalArgumentException if {@code from} or {@code to} is null
+   */
+  @Override
+  public List<Grocery> getGroceriesExpiringBetween(LocalDate from, LocalDate to) {
+    if (from == null || to == null) {
+      throw new IllegalArgumentException("Dates cannot be null");
+    }
+    return fridge.getGroceriesExpiringBetween(from, to);
+  }
+
+  /**
+   * Retrieves the groceries that expire next, starting today.
+   *
+   * <p>The lots are streamed from the expiry ordered lists of each grocery name with a heap, so
+   * asking for the next {@code count} lots takes O(count log k) time for k grocery names,
+   * however many lots are stored.</p>
+   *
+   * @param count the maximum number of groceries to retrieve
+   * @return up to {@code count} non-expired grocery items, ordered by expiry date
+   * @throws IllegalArgumentException if {@code count} is negative
+   */
+  @Override
+  public List<Grocery> getGroceriesExpiringNext(int count) {
+    if (count < 0) {
+      throw new IllegalArgumentException("Count cannot be negative");
+    }
+    List<Grocery> groceries = new ArrayList<>(Math.min(count, 64));
+    Iterator<Grocery> byExpiryDate = fridge.iterateByExpiryDate(LocalDate.now());
+    while (groceries.size() < count && byExpiryDate.hasNext()) {
+      groceries.add(byExpiryDate.next());
+    }
+    return groceries;
+  }
+
+  /**
+   * Registers a listener to be told whenever the total quantity of a grocery changes.
+   *
+   * @param listener the listener to register, first told the current total of every grocery
+   * @throws IllegalArgumentException if {@code listener} is null
    */
-  public static List<Grocery> getExpiredGroceries() {
-    return fridge.getGroceriesPerCategory().values().stream()
-        .flatMap(Collection::stream)
-        .filter(GroceryService::isExpired)
-        .toList();
+  @Override
+  public void addQuantityListener(QuantityListener listener) {
+    if (listener == null) {
+      throw new IllegalArgumentException("Listener cannot be null");
+    }
+    fridge.addQuantityListener(listener);
   }
 
   /**
    * Calculates the total value of all groceries stored in the fridge.
    *
+   * <p>The value is read from the running total kept by the fridge, so the cost does not
+   * depend on the number of groceries stored.</p>
+   *
    * @return the total value of all grocery items
    */
-  public static double calculateTotalValue() {
-    return fridge.getGroceriesPerCategory().values().stream()
-        .flatMap(Collection::stream)
-        .mapToDouble(groceryService::calculateValue)
-        .sum();
+  @Override
+  public double calculateTotalValue() {
+    return fridge.getTotalValue();
+  }
+
+  /**
+   * Calculates the total value of all groceries with the given name.
+   *
+   * @param name the name of the grocery items
+   * @return the total value of all lots with the given name
+   * @throws IllegalArgumentException if the {@code name} parameter is null
+   */
+  @Override
+  public double calculateTotalValue(String name) {
+    if (name == null) {
+      throw new IllegalArgumentException("The name parameter cannot be null");
+    }
+    return fridge.getTotalValue(name.toLowerCase());
   }
 
   /**
    * Calculates the total value of all expired groceries stored in the fridge.
    *
+   * <p>Sums the running totals of each expiry day before today.</p>
+   *
    * @return the total value of all expired grocery items
    */
-  public static double calculateTotalValueOfExpiredGroceries() {
-    return fridge.getGroceriesPerCategory().values().stream()
-        .flatMap(Collection::stream)
-        .filter(GroceryService::isExpired)
-        .mapToDouble(groceryService::calculateValue)
-        .sum();
+  @Override
+  public double calculateTotalValueOfExpiredGroceries() {
+    return fridge.getTotalValueExpiringBefore(LocalDate.now());
   }
 
   /**
    * Retrieves all groceries with the specified name.
    *
+   * <p>The name is matched case-insensitively with a single lookup in the fridge.</p>
+   *
    * @param name the name of the grocery items to retrieve
    * @return a list of grocery items with the specified name
    * @throws IllegalArgumentException if the {@code name} parameter is null
    */
-  public static List<Grocery> findGroceriesByName(String name) {
+  @Override
+  public List<Grocery> findGroceriesByName(String name) {
     if (name == null) {
       throw new IllegalArgumentException("The name parameter cannot be null");
     }
-    return getAllGroceries().stream()
-        .filter(grocery -> grocery.getName().equalsIgnoreCase(name))
-        .toList();
+    List<Grocery> groceries = fridge.getGroceriesPerCategory().get(name.toLowerCase());
+    return groceries == null ? List.of() : List.copyOf(groceries);
   }
 
+  /**
+   * Retrieves all groceries whose name starts with the specified prefix.
+   *
+   * <p>For example, "milk" finds both "milk" and "milkshake base".</p>
+   *
+   * @param prefix the prefix to look for, case-insensitive
+   * @return a list of matching grocery items, ordered by name
+   * @throws IllegalArgumentException if the {@code prefix} parameter is null
+   */
+  @Override
+  public List<Grocery> findGroceriesByNamePrefix(String prefix) {
+    if (prefix == null) {
+      throw new IllegalArgumentException("The prefix parameter cannot be null");
+    }
+    return collectGroceries(fridge.getNamesStartingWith(prefix.toLowerCase()));
+  }
 
+  /**
+   * Retrieves all groceries whose name contains the specified text.
+   *
+   * <p>For example, "milk" finds "milk", "milkshake base" and "oat milk".</p>
+   *
+   * @param text the text to look for, case-insensitive
+   * @return a list of matching grocery items, ordered by name
+   * @throws IllegalArgumentException if the {@code text} parameter is null
+   */
+  @Override
+  public List<Grocery> findGroceriesByNameContaining(String text) {
+    if (text == null) {
+      throw new IllegalArgumentException("The text parameter cannot be null");
+    }
+    return collectGroceries(fridge.getNamesContaining(text.toLowerCase()));
+  }
 
-}
\ No newline at end of file
+  private List<Grocery> collectGroceries(List<String> names) {
+    List<Grocery> groceries = new ArrayList<>();
+    for (String name : names) {
+      List<Grocery> lots = fridge.getGroceriesPerCategory().get(name);
+      if (lots != null) {
+        groceries.addAll(lots);
+      }
+    }
+    return groceries;
+  }
+}
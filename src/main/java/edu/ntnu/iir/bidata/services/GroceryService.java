@@ -65,8 +65,8 @@ public class GroceryService {
    *        boolean clubbable = groceryService.areGroceriesClubbable(grocery1, grocery2);
    */
   public boolean areGroceriesClubbable(Grocery existingGrocery, Grocery newlyAddedGrocery) {
-    return existingGrocery.getName().equals(newlyAddedGrocery.getName())
-        && existingGrocery.getUnit().equals(newlyAddedGrocery.getUnit())
+    return existingGrocery.getNameId() == newlyAddedGrocery.getNameId()
+        && existingGrocery.getUnitId() == newlyAddedGrocery.getUnitId()
         && existingGrocery.getPricePerUnit() == newlyAddedGrocery.getPricePerUnit()
         && existingGrocery.getExpiryDate().isEqual(newlyAddedGrocery.getExpiryDate());
   }
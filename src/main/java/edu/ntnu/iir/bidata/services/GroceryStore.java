@@ -0,0 +1,192 @@
+package edu.ntnu.iir.bidata.services;
+
+import edu.ntnu.iir.bidata.model.Grocery;
+import edu.ntnu.iir.bidata.model.GroceryPage;
+import edu.ntnu.iir.bidata.model.LotConsumption;
+import edu.ntnu.iir.bidata.model.QuantityListener;
+import edu.ntnu.iir.bidata.model.SortOrder;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The operations on the groceries of one household.
+ *
+ * <p>Groceries are stored in lots: adding a grocery with the same name, unit, price per unit and
+ * expiry date as a stored lot adds to that lot, and removing or consuming a grocery uses up the
+ * lots expiring first (first-expiry-first-out). Names are matched case-insensitively.</p>
+ *
+ * <p>{@link FridgeService} keeps each lot as a {@link Grocery} and suits lots being changed one at
+ * a time by many threads; {@link ColumnarFridgeService} keeps the lots in primitive columns and
+ * suits very large inventories. Whether the groceries returned are the stored lots or copies of
+ * them depends on the implementation, so change them through this interface only.</p>
+ */
+public interface GroceryStore {
+
+  /**
+   * Adds a grocery item to the food storage, merging it into the matching lot if there is one.
+   *
+   * @param grocery the grocery item to be added
+   */
+  void addGrocery(Grocery grocery);
+
+  /**
+   * Adds several grocery items to the food storage at once, for example all lines of a receipt.
+   *
+   * @param groceries the grocery items to be added
+   * @throws IllegalArgumentException if {@code groceries} is null
+   */
+  void addGroceries(Collection<Grocery> groceries);
+
+  /**
+   * Removes a specified quantity of a grocery item, using up the lots expiring first.
+   *
+   * @param name the name of the grocery item to be removed
+   * @param quantity the quantity to be removed
+   * @return {@code true} if the specified quantity was removed successfully, {@code false}
+   *         otherwise
+   */
+  boolean removeGrocery(String name, double quantity);
+
+  /**
+   * Consumes a specified quantity of a grocery item, using up the lots expiring first.
+   *
+   * <p>Nothing is consumed unless the full quantity is available.</p>
+   *
+   * @param name the name of the grocery item to consume
+   * @param quantity the quantity to consume
+   * @return the lots that were consumed from, soonest expiring first, or an empty list if the
+   *         grocery is not stored or the quantity is not available
+   */
+  List<LotConsumption> consumeGrocery(String name, double quantity);
+
+  /**
+   * Retrieves all groceries stored, including expired ones.
+   *
+   * @return a list of all grocery items
+   */
+  List<Grocery> getAllGroceries();
+
+  /**
+   * Retrieves all groceries sorted by name, and by expiry date within a name.
+   *
+   * @return a list of groceries sorted by name
+   */
+  List<Grocery> getGroceriesSortedByName();
+
+  /**
+   * Retrieves all groceries sorted by expiry date.
+   *
+   * @return a list of groceries sorted by expiry date
+   */
+  List<Grocery> getGroceriesSortedByExpiryDate();
+
+  /**
+   * Retrieves one page of all groceries in the given order.
+   *
+   * <p>Start with a {@code null} token and pass the {@link GroceryPage#nextPageToken()} of each
+   * page to get the next one. Groceries consumed or removed between pages never make other
+   * groceries be skipped or repeated.</p>
+   *
+   * @param order the order to list the groceries in
+   * @param pageSize the maximum number of groceries per page
+   * @param pageToken the token of the page to get, or {@code null} for the first page
+   * @return the page of groceries
+   * @throws IllegalArgumentException if {@code order} is null, {@code pageSize} is not positive
+   *                                  or {@code pageToken} was not created for {@code order}
+   */
+  GroceryPage getGroceryPage(SortOrder order, int pageSize, String pageToken);
+
+  /**
+   * Retrieves all expired groceries.
+   *
+   * @return a list of expired grocery items, ordered by expiry date
+   */
+  List<Grocery> getExpiredGroceries();
+
+  /**
+   * Retrieves all groceries that expire today or within the given number of days.
+   *
+   * @param days the number of days ahead to look
+   * @return a list of grocery items expiring within the period, ordered by expiry date
+   * @throws IllegalArgumentException if {@code days} is negative
+   */
+  List<Grocery> getGroceriesExpiringWithin(int days);
+
+  /**
+   * Retrieves all groceries expiring between two dates, both inclusive.
+   *
+   * @param from the first expiry date to include
+   * @param to the last expiry date to include
+   * @return a list of grocery items expiring within the period, ordered by expiry date
+   * @throws IllegalArgumentException if {@code from} or {@code to} is null
+   */
+  List<Grocery> getGroceriesExpiringBetween(LocalDate from, LocalDate to);
+
+  /**
+   * Retrieves the groceries that expire next, starting today.
+   *
+   * @param count the maximum number of groceries to retrieve
+   * @return up to {@code count} non-expired grocery items, ordered by expiry date
+   * @throws IllegalArgumentException if {@code count} is negative
+   */
+  List<Grocery> getGroceriesExpiringNext(int count);
+
+  /**
+   * Registers a listener to be told whenever the total quantity of a grocery changes.
+   *
+   * @param listener the listener to register, first told the current total of every grocery
+   * @throws IllegalArgumentException if {@code listener} is null
+   */
+  void addQuantityListener(QuantityListener listener);
+
+  /**
+   * Calculates the total value of all groceries stored.
+   *
+   * @return the total value of all grocery items
+   */
+  double calculateTotalValue();
+
+  /**
+   * Calculates the total value of all groceries with the given name.
+   *
+   * @param name the name of the grocery items
+   * @return the total value of all lots with the given name
+   * @throws IllegalArgumentException if the {@code name} parameter is null
+   */
+  double calculateTotalValue(String name);
+
+  /**
+   * Calculates the total value of all expired groceries stored.
+   *
+   * @return the total value of all expired grocery items
+   */
+  double calculateTotalValueOfExpiredGroceries();
+
+  /**
+   * Retrieves all groceries with the specified name.
+   *
+   * @param name the name of the grocery items to retrieve
+   * @return a list of grocery items with the specified name, ordered by expiry date
+   * @throws IllegalArgumentException if the {@code name} parameter is null
+   */
+  List<Grocery> findGroceriesByName(String name);
+
+  /**
+   * Retrieves all groceries whose name starts with the specified prefix.
+   *
+   * @param prefix the prefix to look for, case-insensitive
+   * @return a list of matching grocery items, ordered by name
+   * @throws IllegalArgumentException if the {@code prefix} parameter is null
+   */
+  List<Grocery> findGroceriesByNamePrefix(String prefix);
+
+  /**
+   * Retrieves all groceries whose name contains the specified text.
+   *
+   * @param text the text to look for, case-insensitive
+   * @return a list of matching grocery items, ordered by name
+   * @throws IllegalArgumentException if the {@code text} parameter is null
+   */
+  List<Grocery> findGroceriesByNameContaining(String text);
+}
@@ -0,0 +1,55 @@
+package edu.ntnu.iir.bidata.services;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * Represents a single household, with its own fridge and cookbook.
+ *
+ * <p>Households are created and evicted by a {@link HouseholdRegistry}, which records when each
+ * household was last accessed.</p>
+ */
+@Getter
+public class Household {
+  /** Identifier of the household. */
+  private final String id;
+  /** Service managing the groceries of the household. */
+  private final GroceryStore fridgeService;
+  /** Service managing the recipes of the household. */
+  private final RecipeService recipeService;
+  /** Time of the last access, in milliseconds since the epoch. */
+  @Getter(AccessLevel.NONE)
+  private volatile long lastAccessMillis;
+
+  /**
+   * Constructs a new {@code Household}.
+   *
+   * @param id the identifier of the household
+   * @param fridgeService the service managing the groceries
+   * @param recipeService the service managing the recipes
+   */
+  public Household(String id, GroceryStore fridgeService, RecipeService recipeService) {
+    this.id = id;
+    this.fridgeService = fridgeService;
+    this.recipeService = recipeService;
+  }
+
+  /**
+   * Records an access to the household.
+   *
+   * @param nowMillis the current time, in milliseconds since the epoch
+   */
+  void touch(long nowMillis) {
+    lastAccessMillis = nowMillis;
+  }
+
+  /**
+   * Checks whether the household has not been accessed since the given time.
+   *
+   * @param cutoffMillis the time, in milliseconds since the epoch
+   * @return {@code true} if the last access was before the given time, {@code false} otherwise
+   */
+  boolean isIdleSince(long cutoffMillis) {
+    return lastAccessMillis < cutoffMillis;
+  }
+}
@@ -0,0 +1,143 @@
+package edu.ntnu.iir.bidata.services;
+
+import edu.ntnu.iir.bidata.model.Cookbook;
+import edu.ntnu.iir.bidata.model.Fridge;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Keeps track of the households served by one application instance.
+ *
+ * <p>Households are created lazily the first time they are requested, and can be evicted once
+ * they have been idle for longer than the configured timeout, so a household only costs its
+ * fridge and cookbook while it is in use.</p>
+ *
+ * <p><strong>Example:</strong></p>
+ * <pre><code>
+ * HouseholdRegistry registry = new HouseholdRegistry(Duration.ofMinutes(30));
+ * registry.getHousehold("family-42").getFridgeService().addGrocery(milk);
+ * registry.evictIdleHouseholds();
+ * </code></pre>
+ */
+public class HouseholdRegistry {
+  private final Map<String, Household> households = new ConcurrentHashMap<>();
+  private final Duration idleTimeout;
+  private final Clock clock;
+  private final Consumer<Household> evictionListener;
+
+  /**
+   * Constructs a new {@code HouseholdRegistry} using the system clock.
+   *
+   * @param idleTimeout how long a household may be unused before it can be evicted
+   */
+  public HouseholdRegistry(Duration idleTimeout) {
+    this(idleTimeout, Clock.systemUTC(), household -> { });
+  }
+
+  /**
+   * Constructs a new {@code HouseholdRegistry}.
+   *
+   * @param idleTimeout how long a household may be unused before it can be evicted
+   * @param clock the clock used to record accesses
+   * @param evictionListener called with every evicted household, for example to save it
+   * @throws IllegalArgumentException if any parameter is null or the timeout is negative
+   */
+  public HouseholdRegistry(Duration idleTimeout, Clock clock,
+      Consumer<Household> evictionListener) {
+    if (idleTimeout == null || idleTimeout.isNegative()) {
+      throw new IllegalArgumentException("Idle timeout cannot be null or negative");
+    }
+    if (clock == null || evictionListener == null) {
+      throw new IllegalArgumentException("Clock and eviction listener cannot be null");
+    }
+    this.idleTimeout = idleTimeout;
+    this.clock = clock;
+    this.evictionListener = evictionListener;
+  }
+
+  /**
+   * Retrieves a household, creating it with an empty fridge and cookbook if it does not exist.
+   *
+   * @param id the identifier of the household
+   * @return the household with the given identifier
+   * @throws IllegalArgumentException if {@code id} is null or empty
+   */
+  public Household getHousehold(String id) {
+    if (id == null || id.isEmpty()) {
+      throw new IllegalArgumentException("Household id cannot be null or empty");
+    }
+    long now = clock.millis();
+    // Touch inside compute, so an eviction cannot slip in between creation and access
+    return households.compute(id, (key, household) -> {
+      Household result = household != null ? household : createHousehold(key);
+      result.touch(now);
+      return result;
+    });
+  }
+
+  /**
+   * Checks whether a household is currently held by the registry.
+   *
+   * @param id the identifier of the household
+   * @return {@code true} if the household exists, {@code false} otherwise
+   */
+  public boolean containsHousehold(String id) {
+    return households.containsKey(id);
+  }
+
+  /**
+   * Removes a household from the registry without notifying the eviction listener.
+   *
+   * @param id the identifier of the household
+   * @return {@code true} if the household was removed, {@code false} if it did not exist
+   */
+  public boolean removeHousehold(String id) {
+    return households.remove(id) != null;
+  }
+
+  /**
+   * Evicts all households that have not been accessed within the idle timeout.
+   *
+   * <p>Each evicted household is passed to the eviction listener.</p>
+   *
+   * @return the number of evicted households
+   */
+  public int evictIdleHouseholds() {
+    long cutoff = clock.millis() - idleTimeout.toMillis();
+    int evicted = 0;
+    for (String id : households.keySet()) {
+      Household[] removed = new Household[1];
+      households.computeIfPresent(id, (key, household) -> {
+        if (household.isIdleSince(cutoff)) {
+          removed[0] = household;
+          return null;
+        }
+        return household;
+      });
+      if (removed[0] != null) {
+        evictionListener.accept(removed[0]);
+        evicted++;
+      }
+    }
+    return evicted;
+  }
+
+  /**
+   * Returns the number of households currently held by the registry.
+   *
+   * @return the number of households
+   */
+  public int size() {
+    return households.size();
+  }
+
+  private Household createHousehold(String id) {
+    GroceryStore fridgeService = new FridgeService(new Fridge());
+    RecipeService recipeService = new RecipeService(new Cookbook());
+    recipeService.trackCookableRecipes(fridgeService);
+    return new Household(id, fridgeService, recipeService);
+  }
+}
@@ -0,0 +1,372 @@
+package edu.ntnu.iir.bidata.services;
+
+import edu.ntnu.iir.bidata.model.Grocery;
+import edu.ntnu.iir.bidata.model.MealPlan;
+import edu.ntnu.iir.bidata.model.PlannedMeal;
+import edu.ntnu.iir.bidata.model.Recipe;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Plans which recipes to cook on which day so that as little value as possible expires unused.
+ *
+ * <p>The planner works on a snapshot of the lots in a {@link GroceryStore} and the recipes in a
+ * {@link RecipeService}. Following a plan is simulated day by day: every meal uses its
+ * ingredients from the lots that expire first and have not expired yet on that day, so
+ * quantities are shared between all meals of the plan. What is left of the lots expiring before
+ * the plan ends counts as expired value. Lots that had already expired when the plan starts are
+ * left out, since no plan can save them.</p>
+ *
+ * <p>A plan is built in two steps:</p>
+ * <ol>
+ *   <li>A greedy pass fills the days in order, each time choosing the recipe that uses the most
+ *   value of lots about to expire, weighted by {@code 1 / (1 + days until expiry)}.</li>
+ *   <li>A local search then keeps changing a random meal of the best plan, or swapping two
+ *   meals, and keeps the change when the expired value does not grow, preferring fewer meals
+ *   on ties.</li>
+ * </ol>
+ *
+ * <p>Planning is limited either by a time budget, which both steps stop at, or by a number of
+ * local search steps, after a greedy pass that always runs to the end. The second gives the same
+ * plan for the same groceries and recipes however fast the machine is.</p>
+ *
+ * <p><strong>Example:</strong></p>
+ * <pre><code>
+ * MealPlanner planner = new MealPlanner(recipeService, fridgeService);
+ * MealPlan plan = planner.plan(7, 2, Duration.ofMillis(200));
+ * </code></pre>
+ */
+public class MealPlanner {
+  private static final double EPSILON = 1e-9;
+
+  private final RecipeService recipeService;
+  private final GroceryStore fridgeService;
+
+  /**
+   * Constructs a new {@code MealPlanner}.
+   *
+   * @param recipeService the recipes to plan with
+   * @param fridgeService the groceries to plan with
+   * @throws IllegalArgumentException if either service is null
+   */
+  public MealPlanner(RecipeService recipeService, GroceryStore fridgeService) {
+    if (recipeService == null || fridgeService == null) {
+      throw new IllegalArgumentException("Recipe service and fridge service cannot be null");
+    }
+    this.recipeService = recipeService;
+    this.fridgeService = fridgeService;
+  }
+
+  /**
+   * Plans the meals for the coming days, starting today.
+   *
+   * @param days the number of days to plan
+   * @param mealsPerDay the largest number of meals to cook on a day
+   * @param budget the time to spend searching for a better plan
+   * @return the best plan found within the budget
+   * @throws IllegalArgumentException if {@code days} or {@code mealsPerDay} is not positive, or
+   *                                  {@code budget} is null or negative
+   */
+  public MealPlan plan(int days, int mealsPerDay, Duration budget) {
+    return plan(LocalDate.now(), days, mealsPerDay, budget);
+  }
+
+  /**
+   * Plans the meals for the given days.
+   *
+   * @param firstDay the first day of the plan
+   * @param days the number of days to plan
+   * @param mealsPerDay the largest number of meals to cook on a day
+   * @param budget the time to spend searching for a better plan
+   * @return the best plan found within the budget
+   * @throws IllegalArgumentException if {@code firstDay} is null, {@code days} or
+   *                                  {@code mealsPerDay} is not positive, or {@code budget} is
+   *                                  null or negative
+   */
+  public MealPlan plan(LocalDate firstDay, int days, int mealsPerDay, Duration budget) {
+    if (budget == null || budget.isNegative()) {
+      throw new IllegalArgumentException("Budget cannot be null or negative");
+    }
+    return plan(firstDay, days, mealsPerDay,
+        new StopCondition(System.nanoTime() + budget.toNanos(), true, Long.MAX_VALUE));
+  }
+
+  /**
+   * Plans the meals for the given days without a time budget: the greedy pass runs to the end,
+   * followed by the given number of local search steps. The plan only depends on the groceries
+   * and recipes.
+   *
+   * @param firstDay the first day of the plan
+   * @param days the number of days to plan
+   * @param mealsPerDay the largest number of meals to cook on a day
+   * @param searchSteps the number of changes to try on the greedy plan
+   * @return the best plan found within the steps
+   * @throws IllegalArgumentException if {@code firstDay} is null, {@code days} or
+   *                                  {@code mealsPerDay} is not positive, or {@code searchSteps}
+   *                                  is negative
+   */
+  public MealPlan plan(LocalDate firstDay, int days, int mealsPerDay, long searchSteps) {
+    if (searchSteps < 0) {
+      throw new IllegalArgumentException("Search steps cannot be negative");
+    }
+    return plan(firstDay, days, mealsPerDay, new StopCondition(0, false, searchSteps));
+  }
+
+  private synchronized MealPlan plan(LocalDate firstDay, int days, int mealsPerDay,
+      StopCondition stop) {
+    if (firstDay == null) {
+      throw new IllegalArgumentException("First day cannot be null");
+    }
+    if (days <= 0 || mealsPerDay <= 0) {
+      throw new IllegalArgumentException("Days and meals per day must be positive");
+    }
+    Stock stock = new Stock(fridgeService.getAllGroceries(), firstDay.toEpochDay(), days);
+    stock.reset();
+    double expiredValueWithoutPlan = stock.expiredValue();
+
+    // Only recipes using a lot that expires during the plan can lower the expired value
+    List<Recipe> candidates = new ArrayList<>();
+    for (Recipe recipe : recipeService.findRecipesMakeableWith(stock.layout.lots())) {
+      if (stock.usesExpiringLots(recipe)) {
+        candidates.add(recipe);
+      }
+    }
+
+    Recipe[] meals = planGreedily(stock, candidates, mealsPerDay, stop);
+    double expiredValue = evaluate(stock, meals, mealsPerDay);
+    int mealCount = countMeals(meals);
+    Random random = new Random(0);
+    for (long step = 0; !candidates.isEmpty() && !stop.reached(step); step++) {
+      Recipe[] trial = meals.clone();
+      int slot = random.nextInt(trial.length);
+      if (random.nextBoolean()) {
+        trial[slot] = random.nextInt(4) == 0
+            ? null : candidates.get(random.nextInt(candidates.size()));
+      } else {
+        int other = random.nextInt(trial.length);
+        trial[slot] = meals[other];
+        trial[other] = meals[slot];
+      }
+      double trialValue = evaluate(stock, trial, mealsPerDay);
+      int trialCount = countMeals(trial);
+      if (trialValue < expiredValue - EPSILON
+          || (trialValue <= expiredValue + EPSILON && trialCount <= mealCount)) {
+        meals = trial;
+        expiredValue = trialValue;
+        mealCount = trialCount;
+      }
+    }
+
+    List<PlannedMeal> plannedMeals = new ArrayList<>(mealCount);
+    for (int slot = 0; slot < meals.length; slot++) {
+      if (meals[slot] != null) {
+        plannedMeals.add(new PlannedMeal(firstDay.plusDays(slot / mealsPerDay), meals[slot]));
+      }
+    }
+    return new MealPlan(plannedMeals, Math.max(expiredValue, 0), expiredValueWithoutPlan);
+  }
+
+  /** Fills the meals day by day with the recipe saving the most value about to expire. */
+  private Recipe[] planGreedily(Stock stock, List<Recipe> candidates, int mealsPerDay,
+      StopCondition stop) {
+    Recipe[] meals = new Recipe[stock.days * mealsPerDay];
+    stock.reset();
+    for (int slot = 0; slot < meals.length && !stop.timedOut(); slot++) {
+      long day = stock.firstDay + slot / mealsPerDay;
+      Recipe best = null;
+      double bestScore = EPSILON;
+      for (Recipe candidate : candidates) {
+        double score = stock.rescueScore(candidate, day);
+        if (score > bestScore) {
+          best = candidate;
+          bestScore = score;
+        }
+      }
+      if (best == null) {
+        // Nothing more to save today, so go on with the next day
+        slot = (slot / mealsPerDay + 1) * mealsPerDay - 1;
+        continue;
+      }
+      stock.consume(best, day);
+      meals[slot] = best;
+    }
+    return meals;
+  }
+
+  /**
+   * Simulates the plan and returns the value left to expire, or {@link Double#POSITIVE_INFINITY}
+   * if a meal cannot be made when its day comes.
+   */
+  private static double evaluate(Stock stock, Recipe[] meals, int mealsPerDay) {
+    stock.reset();
+    for (int slot = 0; slot < meals.length; slot++) {
+      long day = stock.firstDay + slot / mealsPerDay;
+      if (meals[slot] != null && !stock.consume(meals[slot], day)) {
+        return Double.POSITIVE_INFINITY;
+      }
+    }
+    return stock.expiredValue();
+  }
+
+  private static int countMeals(Recipe[] meals) {
+    int count = 0;
+    for (Recipe meal : meals) {
+      if (meal != null) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * When planning stops: once the clock passes a deadline, if timed, or after a number of local
+   * search steps.
+   */
+  private record StopCondition(long deadline, boolean timed, long searchSteps) {
+    private boolean timedOut() {
+      return timed && System.nanoTime() - deadline >= 0;
+    }
+
+    private boolean reached(long step) {
+      return step >= searchSteps || timedOut();
+    }
+  }
+
+  /**
+   * The lots being planned with, read from an {@link ExpiryLayout}, and what is left of each while
+   * a plan is simulated.
+   */
+  private static final class Stock {
+    private final long firstDay;
+    private final int days;
+    private final ExpiryLayout layout;
+    private final double[] prices;
+    private final double[] quantities;
+    private final double[] remaining;
+
+    private Stock(List<Grocery> groceries, long firstDay, int days) {
+      this.firstDay = firstDay;
+      this.days = days;
+      layout = ExpiryLayout.of(groceries, firstDay);
+      prices = new double[layout.size()];
+      quantities = new double[layout.size()];
+      remaining = new double[layout.size()];
+      for (int lot = 0; lot < layout.size(); lot++) {
+        prices[lot] = layout.lot(lot).getPricePerUnit();
+        quantities[lot] = layout.lot(lot).getQuantity();
+      }
+    }
+
+    /** Returns whether the recipe needs a grocery with a lot that expires during the plan. */
+    private boolean usesExpiringLots(Recipe recipe) {
+      for (int i = 0; i < recipe.getIngredientCount(); i++) {
+        int slot = layout.slotOf(recipe.getIngredientId(i));
+        if (recipe.getRequiredQuantity(i) > 0 && slot >= 0
+            && expiresDuringPlan(layout.start(slot))) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private void reset() {
+      System.arraycopy(quantities, 0, remaining, 0, quantities.length);
+    }
+
+    /** Returns the value left in lots that expire before the plan ends. */
+    private double expiredValue() {
+      double value = 0;
+      for (int lot = 0; lot < remaining.length; lot++) {
+        if (expiresDuringPlan(lot)) {
+          value += remaining[lot] * prices[lot];
+        }
+      }
+      return value;
+    }
+
+    /**
+     * Returns the value the recipe would use from lots that expire during the plan, each weighted
+     * by how soon it expires, or a negative number if it cannot be made on the day.
+     */
+    private double rescueScore(Recipe recipe, long day) {
+      if (!canMake(recipe, day)) {
+        return -1;
+      }
+      double score = 0;
+      for (int i = 0; i < recipe.getIngredientCount(); i++) {
+        double needed = recipe.getRequiredQuantity(i);
+        if (needed <= 0) {
+          continue;
+        }
+        int slot = layout.slotOf(recipe.getIngredientId(i));
+        for (int lot = firstUsableLot(slot, day); needed > 0 && lot < layout.end(slot); lot++) {
+          double taken = Math.min(remaining[lot], needed);
+          if (expiresDuringPlan(lot)) {
+            score += taken * prices[lot] / (1 + layout.expiryDay(lot) - day);
+          }
+          needed -= taken;
+        }
+      }
+      return score;
+    }
+
+    /**
+     * Uses the ingredients of the recipe from the lots expiring first.
+     *
+     * @return {@code false}, using nothing, if the recipe cannot be made on the day
+     */
+    private boolean consume(Recipe recipe, long day) {
+      if (!canMake(recipe, day)) {
+        return false;
+      }
+      for (int i = 0; i < recipe.getIngredientCount(); i++) {
+        double needed = recipe.getRequiredQuantity(i);
+        if (needed <= 0) {
+          continue;
+        }
+        int slot = layout.slotOf(recipe.getIngredientId(i));
+        for (int lot = firstUsableLot(slot, day); needed > 0 && lot < layout.end(slot); lot++) {
+          double taken = Math.min(remaining[lot], needed);
+          remaining[lot] -= taken;
+          needed -= taken;
+        }
+      }
+      return true;
+    }
+
+    private boolean canMake(Recipe recipe, long day) {
+      for (int i = 0; i < recipe.getIngredientCount(); i++) {
+        if (recipe.getRequiredQuantity(i) <= 0) {
+          continue;
+        }
+        int slot = layout.slotOf(recipe.getIngredientId(i));
+        if (slot < 0) {
+          return false;
+        }
+        double available = 0;
+        for (int lot = firstUsableLot(slot, day); lot < layout.end(slot); lot++) {
+          available += remaining[lot];
+        }
+        if (available < recipe.getRequiredQuantity(i) - EPSILON) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private int firstUsableLot(int slot, long day) {
+      int lot = layout.start(slot);
+      while (lot < layout.end(slot) && layout.expiryDay(lot) < day) {
+        lot++;
+      }
+      return lot;
+    }
+
+    private boolean expiresDuringPlan(int lot) {
+      return layout.expiryDay(lot) < firstDay + days;
+    }
+  }
+}
@@ -0,0 +1,76 @@
+package edu.ntnu.iir.bidata.services;
+
+import edu.ntnu.iir.bidata.model.Grocery;
+import edu.ntnu.iir.bidata.model.GroceryPage;
+import edu.ntnu.iir.bidata.model.SortOrder;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * The position a page of groceries starts after, as held by the page tokens of
+ * {@link GroceryStore#getGroceryPage(SortOrder, int, String)}.
+ *
+ * <p>A token is the order followed by the expiry date and {@linkplain Grocery#getSequence()
+ * sequence} of the last grocery shown and, when listing by name, its name. Both
+ * {@link FridgeService} and {@link ColumnarFridgeService} write and read tokens this way.</p>
+ *
+ * @param name the name of the last grocery shown, or {@code ""} when listing by expiry date
+ * @param expiryDate the expiry date of the last grocery shown
+ * @param sequence the sequence of the last grocery shown
+ */
+record PagePosition(String name, LocalDate expiryDate, long sequence) {
+  /** The position before every grocery. */
+  static final PagePosition START = new PagePosition("", LocalDate.MIN, -1);
+
+  /**
+   * Reads the position held by a page token.
+   *
+   * @param order the order the groceries are listed in
+   * @param pageToken the token, or {@code null} for the first page
+   * @return the position the page starts after
+   * @throws IllegalArgumentException if {@code pageToken} was not created for {@code order}
+   */
+  static PagePosition parse(SortOrder order, String pageToken) {
+    if (pageToken == null) {
+      return START;
+    }
+    int fields = order == SortOrder.NAME ? 4 : 3;
+    String[] parts = pageToken.split(":", fields);
+    try {
+      if (parts.length == fields && parts[0].equals(order.name())) {
+        PagePosition position = new PagePosition(fields == 4 ? parts[3] : "",
+            LocalDate.parse(parts[1]), Long.parseLong(parts[2]));
+        if (position.sequence() >= 0) {
+          return position;
+        }
+      }
+    } catch (NumberFormatException | DateTimeParseException e) {
+      // Reported below
+    }
+    throw new IllegalArgumentException("Invalid page token for order " + order + ": " + pageToken);
+  }
+
+  /**
+   * Makes a page of the groceries read after a position.
+   *
+   * @param order the order the groceries are listed in
+   * @param groceries the groceries after the position, up to one more than {@code pageSize}
+   * @param pageSize the maximum number of groceries per page
+   * @return the page, with a token for the next page if there were more groceries than fit
+   */
+  static GroceryPage pageOf(SortOrder order, List<Grocery> groceries, int pageSize) {
+    if (groceries.size() <= pageSize) {
+      return new GroceryPage(groceries, null);
+    }
+    List<Grocery> shown = List.copyOf(groceries.subList(0, pageSize));
+    return new GroceryPage(shown, tokenAfter(order, shown.get(pageSize - 1)));
+  }
+
+  /** Returns the token of the position right after the given grocery. */
+  private static String tokenAfter(SortOrder order, Grocery last) {
+    String position = order + ":" + last.getExpiryDate() + ":" + last.getSequence();
+    // The name comes last, so it may contain the separator
+    return order == SortOrder.NAME ? position + ":" + last.getName() : position;
+  }
+}
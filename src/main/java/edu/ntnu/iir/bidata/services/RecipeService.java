@@ -2,40 +2,58 @@ package edu.ntnu.iir.bidata.services;
 
 import edu.ntnu.iir.bidata.model.Cookbook;
 import edu.ntnu.iir.bidata.model.Grocery;
+import edu.ntnu.iir.bidata.model.NearMissRecipe;
 import edu.ntnu.iir.bidata.model.Recipe;
+import edu.ntnu.iir.bidata.model.RecipeRecommendation;
+import edu.ntnu.iir.bidata.model.RecipeSearchResult;
+import edu.ntnu.iir.bidata.model.RecipeServings;
 import edu.ntnu.iir.bidata.model.Smoothie;
 import edu.ntnu.iir.bidata.utils.IngredientChecker;
 import edu.ntnu.iir.bidata.utils.InputUtils;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
+import java.util.PriorityQueue;
 import java.util.Scanner;
-import java.util.stream.Collectors;
-import lombok.NoArgsConstructor;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * The RecipeService class provides methods to manage and interact with recipes, including adding
  * recipes, retrieving all recipes, and filtering recipes based on available grocery items.
  */
-@NoArgsConstructor
 public class RecipeService {
-  private static Cookbook cookbookForRecipes = new Cookbook();
-  private static GroceryService groceryService = new GroceryService();
+  /** The tag of smoothie and milkshake recipes. */
+  public static final String SMOOTHIE_TAG = "smoothie";
+
+  private final Cookbook cookbookForRecipes;
+
+  /**
+   * Constructs a new {@code RecipeService} with an empty cookbook.
+   */
+  public RecipeService() {
+    this(new Cookbook());
+  }
 
   /**
-   * Constructs a new {@code RecipeService} with the specified grocery service.
+   * Constructs a new {@code RecipeService} with the specified cookbook.
    *
-   * @param mockGroceryService the grocery service to be used
+   * @param cookbook the cookbook holding the recipes
    */
-  public RecipeService(GroceryService mockGroceryService) {
-    groceryService = mockGroceryService;
+  public RecipeService(Cookbook cookbook) {
+    this.cookbookForRecipes = cookbook;
   }
 
   /**
    * Adds a new recipe to the cookbook.
    *
+   * <p>A recipe with the same name, ignoring case, is replaced instead of added twice. A recipe
+   * with "smoothie" or "milkshake" in its name is listed under the {@link #SMOOTHIE_TAG} tag by
+   * the cookbook, so recipes loaded from older data are listed with the smoothies too. The recipe
+   * itself is not changed.</p>
+   *
    * <p><strong>Example:</strong></p>
    * <pre><code>
    * Recipe newRecipe = new Recipe("Pasta", ingredientsMap);
@@ -44,8 +62,10 @@ public class RecipeService {
    *
    * @param recipe the recipe to be added
    */
-  public static void addRecipe(Recipe recipe) {
-    cookbookForRecipes.getRecipes().add(recipe);
+  public void addRecipe(Recipe recipe) {
+    String name = recipe == null || recipe.getName() == null ? "" : recipe.getName().toLowerCase();
+    boolean namedLikeSmoothie = name.contains("smoothie") || name.contains("milkshake");
+    cookbookForRecipes.addRecipe(recipe, namedLikeSmoothie ? List.of(SMOOTHIE_TAG) : List.of());
   }
 
 
@@ -57,9 +77,9 @@ public class RecipeService {
    * List&lt;Recipe&gt; allRecipes = recipeService.getRecipes();
    * </code></pre>
    *
-   * @return the list of recipes
+   * @return an unmodifiable list of the recipes
    */
-  public static List<Recipe> getRecipes() {
+  public List<Recipe> getRecipes() {
     return cookbookForRecipes.getRecipes();
   }
 
@@ -73,54 +93,235 @@ public class RecipeService {
    * @param includeExpiredGrocery whether to include expired groceries ("y" for yes, otherwise no)
    * @return the list of possible recipes that can be made
    */
-  public static List<Recipe> getPossibleRecipes(List<Grocery> fridgeItems,
+  public List<Recipe> getPossibleRecipes(List<Grocery> fridgeItems,
       String includeExpiredGrocery) {
-    // Normalize fridge item names to lowercase and group them
-    Map<String, List<Grocery>> groceriesByName = fridgeItems.stream()
-        .filter(grocery -> {
-          if (includeExpiredGrocery.equalsIgnoreCase("y")) {
-            return true; // Include all items
-          } else {
-            return !IngredientChecker.isExpired(grocery); // Exclude expired items
-          }
-        })
-        .collect(Collectors.groupingBy(grocery -> grocery.getName().toLowerCase()));
-    // Normalize to lowercase
-
-    // Filter recipes by checking ingredient availability
-    return cookbookForRecipes.getRecipes().stream()
-        .filter(recipe -> recipe.getIngredients().entrySet().stream()
-            .allMatch(entry -> {
-              List<Grocery> availableGroceries = groceriesByName.get(entry.getKey().toLowerCase());
-              double totalAvailableQuantity = Optional.ofNullable(availableGroceries)
-                  .orElse(new ArrayList<>())
-                  .stream()
-                  .mapToDouble(Grocery::getQuantity)
-                  .sum();
-              return totalAvailableQuantity >= entry.getValue();
-            }))
-        .toList();
+    // Only recipes using one of the available ingredients are looked at
+    return cookbookForRecipes.findRecipesMakeableWith(
+        availableQuantities(fridgeItems, includeExpiredGrocery));
+  }
+
+  /**
+   * Returns the possible recipes like {@link #getPossibleRecipes(List, String)}, but checks the
+   * recipes in parallel on the given pool.
+   *
+   * <p>The fridge totals are taken once, and every recipe is checked against them in chunks on
+   * the pool. The result is in the same order as the sequential search. This suits very large
+   * cookbooks on machines with many cores.</p>
+   *
+   * @param fridgeItems the list of groceries available in the fridge
+   * @param includeExpiredGrocery whether to include expired groceries ("y" for yes, otherwise no)
+   * @param pool the fork/join pool to check the recipes on, such as
+   *             {@link ForkJoinPool#commonPool()}
+   * @return the list of possible recipes that can be made
+   */
+  public List<Recipe> getPossibleRecipesInParallel(List<Grocery> fridgeItems,
+      String includeExpiredGrocery, ForkJoinPool pool) {
+    return cookbookForRecipes.findRecipesMakeableInParallel(
+        availableQuantities(fridgeItems, includeExpiredGrocery), pool);
+  }
+
+  /**
+   * Returns the recipes that can be made after buying a few missing ingredients.
+   *
+   * <p>A recipe is a near miss if at most {@code maxMissingIngredients} of its ingredients are
+   * missing or short, and the missing quantities add up to at most {@code maxShortfall}. Each
+   * result lists what has to be bought. The recipes are found through the ingredient index in
+   * one pass, so the cookbook is not scanned recipe by recipe.</p>
+   *
+   * <p><strong>Example:</strong></p>
+   * <pre><code>
+   * // Recipes needing one more ingredient, in any quantity
+   * List&lt;NearMissRecipe&gt; buyOne = recipeService.getNearMissRecipes(
+   *     fridgeItems, "n", 1, Double.POSITIVE_INFINITY);
+   * </code></pre>
+   *
+   * @param fridgeItems the list of groceries available in the fridge
+   * @param includeExpiredGrocery whether to include expired groceries ("y" for yes, otherwise no)
+   * @param maxMissingIngredients the largest number of ingredients that may be missing or short
+   * @param maxShortfall the largest sum of missing quantities, or
+   *                     {@link Double#POSITIVE_INFINITY} for no limit
+   * @return the near-miss recipes, in the order they were added, including the recipes that can
+   *         be made already
+   * @throws IllegalArgumentException if {@code maxMissingIngredients} or {@code maxShortfall} is
+   *                                  negative
+   */
+  public List<NearMissRecipe> getNearMissRecipes(List<Grocery> fridgeItems,
+      String includeExpiredGrocery, int maxMissingIngredients, double maxShortfall) {
+    return cookbookForRecipes.findRecipesMissingAtMost(
+        availableQuantities(fridgeItems, includeExpiredGrocery), maxMissingIngredients,
+        maxShortfall);
+  }
+
+  /**
+   * Works out how many times each recipe can be made, and how many people it can serve, with
+   * the given fridge items.
+   *
+   * <p>The total quantity of each grocery is summed once, and each recipe is then limited by its
+   * scarcest ingredient. Recipes are assumed to scale, so the number of times can be a
+   * fraction.</p>
+   *
+   * <p><strong>Example:</strong></p>
+   * <pre><code>
+   * RecipeServings most = recipeService.getMaxServings(fridgeItems, "n").get(0);
+   * System.out.println(most.recipe().getName() + " serves " + most.servings());
+   * </code></pre>
+   *
+   * @param fridgeItems the list of groceries available in the fridge
+   * @param includeExpiredGrocery whether to include expired groceries ("y" for yes, otherwise no)
+   * @return the servings of every recipe, most servings first
+   */
+  public List<RecipeServings> getMaxServings(List<Grocery> fridgeItems,
+      String includeExpiredGrocery) {
+    return cookbookForRecipes.computeServings(
+        availableQuantities(fridgeItems, includeExpiredGrocery));
+  }
+
+  /**
+   * Recommends the recipes that use up the most value of groceries that expire soon.
+   *
+   * <p>Every recipe that can be made from the unexpired groceries is scored by the value of the
+   * lots it would use, taking the lots that expire first and weighting each by
+   * {@code 1 / (1 + days until expiry)}. The recipes are checked and scored in one pass, where
+   * the ingredient signatures reject most recipes that cannot be made. The best recipes are kept
+   * in a heap of at most {@code count} entries, so the other recipes are never sorted.</p>
+   *
+   * <p><strong>Example:</strong></p>
+   * <pre><code>
+   * List&lt;RecipeRecommendation&gt; top = recipeService.getRecommendedRecipes(
+   *     fridgeService.getAllGroceries(), 5);
+   * </code></pre>
+   *
+   * @param fridgeItems the list of groceries available in the fridge
+   * @param count the maximum number of recipes to recommend
+   * @return the recommended recipes, highest score first; recipes added earlier win ties
+   * @throws IllegalArgumentException if {@code count} is not positive
+   */
+  public List<RecipeRecommendation> getRecommendedRecipes(List<Grocery> fridgeItems,
+      int count) {
+    if (count <= 0) {
+      throw new IllegalArgumentException("Count must be positive");
+    }
+    WasteProfile profile = WasteProfile.of(fridgeItems, LocalDate.now());
+    List<Recipe> recipes = cookbookForRecipes.getRecipes();
+
+    // The head of the heap is the weakest of the best recipes found so far
+    PriorityQueue<Candidate> best = new PriorityQueue<>(
+        Math.min(count, recipes.size()) + 1, Candidate.WEAKEST_FIRST);
+    for (int position = 0; position < recipes.size(); position++) {
+      double score = profile.scoreOf(recipes.get(position));
+      if (score < 0) {
+        continue;
+      }
+      if (best.size() < count) {
+        best.add(new Candidate(position, score));
+      } else if (score > best.peek().score()) {
+        best.poll();
+        best.add(new Candidate(position, score));
+      }
+    }
+
+    Candidate[] ranked = best.toArray(new Candidate[0]);
+    Arrays.sort(ranked, Candidate.WEAKEST_FIRST.reversed());
+    List<RecipeRecommendation> recommendations = new ArrayList<>(ranked.length);
+    for (Candidate candidate : ranked) {
+      recommendations.add(
+          new RecipeRecommendation(recipes.get(candidate.position()), candidate.score()));
+    }
+    return recommendations;
+  }
+
+  /**
+   * A recipe competing for a recommendation.
+   *
+   * @param position the position of the recipe in the cookbook
+   * @param score the waste score of the recipe
+   */
+  private record Candidate(int position, double score) {
+    private static final Comparator<Candidate> WEAKEST_FIRST =
+        Comparator.comparingDouble(Candidate::score)
+            .thenComparing(Comparator.comparingInt(Candidate::position).reversed());
+  }
+
+  /**
+   * Finds the recipes that can be made with all of the given lots, expired or not.
+   *
+   * @param lots the lots to make the recipes with
+   * @return the recipes that can be made, in the order they were added
+   */
+  List<Recipe> findRecipesMakeableWith(List<Grocery> lots) {
+    return cookbookForRecipes.findRecipesMakeableWith(availableQuantities(lots, "y"));
+  }
+
+  /**
+   * Sums the available quantity per ingredient of the cookbook, indexed by
+   * {@link Cookbook#ingredientIdOf(String)}. Groceries no recipe uses are left out, so the array
+   * is sized by the ingredients of this cookbook.
+   */
+  private double[] availableQuantities(List<Grocery> fridgeItems,
+      String includeExpiredGrocery) {
+    boolean includeExpired = includeExpiredGrocery.equalsIgnoreCase("y");
+    double[] available = new double[cookbookForRecipes.getIngredientCount()];
+    for (Grocery grocery : fridgeItems) {
+      int ingredientId = cookbookForRecipes.ingredientIdOf(grocery.getName());
+      if (ingredientId >= 0 && ingredientId < available.length
+          && (includeExpired || !IngredientChecker.isExpired(grocery))) {
+        available[ingredientId] += grocery.getQuantity();
+      }
+    }
+    return available;
+  }
+
+  /**
+   * Keeps the recipes that can be made with the groceries in a fridge up to date.
+   *
+   * <p>The cookbook is told the total quantity of each grocery whenever it changes, so
+   * {@link #getCookableRecipes()} does not need to look at the fridge. All stored lots count,
+   * including expired ones.</p>
+   *
+   * @param fridgeService the fridge service holding the groceries
+   * @throws IllegalArgumentException if {@code fridgeService} is null
+   */
+  public void trackCookableRecipes(GroceryStore fridgeService) {
+    if (fridgeService == null) {
+      throw new IllegalArgumentException("Fridge service cannot be null");
+    }
+    fridgeService.addQuantityListener(cookbookForRecipes::setAvailableQuantity);
+  }
+
+  /**
+   * Returns the recipes that can be made right now with the tracked fridge.
+   *
+   * <p>The set is maintained as groceries are added and consumed, see
+   * {@link #trackCookableRecipes(GroceryStore)}, so this takes time proportional to the number
+   * of recipes returned.</p>
+   *
+   * @return the recipes that can be made, in the order they were added
+   */
+  public List<Recipe> getCookableRecipes() {
+    return cookbookForRecipes.getCookableRecipes();
   }
 
   /**
    * Removes a recipe by its name from the cookbook.
    *
-   * <p>If a recipe with the specified name exists, it is removed from the cookbook.</p>
+   * <p>If a recipe with the specified name exists, it is removed from the cookbook. The name is
+   * looked up in the name index of the cookbook, so this takes constant time.</p>
    *
-   * @param recipeName the name of the recipe to remove
+   * @param recipeName the name of the recipe to remove, ignoring case
    * @return {@code true} if the recipe was found and removed, {@code false} otherwise
    */
-  public static boolean removeRecipe(String recipeName) {
-    Optional<Recipe> recipeToRemove = cookbookForRecipes.getRecipes().stream()
-        .filter(recipe -> recipe.getName().equalsIgnoreCase(recipeName))
-        .findFirst();
+  public boolean removeRecipe(String recipeName) {
+    return cookbookForRecipes.removeRecipeNamed(recipeName).isPresent();
+  }
 
-    if (recipeToRemove.isPresent()) {
-      cookbookForRecipes.getRecipes().remove(recipeToRemove.get());
-      return true; // Successfully removed
-    } else {
-      return false; // Recipe not found
-    }
+  /**
+   * Finds a recipe by its name.
+   *
+   * @param recipeName the name of the recipe, ignoring case
+   * @return the recipe, or an empty optional if there is none with the name
+   */
+  public Optional<Recipe> findRecipe(String recipeName) {
+    return cookbookForRecipes.findRecipe(recipeName);
   }
 
   /**
@@ -130,8 +331,9 @@ public class RecipeService {
    * ingredient is not found in the fridge, a placeholder ingredient is added.</p>
    *
    * @param scanner the scanner to read user input
+   * @param fridgeService the fridge service holding the ingredients
    */
-  public static void createSmoothie(Scanner scanner) {
+  public void createSmoothie(Scanner scanner, GroceryStore fridgeService) {
     String smoothieName = InputUtils.readNonEmptyString(scanner, "Enter smoothie name: ");
     if (!smoothieName.toLowerCase().contains("smoothie")) {
       smoothieName += " Smoothie";
@@ -149,7 +351,7 @@ public class RecipeService {
         break;
       }
 
-      Grocery matchingGrocery = FridgeService.getAllGroceries().stream()
+      Grocery matchingGrocery = fridgeService.getAllGroceries().stream()
           .filter(g -> g.getName().equalsIgnoreCase(ingredientName))
           .findFirst()
           .orElse(null);
@@ -168,7 +370,7 @@ public class RecipeService {
 
         Grocery placeholder = new Grocery(ingredientName, quantity, unit, pricePerUnit, expiryDate);
         smoothie.addIngredient(placeholder);
-        FridgeService.addGrocery(placeholder);
+        fridgeService.addGrocery(placeholder);
 
         System.out.println("Placeholder ingredient added.");
         continue;
@@ -190,7 +392,7 @@ public class RecipeService {
           matchingGrocery.getExpiryDate()
       );
       smoothie.addIngredient(ingredientToAdd);
-      FridgeService.removeGrocery(matchingGrocery.getName(), quantity);
+      fridgeService.removeGrocery(matchingGrocery.getName(), quantity);
     }
 
     addRecipe(new Recipe(
@@ -198,7 +400,8 @@ public class RecipeService {
         smoothieDescription,
         "Blend all ingredients.",
         smoothie.getIngredientsMap(),
-        1
+        1,
+        List.of(SMOOTHIE_TAG)
     ));
 
     System.out.println("Smoothie created successfully:\n" + smoothie);
@@ -208,18 +411,71 @@ public class RecipeService {
   /**
    * Retrieves a list of all smoothie recipes.
    *
-   * <p>Filters recipes that have "smoothie" or "milkshake" in their names.</p>
+   * <p>Returns the recipes with the {@link #SMOOTHIE_TAG} tag, which are listed by the cookbook
+   * instead of found by searching the names of all recipes.</p>
    *
    * @return the list of smoothie recipes
    */
-  public static List<Recipe> getSmoothieRecipes() {
-    return cookbookForRecipes.getRecipes().stream()
-        .filter(recipe ->
-            recipe.getName().toLowerCase().contains("smoothie")
-                ||
-                recipe.getName().toLowerCase().contains("milkshake")
-        )
-        .toList();
+  public List<Recipe> getSmoothieRecipes() {
+    return getRecipesTagged(SMOOTHIE_TAG);
+  }
+
+  /**
+   * Retrieves a list of all recipes that are not smoothies.
+   *
+   * <p>Returns the recipes the cookbook does not list under the {@link #SMOOTHIE_TAG} tag, so
+   * recipes named like smoothies are left out even though they do not have the tag
+   * themselves.</p>
+   *
+   * @return the list of food recipes, in the order they were added
+   */
+  public List<Recipe> getFoodRecipes() {
+    return cookbookForRecipes.getRecipesNotTagged(SMOOTHIE_TAG);
+  }
+
+  /**
+   * Searches the recipes for the words of a query, best matches first.
+   *
+   * <p>The name, description and procedure of every recipe are kept in an inverted index by the
+   * cookbook, updated as recipes are added and removed, so a search only looks at the recipes
+   * containing one of the words. Matches are ranked with BM25.</p>
+   *
+   * <p><strong>Example:</strong></p>
+   * <pre><code>
+   * List&lt;RecipeSearchResult&gt; results = recipeService.searchRecipes("banana blend", 10);
+   * </code></pre>
+   *
+   * @param query the words to search for, in any case
+   * @param count the maximum number of recipes to return
+   * @return the best matching recipes, highest score first
+   * @throws IllegalArgumentException if {@code query} is null or {@code count} is not positive
+   */
+  public List<RecipeSearchResult> searchRecipes(String query, int count) {
+    return cookbookForRecipes.searchRecipes(query, count);
+  }
+
+  /**
+   * Returns the recipes with a tag, in the order they were added.
+   *
+   * @param tag the tag, ignoring case
+   * @return the recipes with the tag
+   */
+  public List<Recipe> getRecipesTagged(String tag) {
+    return cookbookForRecipes.getRecipesTagged(tag);
+  }
+
+  /**
+   * Returns the recipes with a tag that can be made with what is in the fridge right now.
+   *
+   * <p>This is the intersection of {@link #getRecipesTagged(String)} and
+   * {@link #getCookableRecipes()}, worked out by the cookbook without checking any
+   * ingredients, so it needs {@link #trackCookableRecipes(GroceryStore)} like the latter.</p>
+   *
+   * @param tag the tag, ignoring case
+   * @return the recipes with the tag that can be made right now
+   */
+  public List<Recipe> getCookableRecipesTagged(String tag) {
+    return cookbookForRecipes.getCookableRecipesTagged(tag);
   }
 
 }
\ No newline at end of file
@@ -0,0 +1,122 @@
+package edu.ntnu.iir.bidata.services;
+
+import edu.ntnu.iir.bidata.model.Grocery;
+import edu.ntnu.iir.bidata.model.IngredientSignature;
+import edu.ntnu.iir.bidata.model.Recipe;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * The unexpired lots of each grocery, prepared for scoring how much value a recipe saves from
+ * going to waste.
+ *
+ * <p>A recipe is assumed to use the lots that expire first, like
+ * {@link FridgeService#consumeGrocery(String, double)}. The value of each lot is weighted by
+ * {@code 1 / (1 + days until expiry)}, so a lot expiring today counts in full, tomorrow half and
+ * next week an eighth. The lots are read from an {@link ExpiryLayout}, with running totals of
+ * quantity and weighted value per name; the score of one ingredient is then found by a binary
+ * search in those totals.</p>
+ */
+final class WasteProfile {
+  private final ExpiryLayout layout;
+  private final double[] cumulativeQuantity;
+  private final double[] cumulativeScore;
+  private final double[] scorePerUnit;
+  /** The unexpired quantity of each slot of the layout. */
+  private final double[] availableQuantities;
+  private final long availableSignature;
+
+  private WasteProfile(ExpiryLayout layout, double[] cumulativeQuantity,
+      double[] cumulativeScore, double[] scorePerUnit, double[] availableQuantities,
+      long availableSignature) {
+    this.layout = layout;
+    this.cumulativeQuantity = cumulativeQuantity;
+    this.cumulativeScore = cumulativeScore;
+    this.scorePerUnit = scorePerUnit;
+    this.availableQuantities = availableQuantities;
+    this.availableSignature = availableSignature;
+  }
+
+  /**
+   * Prepares the unexpired lots among the given groceries.
+   *
+   * @param groceries the groceries available in the fridge
+   * @param today the date to count the days until expiry from
+   * @return the profile of the unexpired lots
+   */
+  static WasteProfile of(List<Grocery> groceries, LocalDate today) {
+    long todayEpochDay = today.toEpochDay();
+    ExpiryLayout layout = ExpiryLayout.of(groceries, todayEpochDay);
+    double[] cumulativeQuantity = new double[layout.size()];
+    double[] cumulativeScore = new double[layout.size()];
+    double[] scorePerUnit = new double[layout.size()];
+    double[] availableQuantities = new double[layout.slotCount()];
+    long availableSignature = 0;
+    for (int slot = 0; slot < layout.slotCount(); slot++) {
+      double quantity = 0;
+      double score = 0;
+      for (int i = layout.start(slot); i < layout.end(slot); i++) {
+        Grocery lot = layout.lot(i);
+        scorePerUnit[i] = lot.getPricePerUnit() / (1 + layout.expiryDay(i) - todayEpochDay);
+        quantity += lot.getQuantity();
+        score += lot.getQuantity() * scorePerUnit[i];
+        cumulativeQuantity[i] = quantity;
+        cumulativeScore[i] = score;
+      }
+      availableQuantities[slot] = quantity;
+      if (quantity > 0) {
+        availableSignature |= IngredientSignature.bitOf(layout.nameIdOf(slot));
+      }
+    }
+    return new WasteProfile(layout, cumulativeQuantity, cumulativeScore, scorePerUnit,
+        availableQuantities, availableSignature);
+  }
+
+  /**
+   * Scores a recipe by the weighted value of the lots it would use.
+   *
+   * @param recipe the recipe to score
+   * @return the waste score of the recipe, or a negative number if the unexpired lots are not
+   *         enough to make it
+   */
+  double scoreOf(Recipe recipe) {
+    if (!IngredientSignature.covers(availableSignature, recipe.getIngredientSignature())) {
+      return -1;
+    }
+    double score = 0;
+    for (int i = 0; i < recipe.getIngredientCount(); i++) {
+      double required = recipe.getRequiredQuantity(i);
+      if (required <= 0) {
+        continue;
+      }
+      int slot = layout.slotOf(recipe.getIngredientId(i));
+      if (slot < 0 || availableQuantities[slot] < required) {
+        return -1;
+      }
+      score += scoreOf(slot, required);
+    }
+    return score;
+  }
+
+  private double scoreOf(int slot, double quantity) {
+    int from = layout.start(slot);
+    int to = layout.end(slot);
+    // Find the first lot that is not used up by the quantity
+    int low = from;
+    int high = to;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (cumulativeQuantity[middle] < quantity) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    if (low == to) {
+      return low == from ? 0 : cumulativeScore[to - 1];
+    }
+    double usedBefore = low == from ? 0 : cumulativeQuantity[low - 1];
+    double scoreBefore = low == from ? 0 : cumulativeScore[low - 1];
+    return scoreBefore + (quantity - usedBefore) * scorePerUnit[low];
+  }
+}
@@ -1,10 +1,10 @@
 package edu.ntnu.iir.bidata.userInterface;
 
-import static edu.ntnu.iir.bidata.services.RecipeService.createSmoothie;
-
 import edu.ntnu.iir.bidata.model.Grocery;
+import edu.ntnu.iir.bidata.model.GroceryPage;
 import edu.ntnu.iir.bidata.model.Recipe;
-import edu.ntnu.iir.bidata.services.FridgeService;
+import edu.ntnu.iir.bidata.model.SortOrder;
+import edu.ntnu.iir.bidata.services.GroceryStore;
 import edu.ntnu.iir.bidata.services.RecipeService;
 import edu.ntnu.iir.bidata.utils.InputUtils;
 import java.time.LocalDate;
@@ -34,6 +34,23 @@ public class UserInterface {
   private static final int REMOVE_RECIPE = 10;
   private static final int VIEW_POSSIBLE_RECIPES = 11;
 
+  /** The number of groceries shown at a time when listing all groceries. */
+  private static final int PAGE_SIZE = 20;
+
+  private final GroceryStore fridgeService;
+  private final RecipeService recipeService;
+
+  /**
+   * Constructs a new {@code UserInterface} working on the given services.
+   *
+   * @param fridgeService the fridge service holding the groceries
+   * @param recipeService the recipe service holding the recipes
+   */
+  public UserInterface(GroceryStore fridgeService, RecipeService recipeService) {
+    this.fridgeService = fridgeService;
+    this.recipeService = recipeService;
+  }
+
   /**
    *
    * Initializes the application with sample groceries and recipes.
@@ -41,38 +58,38 @@ public class UserInterface {
    *<p>This method populates the fridge with sample grocery items and adds
    * sample recipes to the recipe book.</p>
    */
-  public static void init() {
+  public void init() {
     // Add some sample groceries to the fridge
-    FridgeService.addGrocery(new Grocery("Milk", 1, "liters",
+    fridgeService.addGrocery(new Grocery("Milk", 1, "liters",
         20, LocalDate.now().plusDays(9)));
-    FridgeService.addGrocery(new Grocery("Eggs", 12, "pieces",
+    fridgeService.addGrocery(new Grocery("Eggs", 12, "pieces",
         10, LocalDate.now().plusDays(10)));
-    FridgeService.addGrocery(new Grocery("Flour", 1, "kg",
+    fridgeService.addGrocery(new Grocery("Flour", 1, "kg",
         20, LocalDate.now().plusMonths(6)));
 
     //adding some expired groceries:
-    FridgeService.addGrocery(new Grocery("Bread", 1, "loaf", 29,
+    fridgeService.addGrocery(new Grocery("Bread", 1, "loaf", 29,
         LocalDate.now().minusDays(3))); // Expired 3 days ago
-    FridgeService.addGrocery(new Grocery("Milk", 1, "litres", 20,
+    fridgeService.addGrocery(new Grocery("Milk", 1, "litres", 20,
         LocalDate.now().minusDays(2)));
-    FridgeService.addGrocery(new Grocery("Tomato", 3, "pieces", 8,
+    fridgeService.addGrocery(new Grocery("Tomato", 3, "pieces", 8,
         LocalDate.now().minusDays(4)));
-    FridgeService.addGrocery(new Grocery("Yoghurt", 0.25, "kg", 16,
+    fridgeService.addGrocery(new Grocery("Yoghurt", 0.25, "kg", 16,
         LocalDate.now().minusDays(3)));
 
     //adding some groceries for smoothies:
-    FridgeService.addGrocery(new Grocery("Strawberries", 2, "cups",
+    fridgeService.addGrocery(new Grocery("Strawberries", 2, "cups",
         14, LocalDate.now().plusDays(7)));
-    FridgeService.addGrocery(new Grocery("Banana", 6, "pieces",
+    fridgeService.addGrocery(new Grocery("Banana", 6, "pieces",
         8, LocalDate.now().plusDays(5)));
-    FridgeService.addGrocery(new Grocery("Yoghurt", 0.5, "kg",
+    fridgeService.addGrocery(new Grocery("Yoghurt", 0.5, "kg",
         22, LocalDate.now().plusDays(10)));
-    FridgeService.addGrocery(new Grocery("Mango", 4, "pieces",
+    fridgeService.addGrocery(new Grocery("Mango", 4, "pieces",
         10, LocalDate.now().plusDays(7)));
 
     // Add some sample recipes to the cookbook
     Map<String, Double> pancakeIngredients = Map.of("Milk", 1.5, "Eggs", 2.0, "Flour", 0.5);
-    RecipeService.addRecipe(
+    recipeService.addRecipe(
         new Recipe(
             "Pancakes",
             "Delicious breakfast with 4 eggs, 500g flour and 0.5L milk",
@@ -80,7 +97,7 @@ public class UserInterface {
             pancakeIngredients,
             4));
     Map<String, Double> paneerIngreidents = Map.of("Milk", 2.0, "lemon juice", 0.5);
-    RecipeService.addRecipe(
+    recipeService.addRecipe(
         new Recipe(
             "Paneer (Indian Cheese)",
             "Delicious indian cheese made from milk and lemon juice, saves expired milk",
@@ -97,9 +114,9 @@ public class UserInterface {
   /**
    * Adds predefined smoothie recipes to the recipe book.
    *
-   * <p>This method creates and adds sample smoothie recipes to the RecipeService.
+   * <p>This method creates and adds sample smoothie recipes to the recipeService.
    */
-  private static void addSampleSmoothieRecipes() {
+  private void addSampleSmoothieRecipes() {
     // Sample Smoothie 1: Strawberry Banana Smoothie
     Map<String, Double> strawberryBananaIngredients = Map.of(
         "Strawberries", 1.0, // in cups
@@ -107,7 +124,7 @@ public class UserInterface {
         "Yogurt", 0.5,        // in cups
         "Honey", 0.2          // in tablespoons
     );
-    RecipeService.addRecipe(
+    recipeService.addRecipe(
         new Recipe(
             "Strawberry Banana Smoothie",
             "A sweet smoothie with strawberries and bananas.",
@@ -122,7 +139,7 @@ public class UserInterface {
         "milk", 0.3,          // in litres
         "cinnamon", 1.0         // tsp
     );
-    RecipeService.addRecipe(
+    recipeService.addRecipe(
         new Recipe(
             "Avo shake smoothie",
             "A creamy green smoothie to delight your taste buds.",
@@ -138,7 +155,7 @@ public class UserInterface {
         "sugar", 0.1            // tbsp
     );
 
-    RecipeService.addRecipe(new Recipe("Mango Lassi Milkshake",
+    recipeService.addRecipe(new Recipe("Mango Lassi Milkshake",
         "A refreshing indian style mango milkshake.",
         "Blend all ingredients until smooth.",
         mangoLassiIngredients,
@@ -151,7 +168,7 @@ public class UserInterface {
    *
    * <p>This method displays the main menu and processes user inputs to perform various actions.</p>
    */
-  public static void start() {
+  public void start() {
     Scanner scanner = new Scanner(System.in);
     boolean exit = false;
 
@@ -190,7 +207,7 @@ public class UserInterface {
   /**
    * Displays the main menu options to the user.
    */
-  private static void displayMenu() {
+  private void displayMenu() {
     System.out.println("\n=================== In-House Food Waste Management ===================");
     System.out.println(" 0. Exit");
     System.out.println(" 1. Add Grocery                      | 7. Total Value (Expired Groceries)");
@@ -212,7 +229,7 @@ public class UserInterface {
    *
    * @param scanner the {@code Scanner} object for reading user input
    */
-  private static void addGrocery(Scanner scanner) {
+  private void addGrocery(Scanner scanner) {
     String name = InputUtils.readNonEmptyString(scanner, "Enter grocery name: ")
         .toLowerCase();
     double quantity = InputUtils.readValidatedDouble(scanner, "Enter amount"
@@ -225,7 +242,7 @@ public class UserInterface {
         + "(in NOK, must be non-negative): ", 0.0, 1000);
     LocalDate expiryDate = InputUtils.readDate(scanner, "Enter expiry date (YYYY-MM-DD): ");
 
-    FridgeService.addGrocery(new Grocery(name, quantity, unit, pricePerUnit, expiryDate));
+    fridgeService.addGrocery(new Grocery(name, quantity, unit, pricePerUnit, expiryDate));
     System.out.println("Grocery added successfully.");
   }
 
@@ -239,9 +256,9 @@ public class UserInterface {
    *
    * @param scanner the {@code Scanner} object for reading user input
    */
-  private static void removeGrocery(Scanner scanner) {
+  private void removeGrocery(Scanner scanner) {
 
-    List<Grocery> groceries = FridgeService.getAllGroceries();
+    List<Grocery> groceries = fridgeService.getAllGroceries();
 
     // Check if the list is empty
     if (groceries.isEmpty()) {
@@ -256,7 +273,7 @@ public class UserInterface {
     double quantity = InputUtils.readValidatedDouble(scanner, "Enter quantity to remove: ",
         0.0, 50);
 
-    boolean success = FridgeService.removeGrocery(name, quantity);
+    boolean success = fridgeService.removeGrocery(name, quantity);
     if (success) {
       System.out.println("Grocery removed successfully.");
     } else {
@@ -271,10 +288,10 @@ public class UserInterface {
    *
    * @param scanner the {@code Scanner} object for reading user input
    */
-  private static void findGroceryByName(Scanner scanner) {
+  private void findGroceryByName(Scanner scanner) {
     String name = InputUtils.readNonEmptyString(scanner, "Enter the name of the "
         + "grocery to find: ");
-    List<Grocery> matchingGroceries = FridgeService.findGroceriesByName(name);
+    List<Grocery> matchingGroceries = fridgeService.findGroceriesByName(name);
 
     if (!matchingGroceries.isEmpty()) {
       System.out.println("\n--- Grocery Found ---");
@@ -287,22 +304,28 @@ public class UserInterface {
   /**
    * Views all groceries, either sorted by name or by expiry date.
    *
+   * <p>The groceries are fetched and shown one page at a time, so the first page appears at
+   * once however many groceries are stored.</p>
+   *
    * @param scanner the {@code Scanner} object for reading user input
    */
-  private static void viewAllGroceries(Scanner scanner) {
+  private void viewAllGroceries(Scanner scanner) {
     System.out.println("How would you like to view the groceries?");
     System.out.println("1. Sorted by Name");
     System.out.println("2. Sorted by Expiry Date");
     int choice = InputUtils.readValidatedInt(scanner, "Enter choice (1 or 2): ", 1, 2);
+    SortOrder order = choice == 1 ? SortOrder.NAME : SortOrder.EXPIRY_DATE;
 
-    List<Grocery> groceries;
-    if (choice == 1) {
-      groceries = FridgeService.getGroceriesSortedByName();
-    } else {
-      groceries = FridgeService.getGroceriesSortedByExpiryDate();
+    GroceryPage page = fridgeService.getGroceryPage(order, PAGE_SIZE, null);
+    InputUtils.displayGroceries(page.groceries());
+    while (page.hasNextPage()) {
+      String answer = InputUtils.readNonEmptyString(scanner, "Show more groceries? (y/n): ");
+      if (!answer.equalsIgnoreCase("y")) {
+        break;
+      }
+      page = fridgeService.getGroceryPage(order, PAGE_SIZE, page.nextPageToken());
+      InputUtils.displayGroceries(page.groceries());
     }
-
-    InputUtils.displayGroceries(groceries);
   }
 
   /**
@@ -315,9 +338,9 @@ public class UserInterface {
    * UserInterface.viewExpiredGroceries();
    * }</pre>
    */
-  private static void viewExpiredGroceries() {
+  private void viewExpiredGroceries() {
     System.out.println("\n--- Expired Groceries ---");
-    List<Grocery> expiredGroceries = FridgeService.getExpiredGroceries();
+    List<Grocery> expiredGroceries = fridgeService.getExpiredGroceries();
     if (expiredGroceries.isEmpty()) {
       System.out.println("No expired groceries found.");
     } else {
@@ -335,8 +358,8 @@ public class UserInterface {
    * UserInterface.calculateTotalValue();
    * }</pre>
    */
-  private static void calculateTotalValue() {
-    double totalValue = FridgeService.calculateTotalValue();
+  private void calculateTotalValue() {
+    double totalValue = fridgeService.calculateTotalValue();
     System.out.printf("Total value of groceries: NOK %.2f%n", totalValue);
   }
 
@@ -350,8 +373,8 @@ public class UserInterface {
    * UserInterface.calculateTotalValueOfExpiredItems();
    * }</pre>
    */
-  private static void calculateTotalValueOfExpiredItems() {
-    double totalValue = FridgeService.calculateTotalValueOfExpiredGroceries();
+  private void calculateTotalValueOfExpiredItems() {
+    double totalValue = fridgeService.calculateTotalValueOfExpiredGroceries();
     System.out.printf("Total value of expired groceries: NOK %.2f%n", totalValue);
   }
 
@@ -364,7 +387,7 @@ public class UserInterface {
    *
    * @param scanner the {@code Scanner} object used to read user input
    */
-  private static void addRecipe(Scanner scanner) {
+  private void addRecipe(Scanner scanner) {
     System.out.println("Would you like to add:");
     System.out.println("1. Food Recipe");
     System.out.println("2. Smoothie Recipe");
@@ -391,11 +414,11 @@ public class UserInterface {
 
       int serves = InputUtils.readValidatedInt(scanner, "Serves (number of people): ", 1, 15);
 
-      RecipeService.addRecipe(new Recipe(name, description, procedure, ingredients, serves));
+      recipeService.addRecipe(new Recipe(name, description, procedure, ingredients, serves));
       System.out.println("Food recipe added successfully.");
     } else {
       // Add a smoothie recipe
-      createSmoothie(scanner);
+      recipeService.createSmoothie(scanner, fridgeService);
     }
   }
 
@@ -405,10 +428,10 @@ public class UserInterface {
    *
    * @param scanner the {@code Scanner} object for reading user input
    */
-  private static void removeRecipe(Scanner scanner) {
+  private void removeRecipe(Scanner scanner) {
     String recipeName = InputUtils.readNonEmptyString(scanner, "Enter the name "
         + "of the recipe to remove: ");
-    boolean success = RecipeService.removeRecipe(recipeName);
+    boolean success = recipeService.removeRecipe(recipeName);
 
     if (success) {
       System.out.println("Recipe \"" + recipeName + "\" has been removed successfully.");
@@ -426,7 +449,7 @@ public class UserInterface {
    *
    * @param scanner the {@code Scanner} object used to read user input
    */
-  private static void viewAllRecipes(Scanner scanner) {
+  private void viewAllRecipes(Scanner scanner) {
     System.out.println("\nWould you like to view:");
     System.out.println("1. Food Recipes");
     System.out.println("2. Smoothie Recipes");
@@ -436,11 +459,9 @@ public class UserInterface {
 
     List<Recipe> recipesToDisplay;
     switch (choice) {
-      case 1 -> recipesToDisplay = RecipeService.getRecipes().stream()
-          .filter(recipe -> !recipe.getName().toLowerCase().contains("smoothie"))
-          .toList();
-      case 2 -> recipesToDisplay = RecipeService.getSmoothieRecipes();
-      default -> recipesToDisplay = RecipeService.getRecipes();
+      case 1 -> recipesToDisplay = recipeService.getFoodRecipes();
+      case 2 -> recipesToDisplay = recipeService.getSmoothieRecipes();
+      default -> recipesToDisplay = recipeService.getRecipes();
     }
 
     if (recipesToDisplay.isEmpty()) {
@@ -459,7 +480,7 @@ public class UserInterface {
    *
    * @param scanner the {@code Scanner} object for reading user input
    */
-  private static void viewPossibleRecipes(Scanner scanner) {
+  private void viewPossibleRecipes(Scanner scanner) {
     String includeExpiredGrocery;
     while (true) {
       includeExpiredGrocery = InputUtils.readNonEmptyString(scanner,
@@ -473,7 +494,7 @@ public class UserInterface {
 
     System.out.println("\n--- Possible Recipes with Current Groceries ---");
     List<Recipe> possibleRecipes =
-        RecipeService.getPossibleRecipes(FridgeService.getAllGroceries(), includeExpiredGrocery);
+        recipeService.getPossibleRecipes(fridgeService.getAllGroceries(), includeExpiredGrocery);
     if (possibleRecipes.isEmpty()) {
       System.out.println("No recipes can be made with the current groceries.");
     } else {
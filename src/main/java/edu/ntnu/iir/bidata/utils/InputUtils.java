@@ -3,6 +3,8 @@ package edu.ntnu.iir.bidata.utils;
 import edu.ntnu.iir.bidata.model.Grocery;
 import edu.ntnu.iir.bidata.model.Recipe;
 import edu.ntnu.iir.bidata.services.GroceryService;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
 import java.util.List;
@@ -129,6 +131,22 @@ public class InputUtils {
     return UNITS.get(choice - 1);
   }
 
+  /** Table layout for groceries, built once. */
+  private static final TableRenderer<Grocery> GROCERY_TABLE = new TableRenderer<>(List.of(
+      TableRenderer.Column.text("Name", 20, Grocery::getName),
+      TableRenderer.Column.decimal("Quantity", 10, Grocery::getQuantity),
+      TableRenderer.Column.decimal("Price per Unit (NOK)", 20, Grocery::getPricePerUnit),
+      TableRenderer.Column.text("Expiry Date", 15, Grocery::getExpiryDate),
+      TableRenderer.Column.text("Status", 10,
+          grocery -> GroceryService.isExpired(grocery) ? "Expired" : "Fresh")));
+
+  /** Table layout for recipes, built once. */
+  private static final TableRenderer<Recipe> RECIPE_TABLE = new TableRenderer<>(List.of(
+      TableRenderer.Column.text("Name", 25, Recipe::getName),
+      TableRenderer.Column.text("Description", 50, Recipe::getDescription),
+      TableRenderer.Column.text("Ingredients", 55, Recipe::getIngredients),
+      TableRenderer.Column.integer("Serves", 6, Recipe::getServes)));
+
   /**
    * Displays the list of groceries.
    *
@@ -143,22 +161,19 @@ public class InputUtils {
       System.out.println("No groceries available.");
       return;
     }
+    System.out.println();
+    GROCERY_TABLE.print(groceries);
+  }
 
-    // Print table headers
-    System.out.println("\n+---------------------------------------------------------------------+");
-    System.out.printf("| %-20s | %-10s | %-15s | %-15s | %-10s |\n",
-        "Name", "Quantity", "Price per Unit (NOK)", "Expiry Date", "Status");
-    System.out.println("+-----------------------------------------------------------------------+");
-
-    // Print each grocery item
-    for (Grocery grocery : groceries) {
-      String status = GroceryService.isExpired(grocery) ? "Expired" : "Fresh";
-      System.out.printf("| %-20s | %-10.2f | %-15.2f | %-15s | %-10s |\n",
-          grocery.getName(), grocery.getQuantity(),
-          grocery.getPricePerUnit(), grocery.getExpiryDate(), status);
-    }
-
-    System.out.println("+-----------------------------------------------------------------------+");
+  /**
+   * Writes the list of groceries as a table to a file, replacing its contents.
+   *
+   * @param groceries the list of grocery items to write
+   * @param file the file to write to
+   * @throws IOException if the file cannot be written
+   */
+  public static void writeGroceries(List<Grocery> groceries, Path file) throws IOException {
+    GROCERY_TABLE.write(groceries, file);
   }
 
   /**
@@ -171,32 +186,7 @@ public class InputUtils {
       System.out.println("No recipes available.");
       return;
     }
-
-    // Print table headers
-    System.out.println("\n+---------------------------------------------------------------------"
-        + "---------------------------------------------------------------------+");
-    System.out.printf("| %-25s | %-50s | %-55s | %-6s |\n", "Name", "Description", "Ingredients",
-        "Serves");
-    System.out.println("+-----------------------------------------------------------------------"
-        + "-------------------------------------------------------------+");
-
-    // Print each recipe
-    for (Recipe recipe : recipes) {
-      String ingredients = recipe.getIngredients().toString();
-      System.out.printf("| %-25s | %-50s | %-45s | %-6d |\n",
-          recipe.getName(),
-          recipe.getDescription(),
-          ingredients,
-          recipe.getServes());
-    }
-
-    System.out.println("+--------------------------------------------------------------"
-        + "----------------------------------------------------------------------------+");
+    System.out.println();
+    RECIPE_TABLE.print(recipes);
   }
-
-
-
-
-
-
 }
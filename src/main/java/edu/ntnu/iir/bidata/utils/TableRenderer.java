@@ -0,0 +1,265 @@
+package edu.ntnu.iir.bidata.utils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.DecimalFormatSymbols;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Renders rows as a text table with fixed column widths.
+ *
+ * <p>The border and header lines are built once, when the renderer is created. The rows are
+ * written into a single {@link StringBuilder} without format strings, and the builder is handed
+ * to the output in large chunks. Printing a table of many thousand rows therefore takes a
+ * handful of writes instead of one synchronized {@code printf} per row.</p>
+ *
+ * <p>The output looks like {@code printf} with {@code %-Ns}, {@code %-N.2f} and {@code %-Nd}
+ * cells: values are left-aligned, padded to the column width and never cut off.</p>
+ *
+ * <p><strong>Example:</strong></p>
+ * <pre><code>
+ * TableRenderer&lt;Grocery&gt; table = new TableRenderer&lt;&gt;(List.of(
+ *     TableRenderer.Column.text("Name", 20, Grocery::getName),
+ *     TableRenderer.Column.decimal("Quantity", 10, Grocery::getQuantity)));
+ * table.print(groceries);
+ * table.write(groceries, Path.of("groceries.txt"));
+ * </code></pre>
+ *
+ * @param <T> the type of the rows
+ */
+public class TableRenderer<T> {
+  /** Number of characters collected before they are written to the output. */
+  private static final int CHUNK_SIZE = 1 << 16;
+
+  private final List<Column<T>> columns;
+  private final String border;
+  private final String header;
+
+  /**
+   * Constructs a new {@code TableRenderer} with the given columns.
+   *
+   * @param columns the columns, from left to right
+   * @throws IllegalArgumentException if {@code columns} is null or empty
+   */
+  public TableRenderer(List<Column<T>> columns) {
+    if (columns == null || columns.isEmpty()) {
+      throw new IllegalArgumentException("A table needs at least one column");
+    }
+    this.columns = List.copyOf(columns);
+
+    StringBuilder line = new StringBuilder("+");
+    StringBuilder headerLine = new StringBuilder();
+    for (Column<T> column : this.columns) {
+      line.append("-".repeat(column.width + 2)).append('+');
+      headerLine.append("| ");
+      pad(headerLine.append(column.header), column.header.length(), column.width);
+      headerLine.append(' ');
+    }
+    this.border = line.append('\n').toString();
+    this.header = headerLine.append("|\n").toString();
+  }
+
+  /**
+   * Renders the table to standard output.
+   *
+   * @param rows the rows to render
+   */
+  public void print(List<? extends T> rows) {
+    try {
+      render(rows, System.out);
+    } catch (IOException e) {
+      // PrintStream reports errors through checkError() instead of throwing
+      throw new UncheckedIOException(e);
+    }
+    System.out.flush();
+  }
+
+  /**
+   * Renders the table to a file, replacing its contents.
+   *
+   * @param rows the rows to render
+   * @param file the file to write to
+   * @throws IOException if the file cannot be written
+   */
+  public void write(List<? extends T> rows, Path file) throws IOException {
+    try (Writer writer = Files.newBufferedWriter(file)) {
+      render(rows, writer);
+    }
+  }
+
+  /**
+   * Renders the table to any character output, such as a {@link Writer}, a
+   * {@link java.io.PrintStream} or a {@link StringBuilder}.
+   *
+   * @param rows the rows to render
+   * @param out the output to write to
+   * @throws IOException if writing to the output fails
+   */
+  public void render(List<? extends T> rows, Appendable out) throws IOException {
+    Formatting formatting = Formatting.forDefaultLocale();
+    StringBuilder chunk = new StringBuilder(CHUNK_SIZE + 256);
+    chunk.append(border).append(header).append(border);
+    for (T row : rows) {
+      for (Column<T> column : columns) {
+        chunk.append("| ");
+        int start = chunk.length();
+        column.appendValue(row, chunk, formatting);
+        pad(chunk, chunk.length() - start, column.width);
+        chunk.append(' ');
+      }
+      chunk.append("|\n");
+      if (chunk.length() >= CHUNK_SIZE) {
+        out.append(chunk);
+        chunk.setLength(0);
+      }
+    }
+    out.append(chunk.append(border));
+  }
+
+  private static void pad(StringBuilder out, int length, int width) {
+    for (int i = length; i < width; i++) {
+      out.append(' ');
+    }
+  }
+
+  /**
+   * The number formatting of a locale, as used by {@code printf}.
+   *
+   * @param locale the locale to format numbers in
+   * @param decimalSeparator the decimal separator of the locale
+   * @param asciiDigits whether the locale writes digits as {@code 0} to {@code 9}
+   */
+  private record Formatting(Locale locale, char decimalSeparator, boolean asciiDigits) {
+    private static Formatting forDefaultLocale() {
+      Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+      DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+      return new Formatting(locale, symbols.getDecimalSeparator(), symbols.getZeroDigit() == '0');
+    }
+  }
+
+  /**
+   * A column of a table.
+   *
+   * @param <T> the type of the rows
+   */
+  public abstract static class Column<T> {
+    private final String header;
+    private final int width;
+
+    private Column(String header, int width) {
+      if (header == null) {
+        throw new IllegalArgumentException("Header cannot be null");
+      }
+      if (width < 0) {
+        throw new IllegalArgumentException("Width cannot be negative");
+      }
+      this.header = header;
+      this.width = width;
+    }
+
+    /**
+     * Creates a column of text values, like {@code %-Ns}.
+     *
+     * @param header the column header
+     * @param width the minimum width of the column
+     * @param value the function reading the value of a row
+     * @param <T> the type of the rows
+     * @return the column
+     */
+    public static <T> Column<T> text(String header, int width, Function<? super T, ?> value) {
+      return new Column<>(header, width) {
+        @Override
+        void appendValue(T row, StringBuilder out, Formatting formatting) {
+          out.append(value.apply(row));
+        }
+      };
+    }
+
+    /**
+     * Creates a column of numbers with two decimals, like {@code %-N.2f}.
+     *
+     * @param header the column header
+     * @param width the minimum width of the column
+     * @param value the function reading the value of a row
+     * @param <T> the type of the rows
+     * @return the column
+     */
+    public static <T> Column<T> decimal(String header, int width,
+        ToDoubleFunction<? super T> value) {
+      return new Column<>(header, width) {
+        @Override
+        void appendValue(T row, StringBuilder out, Formatting formatting) {
+          appendTwoDecimals(out, value.applyAsDouble(row), formatting);
+        }
+      };
+    }
+
+    /**
+     * Creates a column of whole numbers, like {@code %-Nd}.
+     *
+     * @param header the column header
+     * @param width the minimum width of the column
+     * @param value the function reading the value of a row
+     * @param <T> the type of the rows
+     * @return the column
+     */
+    public static <T> Column<T> integer(String header, int width,
+        ToIntFunction<? super T> value) {
+      return new Column<>(header, width) {
+        @Override
+        void appendValue(T row, StringBuilder out, Formatting formatting) {
+          int number = value.applyAsInt(row);
+          if (formatting.asciiDigits()) {
+            out.append(number);
+          } else {
+            out.append(String.format(formatting.locale(), "%d", number));
+          }
+        }
+      };
+    }
+
+    /**
+     * Appends the value of this column for a row.
+     *
+     * @param row the row
+     * @param out the builder to append to
+     * @param formatting the number formatting to use
+     */
+    abstract void appendValue(T row, StringBuilder out, Formatting formatting);
+
+    /**
+     * Appends a number rounded half up to two decimals, exactly like {@code %.2f}.
+     *
+     * <p>The number is rounded in binary, which agrees with {@code printf} unless it lies very
+     * close to halfway between two hundredths or is very large; those numbers, and locales with
+     * other digits, are left to {@code String.format}.</p>
+     */
+    private static void appendTwoDecimals(StringBuilder out, double value,
+        Formatting formatting) {
+      double hundredths = Math.abs(value * 100);
+      double fraction = hundredths - Math.floor(hundredths);
+      if (!formatting.asciiDigits() || !(hundredths < 1e9)
+          || Math.abs(fraction - 0.5) < 1e-6) {
+        out.append(String.format(formatting.locale(), "%.2f", value));
+        return;
+      }
+      long rounded = Math.round(hundredths);
+      if (Double.doubleToRawLongBits(value) < 0) {
+        out.append('-');
+      }
+      out.append(rounded / 100).append(formatting.decimalSeparator());
+      long cents = rounded % 100;
+      if (cents < 10) {
+        out.append('0');
+      }
+      out.append(cents);
+    }
+  }
+}
@@ -0,0 +1,91 @@
+import edu.ntnu.iir.bidata.model.Grocery;
+import edu.ntnu.iir.bidata.services.ColumnarFridgeService;
+import edu.ntnu.iir.bidata.services.FridgeService;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Compares the heap use and scan speed of {@link FridgeService} and {@link ColumnarFridgeService}
+ * holding a million lots.
+ *
+ * <p>Not a unit test; run the {@code main} method directly with a heap of a few gigabytes, for
+ * example {@code -Xmx3g}.</p>
+ */
+public class ColumnarFridgeBenchmark {
+
+  private static final int NAMES = 1_000;
+  private static final int PRICES = 10;
+  private static final int DAYS = 100;
+  private static final int LOTS = NAMES * PRICES * DAYS;
+  private static final int ROUNDS = 20;
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args not used
+   */
+  public static void main(String[] args) {
+    benchmarkFridgeService();
+    benchmarkColumnarFridgeService();
+  }
+
+  private static void benchmarkFridgeService() {
+    long baseline = usedHeap();
+    FridgeService fridgeService = new FridgeService();
+    load(fridgeService::addGroceries);
+    report("FridgeService", usedHeap() - baseline);
+    measure("expired value", fridgeService::calculateTotalValueOfExpiredGroceries);
+    measure("expiring within 3 days", () -> fridgeService.getGroceriesExpiringWithin(3));
+    measure("sorted by expiry date", fridgeService::getGroceriesSortedByExpiryDate);
+  }
+
+  private static void benchmarkColumnarFridgeService() {
+    long baseline = usedHeap();
+    ColumnarFridgeService fridgeService = new ColumnarFridgeService();
+    load(fridgeService::addGroceries);
+    report("ColumnarFridgeService", usedHeap() - baseline);
+    measure("expired value", fridgeService::calculateTotalValueOfExpiredGroceries);
+    measure("expiring within 3 days", () -> fridgeService.getGroceriesExpiringWithin(3));
+    measure("sorted by expiry date", fridgeService::getGroceriesSortedByExpiryDate);
+  }
+
+  private static void load(Consumer<List<Grocery>> addGroceries) {
+    LocalDate firstDay = LocalDate.now().minusDays(DAYS / 2);
+    for (int name = 0; name < NAMES; name++) {
+      List<Grocery> lots = new ArrayList<>(PRICES * DAYS);
+      for (int price = 0; price < PRICES; price++) {
+        for (int day = 0; day < DAYS; day++) {
+          lots.add(new Grocery("grocery" + name, 1 + day % 5, "kg", 10 + price,
+              firstDay.plusDays(day)));
+        }
+      }
+      addGroceries.accept(lots);
+    }
+  }
+
+  private static void report(String storage, long bytes) {
+    System.out.printf("%s: %.1f MB for %d lots, %.0f bytes per lot%n", storage, bytes / 1e6,
+        LOTS, (double) bytes / LOTS);
+  }
+
+  private static void measure(String scenario, Supplier<Object> query) {
+    long best = Long.MAX_VALUE;
+    for (int round = 0; round < ROUNDS; round++) {
+      long start = System.nanoTime();
+      query.get();
+      best = Math.min(best, System.nanoTime() - start);
+    }
+    System.out.printf("  %-26s %8.1f ms%n", scenario, best / 1e6);
+  }
+
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 5; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
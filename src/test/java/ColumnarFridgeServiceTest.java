@@ -0,0 +1,258 @@
+import edu.ntnu.iir.bidata.model.Grocery;
+import edu.ntnu.iir.bidata.model.GroceryPage;
+import edu.ntnu.iir.bidata.model.LotConsumption;
+import edu.ntnu.iir.bidata.model.SortOrder;
+import edu.ntnu.iir.bidata.services.ColumnarFridgeService;
+import edu.ntnu.iir.bidata.services.FridgeService;
+import edu.ntnu.iir.bidata.services.GroceryStore;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link ColumnarFridgeService} class.
+ *
+ * <p>Besides testing the operations one by one, the same random workload is run against a
+ * {@link FridgeService}, and both services are expected to answer every query the same way.</p>
+ */
+public class ColumnarFridgeServiceTest {
+
+  @Test
+  void testAddGrocery_MergesMatchingLots() {
+    ColumnarFridgeService fridgeService = new ColumnarFridgeService();
+    LocalDate expiryDate = LocalDate.now().plusDays(5);
+    fridgeService.addGrocery(new Grocery("Milk", 1, "liters", 20, expiryDate));
+    fridgeService.addGrocery(new Grocery("milk", 2, "liters", 20, expiryDate));
+    fridgeService.addGrocery(new Grocery("milk", 1, "liters", 25, expiryDate));
+
+    List<Grocery> groceries = fridgeService.findGroceriesByName("MILK");
+    Assertions.assertEquals(2, groceries.size());
+    Assertions.assertEquals(3, groceries.get(0).getQuantity());
+    Assertions.assertEquals(85, fridgeService.calculateTotalValue("milk"), 1e-9);
+    Assertions.assertEquals(85, fridgeService.calculateTotalValue(), 1e-9);
+  }
+
+  @Test
+  void testConsumeGrocery_FirstExpiryFirstOut() {
+    ColumnarFridgeService fridgeService = new ColumnarFridgeService();
+    LocalDate today = LocalDate.now();
+    fridgeService.addGrocery(new Grocery("egg", 6, "pieces", 3, today.plusDays(9)));
+    fridgeService.addGrocery(new Grocery("egg", 4, "pieces", 3, today.plusDays(2)));
+    fridgeService.addGrocery(new Grocery("flour", 1, "kg", 15, today.plusDays(90)));
+
+    List<LotConsumption> consumedLots = fridgeService.consumeGrocery("egg", 5);
+
+    Assertions.assertEquals(2, consumedLots.size());
+    Assertions.assertTrue(consumedLots.get(0).depleted());
+    Assertions.assertEquals(today.plusDays(2), consumedLots.get(0).lot().getExpiryDate());
+    Assertions.assertEquals(1, consumedLots.get(1).quantity());
+    Assertions.assertEquals(5, fridgeService.findGroceriesByName("egg").get(0).getQuantity());
+    Assertions.assertEquals(2, fridgeService.getAllGroceries().size());
+    Assertions.assertEquals(30, fridgeService.calculateTotalValue(), 1e-9);
+  }
+
+  @Test
+  void testRemoveGrocery_NotEnoughQuantity() {
+    ColumnarFridgeService fridgeService = new ColumnarFridgeService();
+    fridgeService.addGrocery(new Grocery("butter", 1, "kg", 90, LocalDate.now()));
+
+    Assertions.assertFalse(fridgeService.removeGrocery("butter", 2));
+    Assertions.assertFalse(fridgeService.removeGrocery("unknown grocery", 1));
+    Assertions.assertTrue(fridgeService.removeGrocery("butter", 1));
+    Assertions.assertTrue(fridgeService.getAllGroceries().isEmpty());
+    Assertions.assertTrue(fridgeService.findGroceriesByNamePrefix("b").isEmpty());
+  }
+
+  @Test
+  void testNullArguments() {
+    ColumnarFridgeService fridgeService = new ColumnarFridgeService();
+
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> fridgeService.findGroceriesByName(null));
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> fridgeService.addGroceries(null));
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> fridgeService.getGroceriesExpiringWithin(-1));
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> fridgeService.getGroceriesExpiringBetween(null, LocalDate.now()));
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> fridgeService.getGroceriesExpiringNext(-1));
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> fridgeService.addQuantityListener(null));
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> fridgeService.getGroceryPage(SortOrder.NAME, 0, null));
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> fridgeService.getGroceryPage(SortOrder.NAME, 2, "EXPIRY_DATE:2024-03-04:0"));
+  }
+
+  @Test
+  void testAddGrocery_AcceptsEveryExpiryDate() {
+    for (GroceryStore store : List.of(new FridgeService(), new ColumnarFridgeService())) {
+      LocalDate today = LocalDate.now();
+      store.addGrocery(new Grocery("salt", 1, "kg", 10, LocalDate.MAX));
+      store.addGrocery(new Grocery("salt", 2, "kg", 10, LocalDate.MAX));
+      store.addGrocery(new Grocery("honey", 1, "kg", 80, LocalDate.MIN));
+      store.addGrocery(new Grocery("milk", 1, "liters", 20, today));
+
+      Assertions.assertEquals(3, store.findGroceriesByName("salt").get(0).getQuantity());
+      Assertions.assertEquals(List.of(LocalDate.MIN, today, LocalDate.MAX),
+          store.getGroceriesSortedByExpiryDate().stream().map(Grocery::getExpiryDate).toList());
+      Assertions.assertEquals(80, store.calculateTotalValueOfExpiredGroceries(), 1e-9);
+      Assertions.assertEquals(2, store.getGroceriesExpiringNext(5).size());
+      Assertions.assertEquals(1, store.consumeGrocery("salt", 1).size());
+    }
+  }
+
+  @Test
+  void testGetGroceryPage_ConsumingBetweenPagesSkipsNothing() {
+    for (GroceryStore store : List.of(new FridgeService(), new ColumnarFridgeService())) {
+      LocalDate today = LocalDate.now();
+      store.addGrocery(new Grocery("apple", 1, "pieces", 5, today.plusDays(3)));
+      store.addGrocery(new Grocery("apple", 1, "pieces", 6, today.plusDays(3)));
+      store.addGrocery(new Grocery("bread", 1, "pieces", 30, today.plusDays(1)));
+      store.addGrocery(new Grocery("cheese", 1, "kg", 90, today.plusDays(2)));
+      store.addGrocery(new Grocery("cheese", 1, "kg", 95, today.plusDays(8)));
+
+      for (SortOrder order : SortOrder.values()) {
+        List<String> expected = describeInOrder(order == SortOrder.NAME
+            ? store.getGroceriesSortedByName() : store.getGroceriesSortedByExpiryDate());
+        GroceryPage first = store.getGroceryPage(order, 2, null);
+        Assertions.assertEquals(2, first.groceries().size());
+        // Using up a lot already shown must not shift the lots of later pages
+        Grocery shown = first.groceries().get(0);
+        store.removeGrocery(shown.getName(), shown.getQuantity());
+
+        List<Grocery> listed = new ArrayList<>(first.groceries());
+        for (String token = first.nextPageToken(); token != null; ) {
+          GroceryPage page = store.getGroceryPage(order, 2, token);
+          listed.addAll(page.groceries());
+          token = page.nextPageToken();
+        }
+        Assertions.assertEquals(expected, describeInOrder(listed), order.name());
+        store.addGrocery(shown);
+      }
+    }
+  }
+
+  @Test
+  void testGetGroceriesExpiringNext() {
+    ColumnarFridgeService fridgeService = new ColumnarFridgeService();
+    LocalDate today = LocalDate.now();
+    fridgeService.addGrocery(new Grocery("yogurt", 1, "pieces", 15, today.plusDays(4)));
+    fridgeService.addGrocery(new Grocery("ham", 1, "kg", 80, today.minusDays(1)));
+    fridgeService.addGrocery(new Grocery("lettuce", 1, "pieces", 25, today));
+    fridgeService.addGrocery(new Grocery("cream", 1, "liters", 30, today.plusDays(1)));
+
+    List<Grocery> next = fridgeService.getGroceriesExpiringNext(2);
+
+    Assertions.assertEquals(List.of("lettuce", "cream"),
+        next.stream().map(Grocery::getName).toList());
+    Assertions.assertEquals(3, fridgeService.getGroceriesExpiringNext(10).size());
+    Assertions.assertTrue(fridgeService.getGroceriesExpiringNext(0).isEmpty());
+  }
+
+  @Test
+  void testAddQuantityListener_ToldEveryChange() {
+    ColumnarFridgeService fridgeService = new ColumnarFridgeService();
+    LocalDate today = LocalDate.now();
+    fridgeService.addGrocery(new Grocery("rice", 2, "kg", 30, today.plusDays(200)));
+    Map<String, Double> totals = new LinkedHashMap<>();
+
+    fridgeService.addQuantityListener(totals::put);
+    Assertions.assertEquals(Map.of("rice", 2.0), totals);
+
+    fridgeService.addGrocery(new Grocery("rice", 1, "kg", 30, today.plusDays(100)));
+    fridgeService.addGrocery(new Grocery("oats", 1, "kg", 20, today.plusDays(100)));
+    fridgeService.consumeGrocery("rice", 1.5);
+    Assertions.assertEquals(1.5, totals.get("rice"), 1e-9);
+    Assertions.assertEquals(1.0, totals.get("oats"), 1e-9);
+
+    fridgeService.removeGrocery("rice", 1.5);
+    Assertions.assertEquals(0.0, totals.get("rice"), 1e-9);
+  }
+
+  @Test
+  void testSameAnswersAsFridgeService() {
+    FridgeService fridgeService = new FridgeService();
+    ColumnarFridgeService columnarFridgeService = new ColumnarFridgeService();
+    Random random = new Random(7);
+    LocalDate today = LocalDate.now();
+
+    for (int i = 0; i < 5_000; i++) {
+      String name = "columnar grocery " + random.nextInt(40);
+      if (random.nextInt(4) == 0) {
+        double quantity = 1 + random.nextInt(6);
+        Assertions.assertEquals(fridgeService.removeGrocery(name, quantity),
+            columnarFridgeService.removeGrocery(name, quantity));
+      } else {
+        // One price per expiry day, as lots expiring the same day may be used in any order
+        int quantity = 1 + random.nextInt(5);
+        int days = random.nextInt(30) - 10;
+        int price = 10 + 5 * Math.floorMod(days, 3);
+        LocalDate expiryDate = today.plusDays(days);
+        fridgeService.addGrocery(new Grocery(name, quantity, "kg", price, expiryDate));
+        columnarFridgeService.addGrocery(new Grocery(name, quantity, "kg", price, expiryDate));
+      }
+    }
+
+    Assertions.assertEquals(fridgeService.calculateTotalValue(),
+        columnarFridgeService.calculateTotalValue(), 1e-6);
+    Assertions.assertEquals(fridgeService.calculateTotalValueOfExpiredGroceries(),
+        columnarFridgeService.calculateTotalValueOfExpiredGroceries(), 1e-6);
+    assertSameLots(fridgeService.getGroceriesSortedByExpiryDate(),
+        columnarFridgeService.getGroceriesSortedByExpiryDate());
+    assertSameLots(fridgeService.getExpiredGroceries(),
+        columnarFridgeService.getExpiredGroceries());
+    assertSameLots(fridgeService.getGroceriesExpiringWithin(7),
+        columnarFridgeService.getGroceriesExpiringWithin(7));
+    assertSameLots(fridgeService.findGroceriesByNameContaining("grocery 1"),
+        columnarFridgeService.findGroceriesByNameContaining("grocery 1"));
+    for (int i = 0; i < 40; i++) {
+      String name = "columnar grocery " + i;
+      assertSameLots(fridgeService.findGroceriesByName(name),
+          columnarFridgeService.findGroceriesByName(name));
+    }
+    for (SortOrder order : SortOrder.values()) {
+      assertSameLots(readAllPages(fridgeService, order),
+          readAllPages(columnarFridgeService, order));
+    }
+  }
+
+  private static List<Grocery> readAllPages(GroceryStore store, SortOrder order) {
+    List<Grocery> groceries = new ArrayList<>();
+    String token = null;
+    do {
+      GroceryPage page = store.getGroceryPage(order, 7, token);
+      groceries.addAll(page.groceries());
+      token = page.nextPageToken();
+    } while (token != null);
+    return groceries;
+  }
+
+  /**
+   * Asserts that two lists hold the same lots, ignoring their order.
+   */
+  private static void assertSameLots(List<Grocery> expected, List<Grocery> actual) {
+    Assertions.assertEquals(describe(expected), describe(actual));
+  }
+
+  private static List<String> describeInOrder(List<Grocery> groceries) {
+    return groceries.stream()
+        .map(grocery -> grocery.getExpiryDate() + " " + grocery.getName() + " "
+            + grocery.getPricePerUnit() + " " + grocery.getQuantity())
+        .toList();
+  }
+
+  private static List<String> describe(List<Grocery> groceries) {
+    return groceries.stream()
+        .map(grocery -> grocery.getExpiryDate() + " " + grocery.getName() + " "
+            + grocery.getPricePerUnit() + " " + grocery.getQuantity())
+        .sorted()
+        .toList();
+  }
+}
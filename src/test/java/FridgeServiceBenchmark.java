@@ -0,0 +1,90 @@
+import edu.ntnu.iir.bidata.model.Grocery;
+import edu.ntnu.iir.bidata.services.FridgeService;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.BiConsumer;
+
+/**
+ * Compares the speed of {@link FridgeService} operations on large inventories.
+ *
+ * <p>Not a unit test; run the {@code main} method directly. Each scenario is run a few times
+ * to warm up the JVM before it is measured.</p>
+ */
+public class FridgeServiceBenchmark {
+
+  private static final int RECEIPTS = 2_000;
+  private static final int LINES_PER_RECEIPT = 300;
+  private static final int NAMES = 500;
+  private static final int ROUNDS = 5;
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args not used
+   */
+  public static void main(String[] args) {
+    System.out.println("Varied receipts (40 products, 3 prices, 14 dates):");
+    compareAdding(createReceipts(new Random(42), 40, 3, 14));
+    System.out.println("Repetitive receipts (20 products, 1 price, 2 dates):");
+    compareAdding(createReceipts(new Random(42), 20, 1, 2));
+    // Thousands of lots per name, where every new lot copies the copy-on-write list of its name
+    System.out.println("Lot-heavy receipts (5 products, 20 prices, 365 dates):");
+    compareAdding(createReceipts(new Random(42), 5, 20, 365));
+  }
+
+  private static void compareAdding(List<List<Grocery>> receipts) {
+    measure("addGrocery per line", receipts,
+        (fridgeService, receipt) -> receipt.forEach(fridgeService::addGrocery));
+    measure("addGroceries per receipt", receipts, FridgeService::addGroceries);
+  }
+
+  private static void measure(String scenario, List<List<Grocery>> receipts,
+      BiConsumer<FridgeService, List<Grocery>> addReceipt) {
+    long best = Long.MAX_VALUE;
+    for (int round = 0; round < ROUNDS; round++) {
+      FridgeService fridgeService = new FridgeService();
+      List<List<Grocery>> copies = copy(receipts);
+      long start = System.nanoTime();
+      for (List<Grocery> receipt : copies) {
+        addReceipt.accept(fridgeService, receipt);
+      }
+      best = Math.min(best, System.nanoTime() - start);
+    }
+    System.out.printf("  %-26s %8.1f ms for %d lines%n", scenario, best / 1e6,
+        RECEIPTS * LINES_PER_RECEIPT);
+  }
+
+  private static List<List<Grocery>> createReceipts(Random random, int namesPerReceipt,
+      int prices, int expiryDates) {
+    LocalDate today = LocalDate.now();
+    List<List<Grocery>> receipts = new ArrayList<>();
+    for (int i = 0; i < RECEIPTS; i++) {
+      List<Grocery> receipt = new ArrayList<>();
+      int firstName = random.nextInt(NAMES - namesPerReceipt);
+      for (int line = 0; line < LINES_PER_RECEIPT; line++) {
+        // Each delivery covers a range of products, with a few prices and best-before dates
+        String name = "grocery" + (firstName + random.nextInt(namesPerReceipt));
+        receipt.add(new Grocery(name, 1 + random.nextInt(5), "kg",
+            10 + 5 * random.nextInt(prices), today.plusDays(7 + random.nextInt(expiryDates))));
+      }
+      receipts.add(receipt);
+    }
+    return receipts;
+  }
+
+  private static List<List<Grocery>> copy(List<List<Grocery>> receipts) {
+    // Stored lots are the added objects themselves, so every round needs fresh ones
+    List<List<Grocery>> copies = new ArrayList<>();
+    for (List<Grocery> receipt : receipts) {
+      List<Grocery> copy = new ArrayList<>();
+      for (Grocery grocery : receipt) {
+        copy.add(new Grocery(grocery.getName(), grocery.getQuantity(), grocery.getUnit(),
+            grocery.getPricePerUnit(), grocery.getExpiryDate()));
+      }
+      copies.add(copy);
+    }
+    return copies;
+  }
+}
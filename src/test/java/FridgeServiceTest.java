@@ -1,21 +1,31 @@
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.any;
-import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 import edu.ntnu.iir.bidata.model.Fridge;
 import edu.ntnu.iir.bidata.model.Grocery;
+import edu.ntnu.iir.bidata.model.GroceryPage;
+import edu.ntnu.iir.bidata.model.LotConsumption;
+import edu.ntnu.iir.bidata.model.SortOrder;
 import edu.ntnu.iir.bidata.services.FridgeService;
 import edu.ntnu.iir.bidata.services.GroceryService;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.ListIterator;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.DoubleAdder;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -78,22 +88,25 @@ public class FridgeServiceTest {
   }
 
   /**
-   * Tests interaction with a mocked {@link GroceryService}.
-   * <p>Verifies the correct interactions with a mocked service during the addition of a grocery.</p>
+   * Tests that a grocery is only merged into a lot it can be clubbed with.
+   * <p>Verifies that lots differing in unit or price per unit stay separate, and that the lot
+   * with the same name, unit, price and expiry date receives the quantity.</p>
    */
   @Test
-  public void testAddGrocery_MockGroceryService() {
-    Fridge mockFridge = mock(Fridge.class);
-    GroceryService mockGroceryService = mock(GroceryService.class);
-    FridgeService fridgeService = new FridgeService(mockFridge, mockGroceryService);
-
-    Grocery grocery = new Grocery("banana", 10, "kg", 1.5, LocalDate.now().plusDays(7));
-    when(mockGroceryService.areGroceriesClubbable(any(Grocery.class), eq(grocery)))
-        .thenReturn(true);
-
-    fridgeService.addGrocery(grocery);
-
-    verify(mockFridge, times(1)).getGroceriesPerCategory();
+  public void testAddGrocery_MergesOnlyClubbableLots() {
+    FridgeService fridgeService = new FridgeService(new Fridge());
+    LocalDate expiryDate = LocalDate.now().plusDays(7);
+    Grocery banana = new Grocery("banana", 10, "kg", 1.5, expiryDate);
+    fridgeService.addGrocery(banana);
+    fridgeService.addGrocery(new Grocery("banana", 4, "pieces", 1.5, expiryDate));
+    fridgeService.addGrocery(new Grocery("banana", 3, "kg", 2.0, expiryDate));
+    fridgeService.addGrocery(new Grocery("Banana", 2, "kg", 1.5, expiryDate));
+
+    List<Grocery> bananas = fridgeService.findGroceriesByName("banana");
+    Assertions.assertEquals(3, bananas.size());
+    Assertions.assertSame(banana, bananas.get(0));
+    Assertions.assertEquals(12, banana.getQuantity());
+    Assertions.assertEquals(12 * 1.5 + 4 * 1.5 + 3 * 2.0, fridgeService.calculateTotalValue());
   }
 
   /**
@@ -165,14 +178,14 @@ public class FridgeServiceTest {
   }
 
   /**
-   * Tests interaction with mocked services during grocery removal.
-   * <p>Verifies no unintended interactions occur with mocked dependencies.</p>
+   * Tests interaction with a mocked fridge during grocery removal.
+   * <p>Verifies that the stored lots, and not the running total of the fridge, decide whether
+   * enough is available, and that nothing is consumed when the lots hold too little.</p>
    */
   @Test
-  public void testRemoveGrocery_MockGroceryServiceInteraction() {
+  public void testRemoveGrocery_MockFridgeInteraction() {
     Fridge mockFridge = mock(Fridge.class);
-    GroceryService mockGroceryService = mock(GroceryService.class);
-    FridgeService fridgeService = new FridgeService(mockFridge, mockGroceryService);
+    FridgeService fridgeService = new FridgeService(mockFridge);
 
     Grocery grocery = new Grocery("banana", 10, "kg", 1.5, LocalDate.now().plusDays(7));
     when(mockFridge.getGroceriesPerCategory())
@@ -189,8 +202,38 @@ public class FridgeServiceTest {
               }
             });
 
-    fridgeService.removeGrocery("banana", 5);
-    verifyNoMoreInteractions(mockGroceryService);
+    assertFalse(fridgeService.removeGrocery("banana", 15));
+    verify(mockFridge, never()).unindexGrocery(any(Grocery.class));
+    Assertions.assertEquals(10, grocery.getQuantity());
+
+    // The mocked running total is zero, but the lot holds enough
+    assertTrue(fridgeService.removeGrocery("banana", 5));
+    verify(mockFridge, never()).getTotalQuantity("banana");
+    Assertions.assertEquals(5, grocery.getQuantity());
+  }
+
+  /**
+   * Tests consuming exactly the running total of a grocery when the lots add up to slightly less.
+   * <p>Verifies that nothing is consumed when rounding makes the running total of the fridge
+   * larger than the sum of the lots, instead of using up every lot and reporting the full
+   * quantity as consumed.</p>
+   */
+  @Test
+  void testConsumeGrocery_RunningTotalAboveLotsByRounding() {
+    Fridge fridge = new Fridge();
+    FridgeService fridgeService = new FridgeService(fridge);
+    LocalDate today = LocalDate.now();
+    fridgeService.addGrocery(new Grocery("milk", 0.1, "liters", 20, today.plusDays(5)));
+    fridgeService.addGrocery(new Grocery("milk", 0.1, "liters", 20, today.plusDays(1)));
+    fridgeService.addGrocery(new Grocery("milk", 0.35, "liters", 20, today.plusDays(5)));
+    double lotsTotal = fridgeService.findGroceriesByName("milk").stream()
+        .mapToDouble(Grocery::getQuantity).sum();
+    Assertions.assertEquals(0.55, fridge.getTotalQuantity("milk"));
+    Assertions.assertTrue(lotsTotal < 0.55);
+
+    Assertions.assertTrue(fridgeService.consumeGrocery("milk", 0.55).isEmpty());
+    Assertions.assertEquals(2, fridgeService.findGroceriesByName("milk").size());
+    Assertions.assertEquals(1, fridgeService.consumeGrocery("milk", 0.1).size());
   }
 
   /**
@@ -218,7 +261,7 @@ public class FridgeServiceTest {
     FridgeService fridgeService = new FridgeService();
     fridgeService.addGrocery(new Grocery("milk", 1, "liters", 20, LocalDate.now().plusDays(5)));
 
-    List<Grocery> foundGroceries = FridgeService.findGroceriesByName(("milk").toLowerCase());
+    List<Grocery> foundGroceries = fridgeService.findGroceriesByName(("milk").toLowerCase());
     Assertions.assertNotNull(foundGroceries);
     Assertions.assertEquals(1, foundGroceries.size()); // Ensure only one grocery is found
     Assertions.assertEquals("milk", foundGroceries.get(0).getName().toLowerCase()); // Verify the name
@@ -233,7 +276,7 @@ public class FridgeServiceTest {
     FridgeService fridgeService = new FridgeService();
     fridgeService.addGrocery(new Grocery("milk", 1, "liters", 20, LocalDate.now().plusDays(5)));
 
-    List<Grocery> foundGroceries = FridgeService.findGroceriesByName("cheese");
+    List<Grocery> foundGroceries = fridgeService.findGroceriesByName("cheese");
     Assertions.assertTrue(foundGroceries.isEmpty()); // Ensure the list is empty
   }
 
@@ -259,8 +302,9 @@ public class FridgeServiceTest {
    */
   @Test
   void testFindGroceryByName_NullInput() {
+    FridgeService fridgeService = new FridgeService();
     Assertions.assertThrows(IllegalArgumentException.class,
-        () -> FridgeService.findGroceriesByName(null));
+        () -> fridgeService.findGroceriesByName(null));
   }
 
   /**
@@ -273,6 +317,527 @@ public class FridgeServiceTest {
         () -> new Grocery("milk", -1, "liters", 20, LocalDate.now().plusDays(5)));
   }
 
+  /**
+   * Tests retrieving expired groceries through the expiry index.
+   * <p>Verifies that only lots with an expiry date before today are returned, and that lots
+   * removed from the fridge are no longer reported.</p>
+   */
+  @Test
+  void testGetExpiredGroceries() {
+    FridgeService fridgeService = new FridgeService();
+    fridgeService.addGrocery(new Grocery("milk", 1, "liters", 20, LocalDate.now().minusDays(2)));
+    fridgeService.addGrocery(new Grocery("bread", 1, "loaf", 30, LocalDate.now().minusDays(1)));
+    fridgeService.addGrocery(new Grocery("eggs", 12, "pieces", 3, LocalDate.now()));
+
+    List<Grocery> expiredGroceries = fridgeService.getExpiredGroceries();
+    Assertions.assertEquals(2, expiredGroceries.size());
+    Assertions.assertEquals("milk", expiredGroceries.get(0).getName());
+    Assertions.assertEquals(50, fridgeService.calculateTotalValueOfExpiredGroceries(), 0.001);
+
+    fridgeService.removeGrocery("milk", 1);
+    Assertions.assertEquals(1, fridgeService.getExpiredGroceries().size());
+  }
 
+  /**
+   * Tests retrieving groceries that expire within a number of days.
+   * <p>Verifies that both ends of the period are included and expired lots are left out.</p>
+   */
+  @Test
+  void testGetGroceriesExpiringWithin() {
+    FridgeService fridgeService = new FridgeService();
+    fridgeService.addGrocery(new Grocery("milk", 1, "liters", 20, LocalDate.now().minusDays(1)));
+    fridgeService.addGrocery(new Grocery("eggs", 12, "pieces", 3, LocalDate.now()));
+    fridgeService.addGrocery(new Grocery("apple", 2, "kg", 15, LocalDate.now().plusDays(3)));
+    fridgeService.addGrocery(new Grocery("flour", 1, "kg", 20, LocalDate.now().plusDays(4)));
+
+    List<Grocery> expiringSoon = fridgeService.getGroceriesExpiringWithin(3);
+    Assertions.assertEquals(2, expiringSoon.size());
+    Assertions.assertEquals("eggs", expiringSoon.get(0).getName());
+    Assertions.assertEquals("apple", expiringSoon.get(1).getName());
+    Assertions.assertTrue(fridgeService.getGroceriesExpiringBetween(
+        LocalDate.now().plusDays(5), LocalDate.now().plusDays(1)).isEmpty());
+  }
+
+  /**
+   * Tests that the running value totals follow additions, merges, removals and direct
+   * quantity changes.
+   * <p>Verifies that the totals match a full scan of the fridge.</p>
+   */
+  @Test
+  void testCalculateTotalValue_MatchesFullScan() {
+    FridgeService fridgeService = new FridgeService();
+    GroceryService groceryService = new GroceryService();
+    fridgeService.addGrocery(new Grocery("milk", 2, "liters", 20, LocalDate.now().minusDays(1)));
+    fridgeService.addGrocery(new Grocery("milk", 1, "liters", 20, LocalDate.now().minusDays(1)));
+    fridgeService.addGrocery(new Grocery("milk", 1, "liters", 25, LocalDate.now().plusDays(3)));
+    fridgeService.addGrocery(new Grocery("apple", 4, "kg", 15, LocalDate.now().plusDays(3)));
+    fridgeService.removeGrocery("apple", 1.5);
+    fridgeService.findGroceriesByName("milk").get(0).setQuantity(0.5);
+
+    double fullScan = fridgeService.getAllGroceries().stream()
+        .mapToDouble(groceryService::calculateValue)
+        .sum();
+    Assertions.assertEquals(fullScan, fridgeService.calculateTotalValue(), 0.001);
+    Assertions.assertEquals(35, fridgeService.calculateTotalValue("Milk"), 0.001);
+    Assertions.assertEquals(10, fridgeService.calculateTotalValueOfExpiredGroceries(), 0.001);
+
+    fridgeService.removeGrocery("milk", 1.5);
+    fridgeService.removeGrocery("apple", 2.5);
+    Assertions.assertEquals(0, fridgeService.calculateTotalValue());
+    Assertions.assertEquals(0, fridgeService.calculateTotalValue("milk"));
+  }
+
+  /**
+   * Tests adding many lots of the same grocery with different prices and expiry dates.
+   * <p>Verifies that each addition is merged into the lot with the same unit, price and expiry
+   * date, and that lots differing in any of them are kept apart.</p>
+   */
+  @Test
+  void testAddGrocery_MergesByLot() {
+    FridgeService fridgeService = new FridgeService();
+    for (int round = 0; round < 2; round++) {
+      for (int day = 0; day < 10; day++) {
+        fridgeService.addGrocery(new Grocery("rice", 1, "kg", 30, LocalDate.now().plusDays(day)));
+        fridgeService.addGrocery(new Grocery("rice", 1, "kg", 35, LocalDate.now().plusDays(day)));
+      }
+    }
+    fridgeService.addGrocery(new Grocery("Rice", 1, "pieces", 30, LocalDate.now()));
+
+    List<Grocery> groceries = fridgeService.findGroceriesByName("rice");
+    Assertions.assertEquals(21, groceries.size());
+    Assertions.assertEquals(41, groceries.stream().mapToDouble(Grocery::getQuantity).sum());
+    Assertions.assertEquals(2, groceries.stream().mapToDouble(Grocery::getQuantity).max()
+        .orElse(0));
+  }
+
+  /**
+   * Tests consuming a grocery spread over several lots.
+   * <p>Verifies that the lots expiring first are used up first, regardless of the order they were
+   * added in, and that the consumed lots are reported.</p>
+   */
+  @Test
+  void testConsumeGrocery_FirstExpiryFirstOut() {
+    FridgeService fridgeService = new FridgeService();
+    fridgeService.addGrocery(new Grocery("milk", 2, "liters", 20, LocalDate.now().plusDays(9)));
+    fridgeService.addGrocery(new Grocery("milk", 1, "liters", 20, LocalDate.now().plusDays(1)));
+    fridgeService.addGrocery(new Grocery("milk", 2, "liters", 20, LocalDate.now().plusDays(5)));
+
+    List<LotConsumption> consumedLots = fridgeService.consumeGrocery("milk", 2);
+    Assertions.assertEquals(2, consumedLots.size());
+    Assertions.assertEquals(LocalDate.now().plusDays(1), consumedLots.get(0).lot().getExpiryDate());
+    Assertions.assertTrue(consumedLots.get(0).depleted());
+    Assertions.assertEquals(1, consumedLots.get(1).quantity());
+    Assertions.assertFalse(consumedLots.get(1).depleted());
+
+    List<Grocery> remaining = fridgeService.findGroceriesByName("milk");
+    Assertions.assertEquals(2, remaining.size());
+    Assertions.assertEquals(1, remaining.get(0).getQuantity());
+    Assertions.assertEquals(LocalDate.now().plusDays(5), remaining.get(0).getExpiryDate());
+
+    Assertions.assertTrue(fridgeService.consumeGrocery("milk", 3.5).isEmpty());
+    Assertions.assertEquals(3, remaining.stream().mapToDouble(Grocery::getQuantity).sum());
+  }
+
+  /**
+   * Stress tests the fridge with concurrent suppliers, consumers and readers.
+   * <p>Each worker adds and consumes lots of both its own and shared groceries while a reader
+   * keeps listing the fridge. Verifies that no quantity is lost or created, and that the running
+   * totals and indexes agree with a full scan afterwards.</p>
+   */
+  @Test
+  void testConcurrentAddAndConsume() throws Exception {
+    FridgeService fridgeService = new FridgeService();
+    GroceryService groceryService = new GroceryService();
+    int workers = 8;
+    int rounds = 2000;
+    ExecutorService executor = Executors.newFixedThreadPool(workers + 1);
+    CountDownLatch start = new CountDownLatch(1);
+    AtomicBoolean running = new AtomicBoolean(true);
+    DoubleAdder added = new DoubleAdder();
+    DoubleAdder consumed = new DoubleAdder();
+
+    List<Future<?>> futures = new ArrayList<>();
+    for (int worker = 0; worker < workers; worker++) {
+      String ownName = "grocery" + worker;
+      futures.add(executor.submit(() -> {
+        start.await();
+        for (int round = 0; round < rounds; round++) {
+          String name = round % 2 == 0 ? ownName : "shared" + (round % 3);
+          fridgeService.addGrocery(new Grocery(name, 1, "kg", 10 + round % 4,
+              LocalDate.now().plusDays(round % 7 - 2)));
+          added.add(1);
+          double quantity = 0.5 + round % 3 * 0.25;
+          List<LotConsumption> consumedLots = fridgeService.consumeGrocery(name, quantity);
+          consumedLots.forEach(lot -> consumed.add(lot.quantity()));
+        }
+        return null;
+      }));
+    }
+    Future<?> reader = executor.submit(() -> {
+      start.await();
+      while (running.get()) {
+        for (Grocery grocery : fridgeService.getAllGroceries()) {
+          Assertions.assertTrue(grocery.getQuantity() >= 0);
+        }
+        Assertions.assertTrue(fridgeService.calculateTotalValue() > -0.001);
+      }
+      return null;
+    });
+
+    start.countDown();
+    for (Future<?> future : futures) {
+      future.get(60, TimeUnit.SECONDS);
+    }
+    running.set(false);
+    reader.get(60, TimeUnit.SECONDS);
+    executor.shutdown();
+
+    List<Grocery> groceries = fridgeService.getAllGroceries();
+    double stored = groceries.stream().mapToDouble(Grocery::getQuantity).sum();
+    double storedValue = groceries.stream().mapToDouble(groceryService::calculateValue).sum();
+    Assertions.assertEquals(added.sum() - consumed.sum(), stored, 0.001);
+    Assertions.assertEquals(storedValue, fridgeService.calculateTotalValue(), 0.01);
+    Assertions.assertEquals(groceries.size(), fridgeService.getGroceriesExpiringBetween(
+        LocalDate.now().minusDays(2), LocalDate.now().plusDays(4)).size());
+  }
+
+  /**
+   * Tests adding a batch of groceries at once.
+   * <p>Verifies that the batch gives the same lots, order and totals as adding the groceries one
+   * by one, including merges within the batch and with lots already stored.</p>
+   */
+  @Test
+  void testAddGroceries_SameAsOneByOne() {
+    FridgeService batchService = new FridgeService();
+    FridgeService singleService = new FridgeService();
+    for (FridgeService fridgeService : List.of(batchService, singleService)) {
+      fridgeService.addGrocery(new Grocery("milk", 1, "liters", 20, LocalDate.now().plusDays(4)));
+    }
+
+    List<Grocery> receipt = new ArrayList<>();
+    List<Grocery> sameReceipt = new ArrayList<>();
+    for (List<Grocery> lines : List.of(receipt, sameReceipt)) {
+      lines.add(new Grocery("milk", 2, "liters", 20, LocalDate.now().plusDays(8)));
+      lines.add(new Grocery("milk", 1, "liters", 20, LocalDate.now().plusDays(4)));
+      lines.add(new Grocery("milk", 3, "liters", 20, LocalDate.now().plusDays(1)));
+      lines.add(new Grocery("eggs", 6, "pieces", 4, LocalDate.now().plusDays(10)));
+      lines.add(new Grocery("milk", 2, "liters", 20, LocalDate.now().plusDays(8)));
+    }
+    batchService.addGroceries(receipt);
+    sameReceipt.forEach(singleService::addGrocery);
+
+    List<Grocery> batchMilk = batchService.findGroceriesByName("milk");
+    List<Grocery> singleMilk = singleService.findGroceriesByName("milk");
+    Assertions.assertEquals(3, batchMilk.size());
+    for (int i = 0; i < batchMilk.size(); i++) {
+      Assertions.assertEquals(singleMilk.get(i).getExpiryDate(), batchMilk.get(i).getExpiryDate());
+      Assertions.assertEquals(singleMilk.get(i).getQuantity(), batchMilk.get(i).getQuantity());
+    }
+    Assertions.assertEquals(singleService.calculateTotalValue(),
+        batchService.calculateTotalValue(), 0.001);
+    Assertions.assertEquals(4, batchService.getAllGroceries().size());
+  }
+
+  /**
+   * Tests adding a batch of lots that expire on the same day at different prices.
+   * <p>Verifies that the lots are stored and consumed in the order they were given, exactly like
+   * adding them one by one.</p>
+   */
+  @Test
+  void testAddGroceries_SameDayLotsKeepTheirOrder() {
+    FridgeService batchService = new FridgeService();
+    FridgeService singleService = new FridgeService();
+    LocalDate expiryDate = LocalDate.now().plusDays(3);
+    for (FridgeService fridgeService : List.of(batchService, singleService)) {
+      fridgeService.addGrocery(new Grocery("milk", 1, "liters", 9, expiryDate));
+    }
+    List<Grocery> receipt = new ArrayList<>();
+    for (int price = 10; price <= 17; price++) {
+      receipt.add(new Grocery("milk", 1, "liters", price, expiryDate));
+    }
+    batchService.addGroceries(receipt);
+    for (int price = 10; price <= 17; price++) {
+      singleService.addGrocery(new Grocery("milk", 1, "liters", price, expiryDate));
+    }
+
+    List<Double> expectedPrices = List.of(9.0, 10.0, 11.0, 12.0, 13.0, 14.0, 15.0, 16.0, 17.0);
+    for (FridgeService fridgeService : List.of(batchService, singleService)) {
+      Assertions.assertEquals(expectedPrices, fridgeService.findGroceriesByName("milk").stream()
+          .map(Grocery::getPricePerUnit).toList());
+      Assertions.assertEquals(expectedPrices, fridgeService.getGroceriesSortedByExpiryDate()
+          .stream().map(Grocery::getPricePerUnit).toList());
+    }
+
+    List<Double> batchConsumed = batchService.consumeGrocery("milk", 4).stream()
+        .map(consumption -> consumption.lot().getPricePerUnit()).toList();
+    List<Double> singleConsumed = singleService.consumeGrocery("milk", 4).stream()
+        .map(consumption -> consumption.lot().getPricePerUnit()).toList();
+    Assertions.assertEquals(List.of(9.0, 10.0, 11.0, 12.0), batchConsumed);
+    Assertions.assertEquals(singleConsumed, batchConsumed);
+    Assertions.assertEquals(singleService.calculateTotalValue(),
+        batchService.calculateTotalValue(), 0.001);
+  }
 
-}
\ No newline at end of file
+  /**
+   * Tests finding groceries by prefix and by substring of their name.
+   * <p>Verifies that matching is case-insensitive, that results are ordered by name and that
+   * names disappear from the index once their last lot is removed.</p>
+   */
+  @Test
+  void testFindGroceriesByNamePrefixAndContaining() {
+    FridgeService fridgeService = new FridgeService();
+    fridgeService.addGrocery(new Grocery("milkshake base", 1, "liters", 30,
+        LocalDate.now().plusDays(5)));
+    fridgeService.addGrocery(new Grocery("milk", 1, "liters", 20, LocalDate.now().plusDays(5)));
+    fridgeService.addGrocery(new Grocery("oat milk", 1, "liters", 25, LocalDate.now().plusDays(5)));
+    fridgeService.addGrocery(new Grocery("mango", 2, "pieces", 10, LocalDate.now().plusDays(5)));
+
+    List<Grocery> byPrefix = fridgeService.findGroceriesByNamePrefix("MILK");
+    Assertions.assertEquals(List.of("milk", "milkshake base"),
+        byPrefix.stream().map(Grocery::getName).toList());
+
+    List<Grocery> containing = fridgeService.findGroceriesByNameContaining("milk");
+    Assertions.assertEquals(List.of("milk", "milkshake base", "oat milk"),
+        containing.stream().map(Grocery::getName).toList());
+    Assertions.assertEquals(1, fridgeService.findGroceriesByNameContaining("shake").size());
+
+    fridgeService.removeGrocery("oat milk", 1);
+    Assertions.assertEquals(2, fridgeService.findGroceriesByNameContaining("milk").size());
+    Assertions.assertTrue(fridgeService.findGroceriesByNameContaining("oat").isEmpty());
+  }
+
+  /**
+   * Tests that the sorted views are cached until a lot is added or removed.
+   * <p>Verifies that repeated calls return the same list, that quantity changes show through
+   * the cached list and that adding or removing a lot gives a freshly sorted list.</p>
+   */
+  @Test
+  void testSortedViewsAreCachedUntilLotsChange() {
+    FridgeService fridgeService = new FridgeService();
+    LocalDate today = LocalDate.now();
+    fridgeService.addGrocery(new Grocery("cheese", 1, "kg", 100, today.plusDays(20)));
+    fridgeService.addGrocery(new Grocery("bread", 2, "pieces", 30, today.plusDays(2)));
+    fridgeService.addGrocery(new Grocery("cheese", 1, "kg", 100, today.plusDays(1)));
+
+    List<Grocery> byName = fridgeService.getGroceriesSortedByName();
+    List<Grocery> byExpiryDate = fridgeService.getGroceriesSortedByExpiryDate();
+    Assertions.assertSame(byName, fridgeService.getGroceriesSortedByName());
+    Assertions.assertSame(byExpiryDate, fridgeService.getGroceriesSortedByExpiryDate());
+    Assertions.assertEquals(List.of(today.plusDays(2), today.plusDays(1), today.plusDays(20)),
+        byName.stream().map(Grocery::getExpiryDate).toList());
+
+    fridgeService.removeGrocery("bread", 1);
+    Assertions.assertSame(byName, fridgeService.getGroceriesSortedByName());
+    Assertions.assertEquals(1, byName.get(0).getQuantity());
+
+    fridgeService.addGrocery(new Grocery("apple", 3, "pieces", 5, today.plusDays(7)));
+    List<Grocery> newByName = fridgeService.getGroceriesSortedByName();
+    Assertions.assertNotSame(byName, newByName);
+    Assertions.assertEquals(List.of("apple", "bread", "cheese", "cheese"),
+        newByName.stream().map(Grocery::getName).toList());
+    Assertions.assertEquals(List.of("cheese", "bread", "apple", "cheese"),
+        fridgeService.getGroceriesSortedByExpiryDate().stream().map(Grocery::getName).toList());
+
+    fridgeService.removeGrocery("cheese", 1);
+    Assertions.assertEquals(3, fridgeService.getGroceriesSortedByExpiryDate().size());
+  }
+
+  /**
+   * Tests retrieving the groceries expiring next.
+   * <p>Verifies that expired lots are skipped, that lots of all names are merged in order of
+   * expiry date and that no more than the requested number is returned.</p>
+   */
+  @Test
+  void testGetGroceriesExpiringNext() {
+    FridgeService fridgeService = new FridgeService();
+    LocalDate today = LocalDate.now();
+    for (int day = -3; day < 12; day++) {
+      String name = day % 3 == 0 ? "yoghurt" : day % 3 == 1 ? "cream" : "juice";
+      fridgeService.addGrocery(new Grocery(name, 1, "liters", 10, today.plusDays(day)));
+    }
+
+    List<Grocery> next = fridgeService.getGroceriesExpiringNext(5);
+    Assertions.assertEquals(5, next.size());
+    for (int i = 0; i < next.size(); i++) {
+      Assertions.assertEquals(today.plusDays(i), next.get(i).getExpiryDate());
+    }
+    Assertions.assertEquals(12, fridgeService.getGroceriesExpiringNext(100).size());
+    Assertions.assertTrue(fridgeService.getGroceriesExpiringNext(0).isEmpty());
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> fridgeService.getGroceriesExpiringNext(-1));
+  }
+
+  /**
+   * Tests retrieving the groceries expiring next while the lots of a name change.
+   * <p>Verifies that the lots of a name are read from one snapshot: a lot used up after the list
+   * was searched does not shift the later lots out of the result.</p>
+   */
+  @Test
+  void testGetGroceriesExpiringNext_ListShrinksDuringSearch() {
+    Fridge fridge = new Fridge();
+    LocalDate today = LocalDate.now();
+    List<Grocery> lots = new CopyOnWriteArrayList<>() {
+      @Override
+      public ListIterator<Grocery> listIterator(int index) {
+        // Another thread uses up the first lot right after the binary search
+        remove(0);
+        return super.listIterator(index);
+      }
+    };
+    for (int day = -2; day < 3; day++) {
+      lots.add(new Grocery("milk", 1, "liters", 20, today.plusDays(day)));
+    }
+    fridge.getGroceriesPerCategory().put("milk", lots);
+
+    List<LocalDate> expiryDates = new ArrayList<>();
+    fridge.iterateByExpiryDate(today).forEachRemaining(
+        grocery -> expiryDates.add(grocery.getExpiryDate()));
+    Assertions.assertEquals(List.of(today, today.plusDays(1), today.plusDays(2)), expiryDates);
+  }
+
+  /**
+   * Tests listing all groceries page by page.
+   * <p>Verifies that following the page tokens visits every grocery exactly once in the same
+   * order as the sorted lists, also when many groceries share a name or expiry date.</p>
+   */
+  @Test
+  void testGetGroceryPage_VisitsAllGroceriesInOrder() {
+    FridgeService fridgeService = new FridgeService();
+    LocalDate today = LocalDate.now();
+    for (int i = 0; i < 60; i++) {
+      fridgeService.addGrocery(new Grocery("paged grocery " + i % 4, 1, "kg", i,
+          today.plusDays(i % 5)));
+    }
+
+    for (int pageSize : new int[] {1, 7, 20, 60, 100}) {
+      Assertions.assertEquals(fridgeService.getGroceriesSortedByName(),
+          readAllPages(fridgeService, SortOrder.NAME, pageSize));
+      Assertions.assertEquals(fridgeService.getGroceriesSortedByExpiryDate(),
+          readAllPages(fridgeService, SortOrder.EXPIRY_DATE, pageSize));
+    }
+  }
+
+  /**
+   * Tests consuming groceries while listing them page by page.
+   * <p>Verifies that lots consumed between pages, whether already shown or not, never make the
+   * following pages skip or repeat the remaining lots, in both orders.</p>
+   */
+  @Test
+  void testGetGroceryPage_ConsumingBetweenPagesSkipsNothing() {
+    for (SortOrder order : SortOrder.values()) {
+      FridgeService fridgeService = new FridgeService();
+      LocalDate today = LocalDate.now();
+      for (int i = 1; i <= 12; i++) {
+        fridgeService.addGrocery(new Grocery("paging milk", 1, "liters", i, today.plusDays(1)));
+      }
+      for (int i = 1; i <= 4; i++) {
+        fridgeService.addGrocery(new Grocery("paging apple", 1, "pieces", i, today.plusDays(2)));
+      }
+      List<Grocery> expected = new ArrayList<>(order == SortOrder.NAME
+          ? fridgeService.getGroceriesSortedByName()
+          : fridgeService.getGroceriesSortedByExpiryDate());
+
+      GroceryPage page = fridgeService.getGroceryPage(order, 6, null);
+      Assertions.assertEquals(expected.subList(0, 6), page.groceries());
+      // Uses up the three milk lots expiring first, shown or not
+      List<Grocery> consumed = new ArrayList<>();
+      fridgeService.consumeGrocery("paging milk", 3)
+          .forEach(consumption -> consumed.add(consumption.lot()));
+      expected = new ArrayList<>(expected.subList(6, expected.size()));
+      expected.removeAll(consumed);
+
+      List<Grocery> rest = new ArrayList<>();
+      while (page.hasNextPage()) {
+        page = fridgeService.getGroceryPage(order, 6, page.nextPageToken());
+        rest.addAll(page.groceries());
+      }
+      Assertions.assertEquals(expected, rest, "Listing by " + order);
+    }
+  }
+
+  private static List<Grocery> readAllPages(FridgeService fridgeService, SortOrder order,
+      int pageSize) {
+    List<Grocery> groceries = new ArrayList<>();
+    GroceryPage page = fridgeService.getGroceryPage(order, pageSize, null);
+    groceries.addAll(page.groceries());
+    while (page.hasNextPage()) {
+      Assertions.assertEquals(pageSize, page.groceries().size());
+      page = fridgeService.getGroceryPage(order, pageSize, page.nextPageToken());
+      groceries.addAll(page.groceries());
+    }
+    return groceries;
+  }
+
+  /**
+   * Tests listing groceries page by page with invalid arguments.
+   * <p>Verifies that an empty fridge gives a single empty page and that page sizes and tokens
+   * are validated.</p>
+   */
+  @Test
+  void testGetGroceryPage_InvalidArguments() {
+    FridgeService fridgeService = new FridgeService();
+    GroceryPage page = fridgeService.getGroceryPage(SortOrder.NAME, 10, null);
+    Assertions.assertTrue(page.groceries().isEmpty());
+    Assertions.assertFalse(page.hasNextPage());
+
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> fridgeService.getGroceryPage(SortOrder.NAME, 0, null));
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> fridgeService.getGroceryPage(null, 10, null));
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> fridgeService.getGroceryPage(SortOrder.EXPIRY_DATE, 10, "NAME:0:milk"));
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> fridgeService.getGroceryPage(SortOrder.EXPIRY_DATE, 10, "EXPIRY_DATE:0:tomorrow"));
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> fridgeService.getGroceryPage(SortOrder.NAME, 10, "NAME:-1:milk"));
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> fridgeService.getGroceryPage(SortOrder.NAME, 10, "NAME:2024-03-04:-1:milk"));
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> fridgeService.getGroceryPage(SortOrder.EXPIRY_DATE, 10, "EXPIRY_DATE:2024-03-04"));
+  }
+
+  /**
+   * Tests a quantity listener that is slow to return.
+   * <p>Verifies that while the listener is busy with one change, another thread can still change
+   * the same grocery, and that the listener is then told every total in the order the changes
+   * were made.</p>
+   */
+  @Test
+  void testAddQuantityListener_SlowListenerDoesNotBlockWriters() throws Exception {
+    FridgeService fridgeService = new FridgeService();
+    CountDownLatch listenerBusy = new CountDownLatch(1);
+    CountDownLatch releaseListener = new CountDownLatch(1);
+    List<Double> totals = new CopyOnWriteArrayList<>();
+    fridgeService.addQuantityListener((name, totalQuantity) -> {
+      totals.add(totalQuantity);
+      if (totals.size() == 1) {
+        listenerBusy.countDown();
+        try {
+          releaseListener.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    });
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      LocalDate expiryDate = LocalDate.now().plusDays(4);
+      Future<?> firstWriter = executor.submit(
+          () -> fridgeService.addGrocery(new Grocery("milk", 1, "liters", 20, expiryDate)));
+      Assertions.assertTrue(listenerBusy.await(5, TimeUnit.SECONDS));
+
+      // The first writer is still in the listener, but no longer holds the grocery
+      fridgeService.addGrocery(new Grocery("milk", 2, "liters", 20, expiryDate));
+      Assertions.assertTrue(fridgeService.removeGrocery("milk", 3));
+      Assertions.assertEquals(List.of(1.0), totals);
+
+      releaseListener.countDown();
+      firstWriter.get(5, TimeUnit.SECONDS);
+    } finally {
+      executor.shutdownNow();
+    }
+    // Removing the last lot may repeat the final total of zero
+    Assertions.assertEquals(List.of(1.0, 3.0, 0.0), totals.stream().distinct().toList());
+  }
+}
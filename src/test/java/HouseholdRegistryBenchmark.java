@@ -0,0 +1,56 @@
+import edu.ntnu.iir.bidata.model.Grocery;
+import edu.ntnu.iir.bidata.model.Recipe;
+import edu.ntnu.iir.bidata.services.Household;
+import edu.ntnu.iir.bidata.services.HouseholdRegistry;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Measures the heap used per household held by a {@link HouseholdRegistry}.
+ *
+ * <p>Not a unit test; run the {@code main} method directly, preferably with a fixed heap size
+ * (for example {@code -Xms2g -Xmx2g}) so that garbage collection does not skew the numbers.</p>
+ */
+public class HouseholdRegistryBenchmark {
+
+  private static final int HOUSEHOLDS = 100_000;
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args not used
+   */
+  public static void main(String[] args) {
+    LocalDate expiry = LocalDate.now().plusDays(5);
+    Map<String, Double> ingredients = Map.of("milk", 1.0);
+
+    long baseline = usedHeap();
+    HouseholdRegistry registry = new HouseholdRegistry(Duration.ofMinutes(30));
+    for (int i = 0; i < HOUSEHOLDS; i++) {
+      registry.getHousehold("household-" + i);
+    }
+    long empty = usedHeap();
+    System.out.printf("Empty households:     %6d bytes each%n",
+        (empty - baseline) / HOUSEHOLDS);
+
+    for (int i = 0; i < HOUSEHOLDS; i++) {
+      Household household = registry.getHousehold("household-" + i);
+      household.getFridgeService().addGrocery(new Grocery("milk", 1, "liters", 20, expiry));
+      household.getRecipeService().addRecipe(
+          new Recipe("Milk", "A glass of milk", "Pour.", ingredients, 1));
+    }
+    long populated = usedHeap();
+    System.out.printf("With 1 lot, 1 recipe: %6d bytes each%n",
+        (populated - baseline) / HOUSEHOLDS);
+    System.out.println("Households: " + registry.size());
+  }
+
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
@@ -0,0 +1,114 @@
+import edu.ntnu.iir.bidata.model.Grocery;
+import edu.ntnu.iir.bidata.services.Household;
+import edu.ntnu.iir.bidata.services.HouseholdRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link HouseholdRegistry} class.
+ *
+ * <p>These tests verify that households are created lazily, kept apart from each other and
+ * evicted once they have been idle for too long.</p>
+ */
+public class HouseholdRegistryTest {
+
+  /**
+   * A clock that only moves when told to.
+   */
+  private static class ManualClock extends Clock {
+    private Instant now = Instant.EPOCH;
+
+    void advance(Duration duration) {
+      now = now.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
+
+  /**
+   * Tests that a household is created on first access and reused afterwards.
+   */
+  @Test
+  void testGetHousehold_CreatesLazily() {
+    HouseholdRegistry registry = new HouseholdRegistry(Duration.ofMinutes(5));
+
+    Assertions.assertFalse(registry.containsHousehold("a"));
+    Household household = registry.getHousehold("a");
+
+    Assertions.assertTrue(registry.containsHousehold("a"));
+    Assertions.assertSame(household, registry.getHousehold("a"));
+    Assertions.assertEquals(1, registry.size());
+  }
+
+  /**
+   * Tests that the fridges and cookbooks of different households are independent.
+   */
+  @Test
+  void testGetHousehold_HouseholdsAreIsolated() {
+    HouseholdRegistry registry = new HouseholdRegistry(Duration.ofMinutes(5));
+
+    registry.getHousehold("a").getFridgeService()
+        .addGrocery(new Grocery("milk", 1, "liters", 20, LocalDate.now().plusDays(3)));
+
+    Assertions.assertEquals(1, registry.getHousehold("a").getFridgeService()
+        .getAllGroceries().size());
+    Assertions.assertTrue(registry.getHousehold("b").getFridgeService()
+        .getAllGroceries().isEmpty());
+    Assertions.assertTrue(registry.getHousehold("b").getRecipeService().getRecipes().isEmpty());
+  }
+
+  /**
+   * Tests that only households idle for longer than the timeout are evicted, and that the
+   * eviction listener is notified about them.
+   */
+  @Test
+  void testEvictIdleHouseholds() {
+    ManualClock clock = new ManualClock();
+    List<String> evicted = new ArrayList<>();
+    HouseholdRegistry registry = new HouseholdRegistry(Duration.ofMinutes(5), clock,
+        household -> evicted.add(household.getId()));
+
+    registry.getHousehold("idle");
+    registry.getHousehold("active");
+    clock.advance(Duration.ofMinutes(4));
+    registry.getHousehold("active");
+    clock.advance(Duration.ofMinutes(2));
+
+    Assertions.assertEquals(1, registry.evictIdleHouseholds());
+    Assertions.assertEquals(List.of("idle"), evicted);
+    Assertions.assertFalse(registry.containsHousehold("idle"));
+    Assertions.assertTrue(registry.containsHousehold("active"));
+  }
+
+  /**
+   * Tests that an invalid household id is rejected.
+   */
+  @Test
+  void testGetHousehold_InvalidId() {
+    HouseholdRegistry registry = new HouseholdRegistry(Duration.ofMinutes(5));
+
+    Assertions.assertThrows(IllegalArgumentException.class, () -> registry.getHousehold(""));
+    Assertions.assertThrows(IllegalArgumentException.class, () -> registry.getHousehold(null));
+  }
+}
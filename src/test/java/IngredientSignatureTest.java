@@ -0,0 +1,49 @@
+import edu.ntnu.iir.bidata.model.IngredientSignature;
+import edu.ntnu.iir.bidata.model.Recipe;
+import edu.ntnu.iir.bidata.model.SymbolTable;
+import java.util.Map;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link IngredientSignature} class.
+ *
+ * <p>These tests verify that a signature never rejects a recipe whose ingredients are all
+ * available, and that it rejects a recipe missing an ingredient with its own bit.</p>
+ */
+public class IngredientSignatureTest {
+
+  @Test
+  void testCovers_AllIngredientsAvailable() {
+    Recipe recipe = new Recipe("Omelette", "Eggs in a pan", "Whisk and fry.",
+        Map.of("SignatureEggs", 3.0, "SignatureButter", 0.1, "SignatureSalt", 0.0), 1);
+    double[] available = new double[SymbolTable.NAMES.size()];
+    available[SymbolTable.NAMES.idOf("signatureeggs")] = 3.0;
+    available[SymbolTable.NAMES.idOf("signaturebutter")] = 0.5;
+
+    Assertions.assertTrue(IngredientSignature.covers(
+        IngredientSignature.ofAvailable(available), recipe.getIngredientSignature()));
+  }
+
+  @Test
+  void testCovers_MissingIngredient() {
+    int eggs = SymbolTable.NAMES.idOf("signatureeggs");
+    int missing = eggs + 1;
+    while (IngredientSignature.bitOf(missing) == IngredientSignature.bitOf(eggs)) {
+      missing++;
+    }
+    double[] available = new double[missing + 1];
+    available[eggs] = 3.0;
+    long needed = IngredientSignature.ofRequired(new int[] {eggs, missing},
+        new double[] {1.0, 1.0});
+
+    Assertions.assertFalse(IngredientSignature.covers(
+        IngredientSignature.ofAvailable(available), needed));
+  }
+
+  @Test
+  void testOfRequired_IgnoresZeroQuantities() {
+    Assertions.assertEquals(0, IngredientSignature.ofRequired(new int[] {1, 2},
+        new double[] {0.0, 0.0}));
+  }
+}
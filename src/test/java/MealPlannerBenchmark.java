@@ -0,0 +1,100 @@
+import edu.ntnu.iir.bidata.model.Grocery;
+import edu.ntnu.iir.bidata.model.MealPlan;
+import edu.ntnu.iir.bidata.model.Recipe;
+import edu.ntnu.iir.bidata.services.FridgeService;
+import edu.ntnu.iir.bidata.services.MealPlanner;
+import edu.ntnu.iir.bidata.services.RecipeService;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Measures how much expired value {@link MealPlanner} saves on synthetic households, and how the
+ * result improves with the time budget.
+ *
+ * <p>Every household has its own cookbook and fridge, drawn from a shared set of ingredient
+ * names. The plans are made for one and two weeks with up to two meals a day.</p>
+ *
+ * <p>Not a unit test; run the {@code main} method directly. The slowest plan shows how well the
+ * time budget is kept.</p>
+ */
+public class MealPlannerBenchmark {
+
+  private static final int HOUSEHOLDS = 10;
+  private static final int RECIPES = 2_000;
+  private static final int LOTS = 200;
+  private static final int INGREDIENT_NAMES = 150;
+  private static final int MEALS_PER_DAY = 2;
+  private static final List<Integer> PLAN_DAYS = List.of(7, 14);
+  private static final List<Duration> BUDGETS =
+      List.of(Duration.ofMillis(10), Duration.ofMillis(100), Duration.ofMillis(1000));
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args not used
+   */
+  public static void main(String[] args) {
+    LocalDate firstDay = LocalDate.now();
+    // Warm up the JVM, so the smallest budget is not spent compiling
+    for (int household = 0; household < HOUSEHOLDS; household++) {
+      Random random = new Random(household);
+      new MealPlanner(createRecipeService(random), createFridgeService(random, firstDay))
+          .plan(firstDay, PLAN_DAYS.get(0), MEALS_PER_DAY, Duration.ofMillis(100));
+    }
+    for (int days : PLAN_DAYS) {
+      for (Duration budget : BUDGETS) {
+        double withoutPlan = 0;
+        double expired = 0;
+        int meals = 0;
+        long slowest = 0;
+        for (int household = 0; household < HOUSEHOLDS; household++) {
+          Random random = new Random(household);
+          MealPlanner planner = new MealPlanner(createRecipeService(random),
+              createFridgeService(random, firstDay));
+          long start = System.nanoTime();
+          MealPlan plan = planner.plan(firstDay, days, MEALS_PER_DAY, budget);
+          slowest = Math.max(slowest, System.nanoTime() - start);
+          withoutPlan += plan.expiredValueWithoutPlan();
+          expired += plan.expiredValue();
+          meals += plan.meals().size();
+        }
+        System.out.printf("%2d days, budget %5d ms: expired %8.0f of %8.0f NOK (%4.1f%% saved),"
+                + " %5.1f meals, slowest %6.1f ms%n", days, budget.toMillis(), expired / HOUSEHOLDS,
+            withoutPlan / HOUSEHOLDS, 100 * (1 - expired / withoutPlan),
+            (double) meals / HOUSEHOLDS, slowest / 1e6);
+      }
+    }
+  }
+
+  private static RecipeService createRecipeService(Random random) {
+    RecipeService recipeService = new RecipeService();
+    for (int i = 0; i < RECIPES; i++) {
+      Map<String, Double> ingredients = new HashMap<>();
+      int ingredientCount = 2 + random.nextInt(4);
+      while (ingredients.size() < ingredientCount) {
+        ingredients.put(ingredientName(random), 0.25 * (1 + random.nextInt(4)));
+      }
+      recipeService.addRecipe(new Recipe("Recipe " + i, "Benchmark recipe", "Cook.",
+          ingredients, 2 + random.nextInt(3)));
+    }
+    return recipeService;
+  }
+
+  private static FridgeService createFridgeService(Random random, LocalDate firstDay) {
+    FridgeService fridgeService = new FridgeService();
+    for (int i = 0; i < LOTS; i++) {
+      fridgeService.addGrocery(new Grocery(ingredientName(random), 0.5 * (1 + random.nextInt(6)),
+          "kg", 10 + random.nextInt(90), firstDay.plusDays(random.nextInt(21))));
+    }
+    return fridgeService;
+  }
+
+  private static String ingredientName(Random random) {
+    // Common ingredients are used by many recipes, rare ones by few
+    return "mealplan" + (int) (INGREDIENT_NAMES * Math.pow(random.nextDouble(), 2));
+  }
+}
@@ -0,0 +1,136 @@
+import edu.ntnu.iir.bidata.model.Grocery;
+import edu.ntnu.iir.bidata.model.MealPlan;
+import edu.ntnu.iir.bidata.model.PlannedMeal;
+import edu.ntnu.iir.bidata.model.Recipe;
+import edu.ntnu.iir.bidata.services.FridgeService;
+import edu.ntnu.iir.bidata.services.MealPlanner;
+import edu.ntnu.iir.bidata.services.RecipeService;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link MealPlanner} class.
+ *
+ * <p>These tests verify that plans use up groceries before they expire, that quantities are
+ * shared between the meals of a plan and that lots are only used before their expiry date.</p>
+ */
+public class MealPlannerTest {
+  private static final LocalDate FIRST_DAY = LocalDate.of(2024, 3, 4);
+
+  /** Local search steps per plan; plans made this way do not depend on the clock. */
+  private static final long SEARCH_STEPS = 2_000;
+
+  private FridgeService fridgeService;
+  private RecipeService recipeService;
+  private MealPlanner mealPlanner;
+
+  /**
+   * Creates a planner over an empty fridge and cookbook before each test execution.
+   */
+  @BeforeEach
+  void createPlanner() {
+    fridgeService = new FridgeService();
+    recipeService = new RecipeService();
+    mealPlanner = new MealPlanner(recipeService, fridgeService);
+  }
+
+  /**
+   * Tests that the plan cooks the recipe using a lot about to expire.
+   * <p>Verifies that both portions of milk are used before it expires, so no value is lost, and
+   * that the recipe needing only oats is left out.</p>
+   */
+  @Test
+  void testPlan_UsesGroceriesBeforeTheyExpire() {
+    fridgeService.addGrocery(new Grocery("Milk", 1.0, "liters", 20.0, FIRST_DAY.plusDays(1)));
+    fridgeService.addGrocery(new Grocery("Oats", 2.0, "kg", 30.0, FIRST_DAY.plusDays(60)));
+    Recipe porridge = new Recipe("Porridge", "Oats and milk", "Boil.",
+        Map.of("Milk", 0.5, "Oats", 0.2), 1);
+    Recipe granola = new Recipe("Granola", "Oats only", "Bake.", Map.of("Oats", 0.5), 1);
+    recipeService.addRecipe(porridge);
+    recipeService.addRecipe(granola);
+
+    MealPlan plan = mealPlanner.plan(FIRST_DAY, 7, 1, SEARCH_STEPS);
+
+    Assertions.assertEquals(20.0, plan.expiredValueWithoutPlan(), 1e-9);
+    Assertions.assertEquals(0.0, plan.expiredValue(), 1e-9);
+    Assertions.assertEquals(20.0, plan.savedValue(), 1e-9);
+    Assertions.assertEquals(2, plan.meals().size());
+    for (PlannedMeal meal : plan.meals()) {
+      Assertions.assertEquals(porridge, meal.recipe());
+      Assertions.assertFalse(meal.date().isAfter(FIRST_DAY.plusDays(1)));
+    }
+  }
+
+  /**
+   * Tests that meals share the quantities of the fridge and only use lots before they expire.
+   * <p>Verifies that the berries expiring today are used on the first day and that the cream is
+   * used by one meal only, before its expiry date.</p>
+   */
+  @Test
+  void testPlan_SharesQuantitiesAndRespectsExpiryDates() {
+    fridgeService.addGrocery(new Grocery("Cream", 1.0, "liters", 40.0, FIRST_DAY.plusDays(2)));
+    fridgeService.addGrocery(new Grocery("Berries", 0.5, "kg", 100.0, FIRST_DAY));
+    Recipe sauce = new Recipe("Sauce", "Cream sauce", "Reduce.", Map.of("Cream", 1.0), 2);
+    Recipe soup = new Recipe("Soup", "Cream soup", "Simmer.", Map.of("Cream", 1.0), 4);
+    Recipe dessert = new Recipe("Dessert", "Berries", "Serve.", Map.of("Berries", 0.5), 2);
+    recipeService.addRecipe(sauce);
+    recipeService.addRecipe(soup);
+    recipeService.addRecipe(dessert);
+
+    MealPlan plan = mealPlanner.plan(FIRST_DAY, 7, 1, SEARCH_STEPS);
+
+    Assertions.assertEquals(0.0, plan.expiredValue(), 1e-9);
+    Assertions.assertEquals(2, plan.meals().size());
+    Assertions.assertEquals(new PlannedMeal(FIRST_DAY, dessert), plan.meals().get(0));
+    Assertions.assertTrue(plan.meals().get(1).date().isAfter(FIRST_DAY));
+    Assertions.assertFalse(plan.meals().get(1).date().isAfter(FIRST_DAY.plusDays(2)));
+  }
+
+  /**
+   * Tests that a plan limited by search steps is the same every time.
+   * <p>Verifies that planning again, after a timed plan in between, gives an equal plan that
+   * saves value.</p>
+   */
+  @Test
+  void testPlan_SearchStepsGiveRepeatablePlans() {
+    fridgeService.addGrocery(new Grocery("Eggs", 6.0, "pieces", 5.0, FIRST_DAY.plusDays(3)));
+    fridgeService.addGrocery(new Grocery("Ham", 0.4, "kg", 150.0, FIRST_DAY.plusDays(1)));
+    fridgeService.addGrocery(new Grocery("Cheese", 0.5, "kg", 120.0, FIRST_DAY.plusDays(5)));
+    recipeService.addRecipe(new Recipe("Omelette", "Eggs and ham", "Fry.",
+        Map.of("Eggs", 3.0, "Ham", 0.2), 1));
+    recipeService.addRecipe(new Recipe("Toast", "Ham and cheese", "Grill.",
+        Map.of("Ham", 0.1, "Cheese", 0.1), 1));
+    recipeService.addRecipe(new Recipe("Scramble", "Eggs and cheese", "Stir.",
+        Map.of("Eggs", 2.0, "Cheese", 0.2), 1));
+
+    MealPlan first = mealPlanner.plan(FIRST_DAY, 5, 2, SEARCH_STEPS);
+    mealPlanner.plan(FIRST_DAY, 5, 2, Duration.ZERO);
+    MealPlan second = mealPlanner.plan(FIRST_DAY, 5, 2, SEARCH_STEPS);
+
+    Assertions.assertEquals(first, second);
+    Assertions.assertTrue(first.expiredValue() < first.expiredValueWithoutPlan());
+  }
+
+  /**
+   * Tests planning with invalid arguments.
+   * <p>Verifies that non-positive days, a negative budget or number of steps, and missing
+   * services are rejected.</p>
+   */
+  @Test
+  void testPlan_InvalidArguments() {
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> mealPlanner.plan(FIRST_DAY, 0, 1, Duration.ZERO));
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> mealPlanner.plan(FIRST_DAY, 7, 1, Duration.ofMillis(-1)));
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> mealPlanner.plan(FIRST_DAY, 7, 1, -1));
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> mealPlanner.plan(null, 7, 1, SEARCH_STEPS));
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> new MealPlanner(null, fridgeService));
+  }
+}
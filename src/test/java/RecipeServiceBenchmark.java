@@ -0,0 +1,143 @@
+import edu.ntnu.iir.bidata.model.Grocery;
+import edu.ntnu.iir.bidata.model.Recipe;
+import edu.ntnu.iir.bidata.services.RecipeService;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * Measures how fast {@link RecipeService} finds the recipes that can be made from a fridge with
+ * a large cookbook.
+ *
+ * <p>The indexed search is compared with the parallel search on fork/join pools of growing size,
+ * up to the number of available cores. The top-K recommendations are measured on a smaller
+ * cookbook against a fridge of many lots, and compared with ranking every makeable recipe. The
+ * text search is measured on a cookbook whose descriptions and procedures are drawn from a
+ * vocabulary where a few words are very common and most are rare.</p>
+ *
+ * <p>Not a unit test; run the {@code main} method directly with a heap of a few gigabytes, for
+ * example {@code -Xmx3g}. Each query is run a few times to warm up the JVM before it is
+ * measured.</p>
+ */
+public class RecipeServiceBenchmark {
+
+  private static final int RECIPES = 1_000_000;
+  private static final int INGREDIENT_NAMES = 2_000;
+  private static final int FRIDGE_ITEMS = 60;
+  private static final int RECOMMENDATION_RECIPES = 100_000;
+  private static final int RECOMMENDATION_LOTS = 100_000;
+  private static final int RECOMMENDATIONS = 10;
+  private static final int SEARCH_WORDS = 20_000;
+  private static final int SEARCH_RESULTS = 10;
+  private static final int ROUNDS = 10;
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args not used
+   */
+  public static void main(String[] args) {
+    Random random = new Random(42);
+    benchmarkMatching(random);
+    benchmarkRecommendations(random);
+    benchmarkSearch(random);
+  }
+
+  private static void benchmarkMatching(Random random) {
+    RecipeService recipeService = createRecipeService(random, RECIPES);
+    List<Grocery> fridgeItems = createFridgeItems(random, FRIDGE_ITEMS);
+
+    System.out.printf("%d recipes, %d cores%n", RECIPES,
+        Runtime.getRuntime().availableProcessors());
+    measure("indexed", () -> recipeService.getPossibleRecipes(fridgeItems, "y"));
+    measure("missing at most one", () -> recipeService.getNearMissRecipes(fridgeItems, "y", 1,
+        Double.POSITIVE_INFINITY));
+    for (int threads = 1; threads <= Runtime.getRuntime().availableProcessors(); threads *= 2) {
+      ForkJoinPool pool = new ForkJoinPool(threads);
+      measure("parallel, " + threads + " threads",
+          () -> recipeService.getPossibleRecipesInParallel(fridgeItems, "y", pool));
+      pool.shutdown();
+    }
+  }
+
+  private static void benchmarkRecommendations(Random random) {
+    RecipeService recipeService = createRecipeService(random, RECOMMENDATION_RECIPES);
+    List<Grocery> fridgeItems = createFridgeItems(random, RECOMMENDATION_LOTS);
+
+    System.out.printf("%d recipes, %d lots%n", RECOMMENDATION_RECIPES, RECOMMENDATION_LOTS);
+    measure("top " + RECOMMENDATIONS,
+        () -> recipeService.getRecommendedRecipes(fridgeItems, RECOMMENDATIONS));
+    measure("all ranked",
+        () -> recipeService.getRecommendedRecipes(fridgeItems, Integer.MAX_VALUE));
+    measure("max servings", () -> recipeService.getMaxServings(fridgeItems, "y"));
+  }
+
+  private static void benchmarkSearch(Random random) {
+    RecipeService recipeService = new RecipeService();
+    for (int i = 0; i < RECIPES; i++) {
+      recipeService.addRecipe(new Recipe("Recipe " + i, createText(random, 8),
+          createText(random, 20), Map.of(), 2));
+    }
+
+    System.out.printf("%d recipes, %d words%n", RECIPES, SEARCH_WORDS);
+    measure("rare word", () -> recipeService.searchRecipes("word15000", SEARCH_RESULTS));
+    measure("two medium words",
+        () -> recipeService.searchRecipes("word300 word900", SEARCH_RESULTS));
+    measure("three words", () -> recipeService.searchRecipes("word5 word40 word2000",
+        SEARCH_RESULTS));
+    measure("most common word", () -> recipeService.searchRecipes("word0", SEARCH_RESULTS));
+  }
+
+  private static String createText(Random random, int words) {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < words; i++) {
+      text.append(" word").append((int) (SEARCH_WORDS * Math.pow(random.nextDouble(), 4)));
+    }
+    return text.toString();
+  }
+
+  private static RecipeService createRecipeService(Random random, int recipes) {
+    RecipeService recipeService = new RecipeService();
+    for (int i = 0; i < recipes; i++) {
+      recipeService.addRecipe(createRecipe(random, i));
+    }
+    return recipeService;
+  }
+
+  private static void measure(String scenario, Supplier<List<?>> query) {
+    long best = Long.MAX_VALUE;
+    int found = 0;
+    for (int round = 0; round < ROUNDS; round++) {
+      long start = System.nanoTime();
+      found = query.get().size();
+      best = Math.min(best, System.nanoTime() - start);
+    }
+    System.out.printf("  %-22s %8.2f ms, %d found%n", scenario, best / 1e6, found);
+  }
+
+  private static Recipe createRecipe(Random random, int number) {
+    // Common ingredients are used by many recipes, rare ones by few
+    Map<String, Double> ingredients = new HashMap<>();
+    int ingredientCount = 2 + random.nextInt(5);
+    while (ingredients.size() < ingredientCount) {
+      int ingredient = (int) (INGREDIENT_NAMES * Math.pow(random.nextDouble(), 3));
+      ingredients.put("ingredient" + ingredient, 1.0 + random.nextInt(3));
+    }
+    return new Recipe("Recipe " + number, "Benchmark recipe", "Cook.", ingredients, 2);
+  }
+
+  private static List<Grocery> createFridgeItems(Random random, int count) {
+    List<Grocery> fridgeItems = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      int ingredient = (int) (INGREDIENT_NAMES * Math.pow(random.nextDouble(), 3));
+      fridgeItems.add(new Grocery("ingredient" + ingredient, 1 + random.nextInt(4), "kg",
+          5 + random.nextInt(50), LocalDate.now().plusDays(random.nextInt(30))));
+    }
+    return fridgeItems;
+  }
+}
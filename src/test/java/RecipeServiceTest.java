@@ -1,13 +1,26 @@
+import edu.ntnu.iir.bidata.model.Cookbook;
 import edu.ntnu.iir.bidata.model.Grocery;
+import edu.ntnu.iir.bidata.model.MissingIngredient;
+import edu.ntnu.iir.bidata.model.NearMissRecipe;
 import edu.ntnu.iir.bidata.model.Recipe;
+import edu.ntnu.iir.bidata.model.RecipeRecommendation;
+import edu.ntnu.iir.bidata.model.RecipeSearchResult;
+import edu.ntnu.iir.bidata.model.RecipeServings;
+import edu.ntnu.iir.bidata.services.FridgeService;
 import edu.ntnu.iir.bidata.services.RecipeService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Test class for {@link RecipeService}.
@@ -15,16 +28,18 @@ import java.util.Map;
  */
 public class RecipeServiceTest {
 
+  private RecipeService recipeService;
+
   /**
-   * Clears all recipes from the RecipeService before each test execution.
+   * Creates a RecipeService with an empty cookbook before each test execution.
    */
   @BeforeEach
-  public void clearRecipes() {
-    RecipeService.getRecipes().clear();
+  public void createRecipeService() {
+    recipeService = new RecipeService();
   }
 
   /**
-   * Tests that a recipe can be successfully added to the RecipeService.
+   * Tests that a recipe can be successfully added to the recipeService.
    */
   @Test
   public void testAddRecipe() {
@@ -36,15 +51,15 @@ public class RecipeServiceTest {
         4
     );
 
-    RecipeService.addRecipe(recipe);
+    recipeService.addRecipe(recipe);
 
-    List<Recipe> recipes = RecipeService.getRecipes();
+    List<Recipe> recipes = recipeService.getRecipes();
     Assertions.assertEquals(1, recipes.size());
     Assertions.assertEquals("Pancakes", recipes.get(0).getName());
   }
 
   /**
-   * Tests that a recipe can be removed successfully if it exists in the RecipeService.
+   * Tests that a recipe can be removed successfully if it exists in the recipeService.
    */
   @Test
   public void testRemoveRecipe_Existing() {
@@ -56,11 +71,11 @@ public class RecipeServiceTest {
         4
     );
 
-    RecipeService.addRecipe(recipe);
-    boolean result = RecipeService.removeRecipe("Pancakes");
+    recipeService.addRecipe(recipe);
+    boolean result = recipeService.removeRecipe("Pancakes");
 
     Assertions.assertTrue(result);
-    Assertions.assertTrue(RecipeService.getRecipes().isEmpty());
+    Assertions.assertTrue(recipeService.getRecipes().isEmpty());
   }
 
   /**
@@ -69,12 +84,12 @@ public class RecipeServiceTest {
 
   @Test
   public void testRemoveRecipe_NonExisting() {
-    boolean result = RecipeService.removeRecipe("NonExistentRecipe");
+    boolean result = recipeService.removeRecipe("NonExistentRecipe");
     Assertions.assertFalse(result);
   }
 
   /**
-   * Tests that all recipes can be retrieved from the RecipeService.
+   * Tests that all recipes can be retrieved from the recipeService.
    */
   @Test
   public void testGetRecipes() {
@@ -94,10 +109,10 @@ public class RecipeServiceTest {
         2
     );
 
-    RecipeService.addRecipe(recipe1);
-    RecipeService.addRecipe(recipe2);
+    recipeService.addRecipe(recipe1);
+    recipeService.addRecipe(recipe2);
 
-    List<Recipe> recipes = RecipeService.getRecipes();
+    List<Recipe> recipes = recipeService.getRecipes();
     Assertions.assertEquals(2, recipes.size());
   }
 
@@ -114,7 +129,7 @@ public class RecipeServiceTest {
         4
     );
 
-    RecipeService.addRecipe(recipe);
+    recipeService.addRecipe(recipe);
 
     List<Grocery> fridgeItems = List.of(
         new Grocery("Milk", 1.0, "liters", 20.0, LocalDate.now().plusDays(10)),
@@ -122,7 +137,7 @@ public class RecipeServiceTest {
         new Grocery("Flour", 0.5, "kg", 15.0, LocalDate.now().plusDays(20))
     );
 
-    List<Recipe> possibleRecipes = RecipeService.getPossibleRecipes(fridgeItems, "n");
+    List<Recipe> possibleRecipes = recipeService.getPossibleRecipes(fridgeItems, "n");
     Assertions.assertEquals(1, possibleRecipes.size());
     Assertions.assertEquals("Pancakes", possibleRecipes.get(0).getName());
   }
@@ -140,13 +155,13 @@ public class RecipeServiceTest {
         4
     );
 
-    RecipeService.addRecipe(recipe);
+    recipeService.addRecipe(recipe);
 
     List<Grocery> fridgeItems = List.of(
         new Grocery("Milk", 0.5, "liters", 20.0, LocalDate.now().plusDays(10))
     );
 
-    List<Recipe> possibleRecipes = RecipeService.getPossibleRecipes(fridgeItems, "n");
+    List<Recipe> possibleRecipes = recipeService.getPossibleRecipes(fridgeItems, "n");
     Assertions.assertTrue(possibleRecipes.isEmpty());
   }
 
@@ -163,7 +178,7 @@ public class RecipeServiceTest {
         4
     );
 
-    RecipeService.addRecipe(recipe);
+    recipeService.addRecipe(recipe);
 
     List<Grocery> fridgeItems = List.of(
         new Grocery("Milk", 1.0, "liters", 20.0, LocalDate.now().minusDays(5)),
@@ -171,8 +186,444 @@ public class RecipeServiceTest {
         new Grocery("Flour", 0.5, "kg", 15.0, LocalDate.now().plusDays(20))
     );
 
-    List<Recipe> possibleRecipes = RecipeService.getPossibleRecipes(fridgeItems, "y");
+    List<Recipe> possibleRecipes = recipeService.getPossibleRecipes(fridgeItems, "y");
     Assertions.assertEquals(1, possibleRecipes.size());
     Assertions.assertEquals("Pancakes", possibleRecipes.get(0).getName());
   }
+
+  /**
+   * Tests that the possible recipes are found through the ingredient index.
+   * <p>Verifies that every ingredient must be available in full, that names are matched
+   * case-insensitively, that results keep the order the recipes were added in and that
+   * removed recipes are no longer matched.</p>
+   */
+  @Test
+  public void testGetPossibleRecipes_UsesIngredientIndex() {
+    Recipe omelette = new Recipe("Omelette", "Eggs in a pan", "Whisk and fry.",
+        Map.of("Eggs", 3.0, "Butter", 0.1), 1);
+    Recipe toast = new Recipe("Toast", "Toasted bread", "Toast it.",
+        Map.of("BREAD", 2.0, "butter", 0.05), 1);
+    Recipe water = new Recipe("Water", "A glass of water", "Pour.", Map.of(), 1);
+    Recipe cake = new Recipe("Cake", "Sponge cake", "Bake.",
+        Map.of("Eggs", 4.0, "Flour", 0.5, "Sugar", 0.3), 8);
+    recipeService.addRecipe(omelette);
+    recipeService.addRecipe(toast);
+    recipeService.addRecipe(water);
+    recipeService.addRecipe(cake);
+
+    List<Grocery> fridgeItems = List.of(
+        new Grocery("eggs", 2.0, "pieces", 3.0, LocalDate.now().plusDays(10)),
+        new Grocery("Eggs", 1.0, "pieces", 3.0, LocalDate.now().plusDays(12)),
+        new Grocery("Butter", 0.2, "kg", 90.0, LocalDate.now().plusDays(30)),
+        new Grocery("Bread", 2.0, "pieces", 5.0, LocalDate.now().plusDays(3)),
+        new Grocery("Flour", 1.0, "kg", 15.0, LocalDate.now().plusDays(60))
+    );
+
+    Assertions.assertEquals(List.of(omelette, toast, water),
+        recipeService.getPossibleRecipes(fridgeItems, "n"));
+
+    Assertions.assertTrue(recipeService.removeRecipe("toast"));
+    Assertions.assertEquals(List.of(omelette, water),
+        recipeService.getPossibleRecipes(fridgeItems, "n"));
+    Assertions.assertThrows(UnsupportedOperationException.class,
+        () -> recipeService.getRecipes().add(toast));
+  }
+
+  /**
+   * Tests that the cookable recipes follow the groceries in a tracked fridge.
+   * <p>Verifies that groceries stored before tracking started count, and that recipes appear
+   * and disappear as groceries are added, consumed and recipes are removed.</p>
+   */
+  @Test
+  public void testGetCookableRecipes_FollowsFridge() {
+    FridgeService fridgeService = new FridgeService();
+    fridgeService.addGrocery(new Grocery("Eggs", 3.0, "pieces", 3.0, LocalDate.now().plusDays(10)));
+    Recipe omelette = new Recipe("Omelette", "Eggs in a pan", "Whisk and fry.",
+        Map.of("Eggs", 3.0, "Butter", 0.1), 1);
+    Recipe boiledEgg = new Recipe("Boiled egg", "One egg", "Boil.", Map.of("eggs", 1.0), 1);
+    Recipe water = new Recipe("Water", "A glass of water", "Pour.", Map.of(), 1);
+    recipeService.addRecipe(omelette);
+    recipeService.trackCookableRecipes(fridgeService);
+    recipeService.addRecipe(boiledEgg);
+    recipeService.addRecipe(water);
+    Assertions.assertEquals(List.of(boiledEgg, water), recipeService.getCookableRecipes());
+
+    fridgeService.addGrocery(new Grocery("butter", 0.2, "kg", 90.0, LocalDate.now().plusDays(30)));
+    Assertions.assertEquals(List.of(omelette, boiledEgg, water),
+        recipeService.getCookableRecipes());
+
+    fridgeService.consumeGrocery("eggs", 2.5);
+    Assertions.assertEquals(List.of(water), recipeService.getCookableRecipes());
+
+    fridgeService.addGrocery(new Grocery("Eggs", 4.0, "pieces", 3.0, LocalDate.now().plusDays(5)));
+    Assertions.assertTrue(recipeService.removeRecipe("boiled egg"));
+    Assertions.assertEquals(List.of(omelette, water), recipeService.getCookableRecipes());
+
+    fridgeService.consumeGrocery("butter", 0.2);
+    Assertions.assertEquals(List.of(water), recipeService.getCookableRecipes());
+  }
+
+  /**
+   * Tests that recipes are listed by tag, and that the smoothies that can be made are found.
+   *
+   * <p>Verifies that recipes named like smoothies are listed as smoothies without changing their
+   * own tags, that replaced and removed recipes leave the listing, and that tags are matched
+   * ignoring case.</p>
+   */
+  @Test
+  public void testGetRecipesTagged_ServesSmoothieListings() {
+    FridgeService fridgeService = new FridgeService();
+    fridgeService.addGrocery(new Grocery("Banana", 2.0, "pieces", 4.0, LocalDate.now().plusDays(3)));
+    recipeService.trackCookableRecipes(fridgeService);
+    Recipe bananaSmoothie = new Recipe("Banana Smoothie", "Sweet", "Blend.",
+        Map.of("Banana", 2.0), 1);
+    Recipe milkshake = new Recipe("Strawberry Milkshake", "Pink", "Blend.",
+        Map.of("Strawberry", 5.0), 1);
+    Recipe greenDrink = new Recipe("Green Drink", "Healthy", "Blend.",
+        Map.of("Banana", 1.0), 1, List.of("Smoothie", "Vegan"));
+    Recipe bananaBread = new Recipe("Banana Bread", "Baked", "Bake.", Map.of("Banana", 1.0), 8);
+    recipeService.addRecipe(bananaSmoothie);
+    recipeService.addRecipe(bananaBread);
+    recipeService.addRecipe(milkshake);
+    recipeService.addRecipe(greenDrink);
+
+    Assertions.assertEquals(List.of(bananaSmoothie, milkshake, greenDrink),
+        recipeService.getSmoothieRecipes());
+    Assertions.assertEquals(List.of(bananaBread), recipeService.getFoodRecipes());
+    Assertions.assertTrue(bananaSmoothie.getTags().isEmpty());
+    Assertions.assertEquals(List.of(greenDrink), recipeService.getRecipesTagged("VEGAN"));
+    Assertions.assertEquals(List.of(bananaSmoothie, greenDrink),
+        recipeService.getCookableRecipesTagged(RecipeService.SMOOTHIE_TAG));
+    Assertions.assertTrue(recipeService.getRecipesTagged("dessert").isEmpty());
+
+    fridgeService.consumeGrocery("banana", 1.0);
+    Assertions.assertEquals(List.of(greenDrink),
+        recipeService.getCookableRecipesTagged(RecipeService.SMOOTHIE_TAG));
+
+    recipeService.addRecipe(new Recipe("green drink", "Plain", "Pour.", Map.of(), 1));
+    Assertions.assertTrue(recipeService.getRecipesTagged("vegan").isEmpty());
+    Assertions.assertTrue(recipeService.removeRecipe("banana smoothie"));
+    Assertions.assertEquals(List.of(milkshake), recipeService.getSmoothieRecipes());
+    Assertions.assertTrue(recipeService.getCookableRecipesTagged("smoothie").isEmpty());
+  }
+
+  /**
+   * Tests recipes added straight to the cookbook of the service.
+   *
+   * <p>Verifies that only {@link RecipeService#addRecipe(Recipe)} lists recipes named like
+   * smoothies as smoothies: a recipe with "smoothie" in its name added to the {@link Cookbook}
+   * itself is listed with the food recipes, unless it has the tag.</p>
+   */
+  @Test
+  public void testGetSmoothieRecipes_RecipeAddedToCookbookKeepsItsTags() {
+    Cookbook cookbook = new Cookbook();
+    RecipeService service = new RecipeService(cookbook);
+    Recipe untagged = new Recipe("Mango Smoothie", "Sweet", "Blend.", Map.of("Mango", 1.0), 1);
+    Recipe tagged = new Recipe("Berry Smoothie", "Tart", "Blend.", Map.of("Berries", 1.0), 1,
+        List.of("smoothie"));
+    cookbook.addRecipe(untagged);
+    cookbook.addRecipe(tagged);
+
+    Assertions.assertEquals(List.of(tagged), service.getSmoothieRecipes());
+    Assertions.assertEquals(List.of(untagged), service.getFoodRecipes());
+
+    service.addRecipe(untagged);
+    Assertions.assertEquals(List.of(untagged, tagged), service.getSmoothieRecipes());
+    Assertions.assertTrue(untagged.getTags().isEmpty());
+  }
+
+  /**
+   * Tests that a text search ranks recipes by how well their words match the query.
+   *
+   * <p>Verifies that words are matched ignoring case and punctuation, that rare words and words
+   * in the name rank higher, and that replaced recipes are found by their new text.</p>
+   */
+  @Test
+  public void testSearchRecipes_RanksMatchingRecipes() {
+    Recipe porridge = new Recipe("Oat Porridge", "Warm breakfast with oats.",
+        "Simmer the oats in milk, then add banana.", Map.of("Oats", 1.0), 1);
+    Recipe smoothie = new Recipe("Banana Smoothie", "Cold and sweet.",
+        "Blend the banana with milk.", Map.of("Banana", 1.0), 1);
+    Recipe bread = new Recipe("Bread", "Baked loaf.", "Knead, rise and bake.",
+        Map.of("Flour", 1.0), 1);
+    recipeService.addRecipe(porridge);
+    recipeService.addRecipe(smoothie);
+    recipeService.addRecipe(bread);
+
+    List<RecipeSearchResult> results = recipeService.searchRecipes("BANANA!", 10);
+    Assertions.assertEquals(List.of(smoothie, porridge),
+        results.stream().map(RecipeSearchResult::recipe).toList());
+    Assertions.assertTrue(results.get(0).score() > results.get(1).score());
+
+    Assertions.assertEquals(List.of(porridge), recipeService.searchRecipes("oats milk", 1)
+        .stream().map(RecipeSearchResult::recipe).toList());
+    Assertions.assertTrue(recipeService.searchRecipes("pizza", 10).isEmpty());
+    Assertions.assertTrue(recipeService.searchRecipes("  ", 10).isEmpty());
+
+    Recipe newBread = new Recipe("bread", "Quick banana bread.", "Mix and bake.",
+        Map.of("Flour", 1.0), 1);
+    recipeService.addRecipe(newBread);
+    Assertions.assertTrue(recipeService.searchRecipes("knead", 10).isEmpty());
+    Assertions.assertEquals(3, recipeService.searchRecipes("banana", 10).size());
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> recipeService.searchRecipes("banana", 0));
+  }
+
+  /**
+   * Tests that a text search only finds recipes still in the cookbook while most recipes are
+   * removed, which compacts the index several times.
+   */
+  @Test
+  public void testSearchRecipes_FollowsRemovals() {
+    String[] words = {"apple", "bake", "carrot", "dice", "egg", "fry", "grill", "honey"};
+    Random random = new Random(11);
+    List<Recipe> recipes = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      String description = words[random.nextInt(words.length)] + " "
+          + words[random.nextInt(words.length)];
+      Recipe recipe = new Recipe("Dish " + i, description, "Serve.", Map.of(), 1);
+      recipes.add(recipe);
+      recipeService.addRecipe(recipe);
+    }
+
+    List<Recipe> remaining = new ArrayList<>(recipes);
+    while (remaining.size() > 20) {
+      Recipe removed = remaining.remove(random.nextInt(remaining.size()));
+      Assertions.assertTrue(recipeService.removeRecipe(removed.getName()));
+
+      if (remaining.size() % 40 == 0) {
+        for (String word : words) {
+          List<Recipe> expected = remaining.stream()
+              .filter(recipe -> recipe.getDescription().contains(word)).toList();
+          List<Recipe> found = recipeService.searchRecipes(word, Integer.MAX_VALUE).stream()
+              .map(RecipeSearchResult::recipe).toList();
+          Assertions.assertEquals(expected.size(), found.size(), word);
+          Assertions.assertTrue(expected.containsAll(found), word);
+        }
+      }
+    }
+    Assertions.assertEquals(remaining.size(),
+        recipeService.searchRecipes("serve", Integer.MAX_VALUE).size());
+  }
+
+  /**
+   * Tests that the parallel search finds the same recipes, in the same order, as the indexed
+   * search on a cookbook large enough to be split into many chunks.
+   */
+  @Test
+  public void testGetPossibleRecipesInParallel_MatchesSequential() {
+    Random random = new Random(7);
+    for (int i = 0; i < 50_000; i++) {
+      Map<String, Double> ingredients = new HashMap<>();
+      int ingredientCount = random.nextInt(4);
+      for (int j = 0; j < ingredientCount; j++) {
+        ingredients.put("parallel" + random.nextInt(40), (double) random.nextInt(3));
+      }
+      recipeService.addRecipe(new Recipe("Recipe " + i, "Test", "Cook.", ingredients, 1));
+    }
+    List<Grocery> fridgeItems = new ArrayList<>();
+    for (int i = 0; i < 30; i++) {
+      fridgeItems.add(new Grocery("parallel" + random.nextInt(40), 1 + random.nextInt(3), "kg",
+          10.0, LocalDate.now().plusDays(random.nextInt(5) - 2)));
+    }
+
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      for (String includeExpired : List.of("y", "n")) {
+        List<Recipe> expected = recipeService.getPossibleRecipes(fridgeItems, includeExpired);
+        Assertions.assertFalse(expected.isEmpty());
+        Assertions.assertEquals(expected,
+            recipeService.getPossibleRecipesInParallel(fridgeItems, includeExpired, pool));
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Tests that recommendations rank recipes by the weighted value of the lots they use.
+   * <p>Verifies that the lots expiring first are used, that expired lots are ignored, that ties
+   * keep the order the recipes were added in and that at most the asked number is returned.</p>
+   */
+  @Test
+  public void testGetRecommendedRecipes_RanksByWasteScore() {
+    LocalDate today = LocalDate.now();
+    List<Grocery> fridgeItems = List.of(
+        new Grocery("Milk", 2.0, "liters", 20.0, today),
+        new Grocery("Milk", 5.0, "liters", 1000.0, today.minusDays(1)),
+        new Grocery("Eggs", 6.0, "pieces", 3.0, today.plusDays(1)),
+        new Grocery("Eggs", 6.0, "pieces", 3.0, today.plusDays(3)));
+    Recipe latte = new Recipe("Latte", "Coffee", "Steam.", Map.of("Milk", 0.5), 1);
+    Recipe omelette = new Recipe("Omelette", "Eggs", "Fry.", Map.of("Eggs", 8.0), 2);
+    Recipe scramble = new Recipe("Scramble", "Eggs", "Stir.", Map.of("Eggs", 2.0), 1);
+    Recipe cake = new Recipe("Cake", "Sponge", "Bake.", Map.of("Eggs", 2.0, "Flour", 1.0), 8);
+    Recipe pudding = new Recipe("Pudding", "Sweet", "Boil.", Map.of("milk", 0.5), 2);
+    for (Recipe recipe : List.of(latte, omelette, scramble, cake, pudding)) {
+      recipeService.addRecipe(recipe);
+    }
+
+    List<RecipeRecommendation> top = recipeService.getRecommendedRecipes(fridgeItems, 3);
+    Assertions.assertEquals(List.of(omelette, latte, pudding),
+        top.stream().map(RecipeRecommendation::recipe).toList());
+    Assertions.assertEquals(6 * 1.5 + 2 * 0.75, top.get(0).wasteScore(), 1e-9);
+    Assertions.assertEquals(10.0, top.get(1).wasteScore(), 1e-9);
+
+    List<RecipeRecommendation> all = recipeService.getRecommendedRecipes(fridgeItems, 10);
+    Assertions.assertEquals(List.of(omelette, latte, pudding, scramble),
+        all.stream().map(RecipeRecommendation::recipe).toList());
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> recipeService.getRecommendedRecipes(fridgeItems, 0));
+  }
+
+  /**
+   * Tests that near-miss recipes list exactly what is missing.
+   * <p>Verifies the limits on the number of missing ingredients and on the total shortfall, that
+   * short ingredients count as missing and that recipes using no available ingredient are found
+   * when they need few enough ingredients.</p>
+   */
+  @Test
+  public void testGetNearMissRecipes_ListsMissingQuantities() {
+    List<Grocery> fridgeItems = List.of(
+        new Grocery("Eggs", 3.0, "pieces", 3.0, LocalDate.now().plusDays(10)),
+        new Grocery("Milk", 1.0, "liters", 20.0, LocalDate.now().plusDays(4)));
+    Recipe omelette = new Recipe("Omelette", "Eggs", "Fry.", Map.of("Eggs", 3.0), 1);
+    Recipe pancakes = new Recipe("Pancakes", "Breakfast", "Mix and fry.",
+        linkedMap("Eggs", 4.0, "Milk", 1.0, "Flour", 0.5), 4);
+    Recipe toast = new Recipe("Toast", "Bread", "Toast.", Map.of("Bread", 2.0), 1);
+    Recipe sandwich = new Recipe("Sandwich", "Lunch", "Stack.",
+        linkedMap("Bread", 2.0, "Cheese", 0.1, "Ham", 0.1), 1);
+    for (Recipe recipe : List.of(omelette, pancakes, toast, sandwich)) {
+      recipeService.addRecipe(recipe);
+    }
+
+    List<NearMissRecipe> buyTwo = recipeService.getNearMissRecipes(fridgeItems, "n", 2,
+        Double.POSITIVE_INFINITY);
+    Assertions.assertEquals(List.of(omelette, pancakes, toast),
+        buyTwo.stream().map(NearMissRecipe::recipe).toList());
+    Assertions.assertEquals(List.of(), buyTwo.get(0).missingIngredients());
+    Assertions.assertEquals(List.of(new MissingIngredient("eggs", 1.0),
+        new MissingIngredient("flour", 0.5)), buyTwo.get(1).missingIngredients());
+    Assertions.assertEquals(1.5, buyTwo.get(1).totalShortfall(), 1e-9);
+
+    Assertions.assertEquals(List.of(omelette, pancakes),
+        recipeService.getNearMissRecipes(fridgeItems, "n", 2, 1.5).stream()
+            .map(NearMissRecipe::recipe).toList());
+    Assertions.assertEquals(List.of(omelette, toast),
+        recipeService.getNearMissRecipes(fridgeItems, "n", 1, Double.POSITIVE_INFINITY).stream()
+            .map(NearMissRecipe::recipe).toList());
+    Assertions.assertEquals(4, recipeService.getNearMissRecipes(fridgeItems, "n", 3,
+        Double.POSITIVE_INFINITY).size());
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> recipeService.getNearMissRecipes(fridgeItems, "n", -1, 0));
+  }
+
+  private static Map<String, Double> linkedMap(Object... namesAndQuantities) {
+    Map<String, Double> map = new LinkedHashMap<>();
+    for (int i = 0; i < namesAndQuantities.length; i += 2) {
+      map.put((String) namesAndQuantities[i], (Double) namesAndQuantities[i + 1]);
+    }
+    return map;
+  }
+
+  /**
+   * Tests that the servings of each recipe are limited by its scarcest ingredient.
+   * <p>Verifies the number of times and servings, that missing ingredients give no servings and
+   * that recipes are ordered by servings.</p>
+   */
+  @Test
+  public void testGetMaxServings_LimitedByScarcestIngredient() {
+    List<Grocery> fridgeItems = List.of(
+        new Grocery("Eggs", 6.0, "pieces", 3.0, LocalDate.now().plusDays(10)),
+        new Grocery("Eggs", 3.0, "pieces", 3.0, LocalDate.now().minusDays(1)),
+        new Grocery("Milk", 1.0, "liters", 20.0, LocalDate.now().plusDays(4)));
+    Recipe pancakes = new Recipe("Pancakes", "Breakfast", "Mix and fry.",
+        Map.of("Eggs", 2.0, "Milk", 0.5), 4);
+    Recipe omelette = new Recipe("Omelette", "Eggs", "Fry.", Map.of("Eggs", 3.0), 1);
+    Recipe cake = new Recipe("Cake", "Sponge", "Bake.", Map.of("Eggs", 2.0, "Flour", 1.0), 8);
+    for (Recipe recipe : List.of(pancakes, omelette, cake)) {
+      recipeService.addRecipe(recipe);
+    }
+
+    List<RecipeServings> servings = recipeService.getMaxServings(fridgeItems, "n");
+    Assertions.assertEquals(List.of(pancakes, omelette, cake),
+        servings.stream().map(RecipeServings::recipe).toList());
+    Assertions.assertEquals(2.0, servings.get(0).batches(), 1e-9);
+    Assertions.assertEquals(8.0, servings.get(0).servings(), 1e-9);
+    Assertions.assertEquals(2.0, servings.get(1).servings(), 1e-9);
+    Assertions.assertEquals(0.0, servings.get(2).servings());
+
+    Assertions.assertEquals(3.0,
+        recipeService.getMaxServings(fridgeItems, "y").get(1).batches(), 1e-9);
+  }
+
+  /**
+   * Tests that the servings of a large random cookbook come out ordered by servings, keeping the
+   * order the recipes were added in among equal servings.
+   */
+  @Test
+  public void testGetMaxServings_Ordered() {
+    Random random = new Random(11);
+    List<Recipe> added = new ArrayList<>();
+    for (int i = 0; i < 5_000; i++) {
+      Map<String, Double> ingredients = new HashMap<>();
+      for (int j = random.nextInt(3); j >= 0; j--) {
+        ingredients.put("servings" + random.nextInt(20), 0.5 + random.nextInt(4));
+      }
+      Recipe recipe = new Recipe("Recipe " + i, "Test", "Cook.", ingredients, random.nextInt(6));
+      recipeService.addRecipe(recipe);
+      added.add(recipe);
+    }
+    List<Grocery> fridgeItems = new ArrayList<>();
+    for (int i = 0; i < 15; i++) {
+      fridgeItems.add(new Grocery("servings" + i, random.nextInt(30) / 4.0, "kg", 10.0,
+          LocalDate.now().plusDays(3)));
+    }
+
+    List<RecipeServings> servings = recipeService.getMaxServings(fridgeItems, "n");
+    Assertions.assertEquals(added.size(), servings.size());
+    for (int i = 1; i < servings.size(); i++) {
+      RecipeServings previous = servings.get(i - 1);
+      RecipeServings current = servings.get(i);
+      Assertions.assertTrue(previous.servings() >= current.servings());
+      if (previous.servings() == current.servings()) {
+        Assertions.assertTrue(
+            added.indexOf(previous.recipe()) < added.indexOf(current.recipe()));
+      }
+    }
+  }
+
+  /**
+   * Tests that recipes are looked up by name, ignoring case, and that adding a recipe with an
+   * existing name replaces it in place.
+   * <p>Verifies that the replaced recipe is matched with its new ingredients only, and that
+   * removal keeps the order of the other recipes.</p>
+   */
+  @Test
+  public void testAddRecipe_ReplacesRecipeWithSameName() {
+    Recipe pancakes = new Recipe("Pancakes", "Breakfast", "Fry.", Map.of("Eggs", 2.0), 4);
+    Recipe toast = new Recipe("Toast", "Bread", "Toast.", Map.of("Bread", 2.0), 1);
+    Recipe tea = new Recipe("Tea", "Hot drink", "Brew.", Map.of("Tea leaves", 0.01), 1);
+    recipeService.addRecipe(pancakes);
+    recipeService.addRecipe(toast);
+    recipeService.addRecipe(tea);
+    Recipe veganPancakes = new Recipe("PANCAKES", "Without eggs", "Fry.",
+        Map.of("Flour", 0.3), 4);
+    recipeService.addRecipe(veganPancakes);
+
+    Assertions.assertEquals(List.of(veganPancakes, toast, tea), recipeService.getRecipes());
+    Assertions.assertEquals(Optional.of(veganPancakes), recipeService.findRecipe("pancakes"));
+    List<Grocery> fridgeItems = List.of(
+        new Grocery("Eggs", 6.0, "pieces", 3.0, LocalDate.now().plusDays(10)),
+        new Grocery("Flour", 1.0, "kg", 15.0, LocalDate.now().plusDays(60)),
+        new Grocery("Bread", 2.0, "pieces", 5.0, LocalDate.now().plusDays(3)));
+    Assertions.assertEquals(List.of(veganPancakes, toast),
+        recipeService.getPossibleRecipes(fridgeItems, "n"));
+
+    Assertions.assertTrue(recipeService.removeRecipe("TOAST"));
+    Assertions.assertFalse(recipeService.removeRecipe("toast"));
+    Assertions.assertTrue(recipeService.findRecipe("Toast").isEmpty());
+    Assertions.assertEquals(List.of(veganPancakes, tea), recipeService.getRecipes());
+    Assertions.assertEquals(List.of(veganPancakes),
+        recipeService.getPossibleRecipes(fridgeItems, "n"));
+  }
 }
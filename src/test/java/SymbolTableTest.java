@@ -0,0 +1,139 @@
+import edu.ntnu.iir.bidata.model.Cookbook;
+import edu.ntnu.iir.bidata.model.Grocery;
+import edu.ntnu.iir.bidata.model.Recipe;
+import edu.ntnu.iir.bidata.model.SymbolTable;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link SymbolTable} class.
+ *
+ * <p>These tests verify that spellings are normalized to a single identifier, that identifiers
+ * are dense, that groceries and recipes share the identifiers of their names, and that a cookbook
+ * numbers its ingredients on its own.</p>
+ */
+public class SymbolTableTest {
+
+  /**
+   * Tests looking up a name in different spellings.
+   * <p>Verifies that every spelling gets the identifier of the lowercase name, which is stored
+   * once.</p>
+   */
+  @Test
+  void testIdOf_SameIdForEverySpelling() {
+    SymbolTable table = new SymbolTable(String::toLowerCase);
+
+    int id = table.idOf("Milk");
+
+    Assertions.assertEquals(id, table.idOf("milk"));
+    Assertions.assertEquals(id, table.idOf("MILK"));
+    Assertions.assertEquals("milk", table.symbolOf(id));
+    Assertions.assertEquals(1, table.size(), "All spellings should share one symbol.");
+  }
+
+  /**
+   * Tests the identifiers handed out for new symbols.
+   * <p>Verifies that identifiers are consecutive from 0 and that the size follows them.</p>
+   */
+  @Test
+  void testIdOf_DenseIdentifiers() {
+    SymbolTable table = new SymbolTable(UnaryOperator.identity());
+
+    for (int i = 0; i < 100; i++) {
+      Assertions.assertEquals(i, table.idOf("symbol" + i));
+    }
+    Assertions.assertEquals(100, table.size());
+    Assertions.assertEquals("symbol99", table.symbolOf(99));
+  }
+
+  /**
+   * Tests finding symbols without registering them.
+   * <p>Verifies that a known name is found in another spelling, and that an unknown name is
+   * reported as {@code -1} without being added.</p>
+   */
+  @Test
+  void testFindId_UnknownSymbol() {
+    SymbolTable table = new SymbolTable(String::toLowerCase);
+    table.idOf("egg");
+
+    Assertions.assertEquals(0, table.findId("EGG"));
+    Assertions.assertEquals(-1, table.findId("flour"));
+    Assertions.assertEquals(1, table.size(), "Finding a symbol should not register it.");
+  }
+
+  /**
+   * Tests looking up a symbol by an identifier that was never handed out.
+   * <p>Verifies that unknown and negative identifiers are rejected.</p>
+   */
+  @Test
+  void testSymbolOf_UnknownId() {
+    SymbolTable table = new SymbolTable(String::toLowerCase);
+
+    Assertions.assertThrows(IllegalArgumentException.class, () -> table.symbolOf(0));
+    Assertions.assertThrows(IllegalArgumentException.class, () -> table.symbolOf(-1));
+  }
+
+  /**
+   * Tests that groceries with the same name share the interned name.
+   * <p>Verifies that spellings of a name give the same identifier and the same lowercase string
+   * instance.</p>
+   */
+  @Test
+  void testGroceriesShareInternedNames() {
+    Grocery first = new Grocery("Cheese", 1, "kg", 100, LocalDate.now());
+    Grocery second = new Grocery("CHEESE", 2, "kg", 120, LocalDate.now());
+
+    Assertions.assertEquals(first.getNameId(), second.getNameId());
+    Assertions.assertSame(first.getName(), second.getName());
+    Assertions.assertEquals("cheese", second.getName());
+    Assertions.assertEquals(first.getUnitId(), second.getUnitId());
+  }
+
+  /**
+   * Tests the compiled ingredients of a recipe.
+   * <p>Verifies that names only differing in case are merged into one ingredient with the summed
+   * quantity, in the order of the ingredient map.</p>
+   */
+  @Test
+  void testRecipeCompilesIngredients() {
+    Map<String, Double> ingredients = new LinkedHashMap<>();
+    ingredients.put("Flour", 300.0);
+    ingredients.put("Sugar", 100.0);
+    ingredients.put("flour", 200.0);
+
+    Recipe recipe = new Recipe("Cake", "A cake", "Bake.", ingredients, 4);
+
+    Assertions.assertEquals(2, recipe.getIngredientCount());
+    Assertions.assertEquals(SymbolTable.NAMES.idOf("flour"), recipe.getIngredientId(0));
+    Assertions.assertEquals(SymbolTable.NAMES.idOf("sugar"), recipe.getIngredientId(1));
+    Assertions.assertEquals(500.0, recipe.getRequiredQuantity(0));
+    Assertions.assertEquals(100.0, recipe.getRequiredQuantity(1));
+    Assertions.assertEquals(ingredients, recipe.getIngredients());
+  }
+
+  /**
+   * Tests that a cookbook numbers its ingredients with a table of its own.
+   * <p>Verifies that the ingredient identifiers of a new cookbook start at 0 and only count the
+   * ingredients it knows, however many names the shared table holds.</p>
+   */
+  @Test
+  void testCookbookNumbersItsOwnIngredients() {
+    for (int i = 0; i < 100; i++) {
+      SymbolTable.NAMES.idOf("othername" + i);
+    }
+    Cookbook cookbook = new Cookbook();
+    cookbook.addRecipe(new Recipe("Rice", "Saffron rice", "Boil.",
+        Map.of("Saffron", 0.1), 2));
+    cookbook.setAvailableQuantity("rice", 1.0);
+
+    Assertions.assertEquals(0, cookbook.ingredientIdOf("SAFFRON"));
+    Assertions.assertEquals(1, cookbook.ingredientIdOf("rice"));
+    Assertions.assertEquals(-1, cookbook.ingredientIdOf("othername0"));
+    Assertions.assertEquals(2, cookbook.getIngredientCount());
+    Assertions.assertTrue(SymbolTable.NAMES.size() > 100);
+  }
+}
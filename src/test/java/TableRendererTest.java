@@ -0,0 +1,94 @@
+import edu.ntnu.iir.bidata.model.Grocery;
+import edu.ntnu.iir.bidata.utils.TableRenderer;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for the {@link TableRenderer} class.
+ *
+ * <p>These tests verify the table layout, that numbers are formatted exactly like
+ * {@code printf} and that tables can be written to a file.</p>
+ */
+public class TableRendererTest {
+
+  private static final TableRenderer<Grocery> TABLE = new TableRenderer<>(List.of(
+      TableRenderer.Column.text("Name", 8, Grocery::getName),
+      TableRenderer.Column.decimal("Qty", 6, Grocery::getQuantity),
+      TableRenderer.Column.integer("Day", 3, grocery -> grocery.getExpiryDate().getDayOfMonth())));
+
+  @Test
+  void testRender_Layout() throws IOException {
+    StringBuilder out = new StringBuilder();
+    TABLE.render(List.of(
+        new Grocery("milk", 1.5, "liters", 20, LocalDate.of(2024, 5, 7)),
+        new Grocery("Cheddar cheese", 0.125, "kg", 150, LocalDate.of(2024, 5, 21))), out);
+
+    String expected = """
+        +----------+--------+-----+
+        | Name     | Qty    | Day |
+        +----------+--------+-----+
+        | milk     | 1.50   | 7   |
+        | cheddar cheese | 0.13   | 21  |
+        +----------+--------+-----+
+        """;
+    Assertions.assertEquals(expected, out.toString());
+  }
+
+  @Test
+  void testRender_NumbersMatchPrintf() throws IOException {
+    Locale defaultLocale = Locale.getDefault(Locale.Category.FORMAT);
+    try {
+      for (Locale locale : List.of(Locale.US, Locale.forLanguageTag("nb-NO"))) {
+        Locale.setDefault(Locale.Category.FORMAT, locale);
+        List<Double> values = new ArrayList<>(List.of(0.0, -0.0, 0.005, 1.005, 2.675, -0.001,
+            -12.345, 0.125, 99.995, 1e12, Double.NaN, Double.POSITIVE_INFINITY));
+        Random random = new Random(3);
+        for (int i = 0; i < 10_000; i++) {
+          values.add(Math.round(random.nextDouble() * 1_000_000) / 1000.0 - 100);
+        }
+
+        TableRenderer<Double> table = new TableRenderer<>(
+            List.of(TableRenderer.Column.decimal("Value", 1, Double::doubleValue)));
+        StringBuilder out = new StringBuilder();
+        table.render(values, out);
+        String[] lines = out.toString().split("\n");
+        for (int i = 0; i < values.size(); i++) {
+          Assertions.assertEquals(String.format("| %.2f |", values.get(i)), lines[i + 3],
+              "Value " + values.get(i) + " in " + locale);
+        }
+      }
+    } finally {
+      Locale.setDefault(Locale.Category.FORMAT, defaultLocale);
+    }
+  }
+
+  @Test
+  void testWrite_ToFile(@TempDir Path directory) throws IOException {
+    List<Grocery> groceries = new ArrayList<>();
+    for (int i = 0; i < 5_000; i++) {
+      groceries.add(new Grocery("grocery" + i, i, "kg", 1, LocalDate.of(2024, 1, 1)));
+    }
+    Path file = directory.resolve("groceries.txt");
+
+    TABLE.write(groceries, file);
+
+    List<String> lines = Files.readAllLines(file);
+    Assertions.assertEquals(groceries.size() + 4, lines.size());
+    Assertions.assertEquals("| grocery4999 | 4999.00 | 1   |", lines.get(lines.size() - 2));
+  }
+
+  @Test
+  void testConstructor_NoColumns() {
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> new TableRenderer<Grocery>(List.of()));
+  }
+}